@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring;
+
+import java.lang.reflect.Parameter;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.lang.Nullable;
+
+import com.viiyue.plugins.validator.Validator;
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.metrics.ValidationTracer;
+import com.viiyue.plugins.validator.spring.report.ReportOnlyValidator;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+import com.viiyue.plugins.validator.spring.utils.RuleInterner;
+
+/**
+ * Integration state scoped to a single spring application context, it is not
+ * a validator instance. Each {@link ValidatorLiteBean} creates its own
+ * instance and injects it into the beans it registers, so that multiple
+ * {@code DispatcherServlet} contexts in the same JVM keep their own default
+ * locale, validation executor, diagnostics, report-only validator, validation
+ * budget and metadata caches.
+ * 
+ * <p>
+ * <b>The validation engine itself is not isolated.</b> validator-lite only
+ * offers the static {@link Validator} API, its handler factory, configuration
+ * and message resolver are process-wide: every context that starts writes
+ * them again, the last one wins, and all contexts validate with those
+ * settings. This class therefore holds no engine state, it only delegates to
+ * the static API. The locale is the only engine setting passed explicitly
+ * for each validation, so the default language of each context is honored.
+ * 
+ * <p>
+ * The state of the context is published as an immutable {@link Snapshot}
+ * through a single atomic reference. Request threads read the snapshot once
+ * and use it for the whole request, reconfiguration publishes a new snapshot
+ * without blocking them.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidatorContext {
+
+	private final int metadataCacheLimit;
+	private final RuleInterner ruleInterner;
+	private final GroupSequences groupSequences;
+	private final AtomicReference<Snapshot> snapshot;
+
+	public ValidatorContext( @Nullable Locale defaultLocale ) {
+		this( defaultLocale, MetadataCaches.DEFAULT_LIMIT );
+	}
+
+	/**
+	 * @param defaultLocale the default message locale of the context
+	 * @param metadataCacheLimit the entry limit of the metadata caches of the context, negative means no limit.
+	 */
+	public ValidatorContext( @Nullable Locale defaultLocale, int metadataCacheLimit ) {
+		this.metadataCacheLimit = metadataCacheLimit;
+		this.ruleInterner = new RuleInterner( metadataCacheLimit );
+		this.groupSequences = new GroupSequences( ruleInterner, metadataCacheLimit );
+		this.snapshot = new AtomicReference<Snapshot>( new Snapshot( defaultLocale, null, null, null, null, null ) );
+	}
+
+	/**
+	 * Validate a java bean with the process-wide validation engine
+	 * 
+	 * @param target the validation target
+	 * @param locale the message locale
+	 * @param groups the validation groups
+	 * @return the validation result
+	 */
+	public ValidatedResult validateBean( Object target, Locale locale, Class<?> ... groups ) {
+		return Validator.validateBean( target, locale, groups );
+	}
+
+	/**
+	 * Validate a method parameter with the process-wide validation engine
+	 * 
+	 * @param argument the argument value
+	 * @param parameter the method parameter
+	 * @param parameterName the parameter name
+	 * @param defaultMessage the default error message
+	 * @param locale the message locale
+	 * @param groups the validation groups
+	 * @return the validation result
+	 */
+	public ValidatedResult validateParameter( Object argument, Parameter parameter, String parameterName, 
+			String defaultMessage, Locale locale, Class<?> ... groups ) {
+		return Validator.validateParameter( argument, parameter, parameterName, defaultMessage, locale, groups );
+	}
+
+	/**
+	 * Get the currently published state of the context, callers on the hot
+	 * path should read it once and keep the reference for the whole request.
+	 * 
+	 * @return the immutable state snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * @return the entry limit of the metadata caches of the context
+	 */
+	public int getMetadataCacheLimit() {
+		return metadataCacheLimit;
+	}
+
+	/**
+	 * @return the interning table of the rule metadata of the context
+	 */
+	public RuleInterner getRuleInterner() {
+		return ruleInterner;
+	}
+
+	/**
+	 * @return the validation plans of the context
+	 */
+	public GroupSequences getGroupSequences() {
+		return groupSequences;
+	}
+
+	/**
+	 * Discard the metadata cached by the context, it is computed again when it
+	 * is used next time.
+	 */
+	public void clearMetadataCaches() {
+		groupSequences.clear();
+		ruleInterner.clear();
+	}
+
+	@Nullable
+	public Executor getValidationExecutor() {
+		return getSnapshot().getValidationExecutor();
+	}
+
+	public void setValidationExecutor( Executor validationExecutor ) {
+		Snapshot current;
+		do {
+			current = snapshot.get();
+		} while ( !snapshot.compareAndSet( current, new Snapshot( current.defaultLocale, validationExecutor, current.metrics, 
+				current.tracer, current.reportOnlyValidator, current.budget ) ) );
+	}
+
+	@Nullable
+	public ValidationMetrics getMetrics() {
+		return getSnapshot().getMetrics();
+	}
+
+	public void setMetrics( ValidationMetrics metrics ) {
+		Snapshot current;
+		do {
+			current = snapshot.get();
+		} while ( !snapshot.compareAndSet( current, new Snapshot( current.defaultLocale, current.validationExecutor, metrics, 
+				current.tracer, current.reportOnlyValidator, current.budget ) ) );
+	}
+
+	@Nullable
+	public ValidationTracer getTracer() {
+		return getSnapshot().getTracer();
+	}
+
+	public void setTracer( ValidationTracer tracer ) {
+		Snapshot current;
+		do {
+			current = snapshot.get();
+		} while ( !snapshot.compareAndSet( current, new Snapshot( current.defaultLocale, current.validationExecutor, current.metrics, 
+				tracer, current.reportOnlyValidator, current.budget ) ) );
+	}
+
+	@Nullable
+	public ReportOnlyValidator getReportOnlyValidator() {
+		return getSnapshot().getReportOnlyValidator();
+	}
+
+	public void setReportOnlyValidator( ReportOnlyValidator reportOnlyValidator ) {
+		Snapshot current;
+		do {
+			current = snapshot.get();
+		} while ( !snapshot.compareAndSet( current, new Snapshot( current.defaultLocale, current.validationExecutor, current.metrics, 
+				current.tracer, reportOnlyValidator, current.budget ) ) );
+	}
+
+	@Nullable
+	public ValidationBudget getBudget() {
+		return getSnapshot().getBudget();
+	}
+
+	public void setBudget( ValidationBudget budget ) {
+		Snapshot current;
+		do {
+			current = snapshot.get();
+		} while ( !snapshot.compareAndSet( current, new Snapshot( current.defaultLocale, current.validationExecutor, current.metrics, 
+				current.tracer, current.reportOnlyValidator, budget ) ) );
+	}
+
+	/**
+	 * Immutable state of the context
+	 */
+	public static final class Snapshot {
+
+		private final Locale defaultLocale;
+		private final Executor validationExecutor;
+		private final ValidationMetrics metrics;
+		private final ValidationTracer tracer;
+		private final ReportOnlyValidator reportOnlyValidator;
+		private final ValidationBudget budget;
+
+		private Snapshot( Locale defaultLocale, Executor validationExecutor, ValidationMetrics metrics, 
+				ValidationTracer tracer, ReportOnlyValidator reportOnlyValidator, ValidationBudget budget ) {
+			this.defaultLocale = defaultLocale;
+			this.validationExecutor = validationExecutor;
+			this.metrics = metrics;
+			this.tracer = tracer;
+			this.reportOnlyValidator = reportOnlyValidator;
+			this.budget = budget;
+		}
+
+		@Nullable
+		public Locale getDefaultLocale() {
+			return defaultLocale;
+		}
+
+		@Nullable
+		public Executor getValidationExecutor() {
+			return validationExecutor;
+		}
+
+		@Nullable
+		public ValidationMetrics getMetrics() {
+			return metrics;
+		}
+
+		@Nullable
+		public ValidationTracer getTracer() {
+			return tracer;
+		}
+
+		@Nullable
+		public ReportOnlyValidator getReportOnlyValidator() {
+			return reportOnlyValidator;
+		}
+
+		@Nullable
+		public ValidationBudget getBudget() {
+			return budget;
+		}
+
+	}
+
+}
@@ -17,9 +17,15 @@ package com.viiyue.plugins.validator.spring;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Predicate;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.FieldError;
@@ -33,8 +39,18 @@ import com.viiyue.plugins.validator.common.Constants;
 import com.viiyue.plugins.validator.metadata.result.ElementResult;
 import com.viiyue.plugins.validator.metadata.result.FragmentResult;
 import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.batch.BatchValidator;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.metrics.BeanValidationEvent;
+import com.viiyue.plugins.validator.spring.metrics.FlightRecorderSupport;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.metrics.ValidationTrace;
 import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+import com.viiyue.plugins.validator.spring.report.ReportOnly;
+import com.viiyue.plugins.validator.spring.report.ReportOnlyValidator;
 import com.viiyue.plugins.validator.spring.utils.LocaleUtils;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
 
 /**
  * Java bean parameters for validating spring injection
@@ -42,9 +58,62 @@ import com.viiyue.plugins.validator.spring.utils.LocaleUtils;
  * @author tangxbai
  * @since 1.0.0
  */
-public final class ValidatorLite implements SmartValidator {
+public final class ValidatorLite implements SmartValidator, BeanFactoryAware, DisposableBean {
 	
 	private static final String VALIDATED = ValidatorLite.class.getName() + ".VALIDATED";
+	private static final String REPORT_ONLY = ValidatorLite.class.getName() + ".REPORT_ONLY"; // Added in 1.0.5
+	private static final Class<?> [][] NO_STAGES = {};
+	
+	// Added in 1.0.5
+	private final BatchValidator batchValidator = new BatchValidator( null );
+	private ValidatorContext validatorContext;
+	private ValidationMetrics metrics;
+	private int maxErrors = -1;
+	
+	@Override
+	public void setBeanFactory( BeanFactory beanFactory ) throws BeansException {
+		this.batchValidator.setBeanFactory( beanFactory );
+	}
+	
+	/**
+	 * Release the batch metadata and handlers of the closed application context
+	 * 
+	 * @since 1.0.5
+	 */
+	@Override
+	public void destroy() {
+		this.batchValidator.clear();
+		this.batchValidator.setBeanFactory( null );
+	}
+	
+	/**
+	 * Set the validator instance scoped to the current application context, the
+	 * static {@link Validator} API is used if it is not set.
+	 * 
+	 * @param validatorContext the context-scoped validator instance
+	 * @since 1.0.5
+	 */
+	public void setValidatorContext( ValidatorContext validatorContext ) {
+		this.validatorContext = validatorContext;
+		this.metrics = validatorContext == null ? null : validatorContext.getMetrics();
+		this.batchValidator.setCacheLimit( MetadataCaches.getLimit( validatorContext ) );
+		if ( metrics != null ) {
+			metrics.registerCache( "batchFields", batchValidator.getCacheStatistics() );
+			metrics.registerCache( "groupPlans", validatorContext.getGroupSequences().getCacheStatistics() );
+			metrics.registerCache( "internedRules", validatorContext.getRuleInterner().getCacheStatistics() );
+		}
+	}
+
+	/**
+	 * The maximum number of validation errors that are materialized as field
+	 * errors for each java bean, the remaining errors are only counted.
+	 * 
+	 * @param maxErrors the maximum error count, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public void setMaxErrors( int maxErrors ) {
+		this.maxErrors = maxErrors;
+	}
 
 	@Override
 	public boolean supports( Class<?> clazz ) {
@@ -58,16 +127,95 @@ public final class ValidatorLite implements SmartValidator {
 
 	@Override
 	public void validate( Object target, Errors errors, Object ... groups ) {
-		Locale currentLocale = LocaleUtils.switchLocale();
-		ValidatedResult result = Validator.validateBean( target, currentLocale, ( Class<?> [] ) groups );
-		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
-		setValidatedResult( attributes, result );
-		if ( !result.isPassed() ) {
-			processBindingErrors( result, errors );
+		ValidatorContext context = this.validatorContext;
+		Locale currentLocale = context == null ? LocaleUtils.switchLocale() : LocaleUtils.switchLocale( context.getSnapshot() );
+		validate( target, errors, currentLocale, RequestContextHolder.getRequestAttributes(), groups );
+	}
+	
+	/**
+	 * Validate a java bean with an explicit locale, without depending on any
+	 * thread-bound request state. Used by integrations where the request is
+	 * not bound to the current thread, such as WebFlux.
+	 * 
+	 * @param target the validation target
+	 * @param errors the spring validation error binding object
+	 * @param currentLocale the message locale
+	 * @param attributes the request attributes, the validated result is neither
+	 *        staged nor traced if it is {@code null}.
+	 * @param groups the validation groups or hints
+	 * @since 1.0.5
+	 */
+	public void validate( Object target, Errors errors, Locale currentLocale, @Nullable RequestAttributes attributes, Object [] groups ) {
+		ValidatorContext context = this.validatorContext;
+		ValidatorContext.Snapshot snapshot = context == null ? null : context.getSnapshot();
+		ValidationTrace trace = snapshot == null || snapshot.getTracer() == null ? null : snapshot.getTracer().begin( attributes );
+		long startTime = metrics == null && trace == null ? 0 : System.nanoTime();
+		BeanValidationEvent event = FlightRecorderSupport.AVAILABLE ? BeanValidationEvent.start() : null;
+		ValidatedResult result = null;
+		
+		// Report-only rules are validated in the background, added in 1.0.5
+		boolean reportOnly = attributes != null && isReportOnly( attributes );
+		ReportOnlyValidator reporter = snapshot == null ? null : snapshot.getReportOnlyValidator();
+		GroupSequences groupSequences = GroupSequences.of( context );
+		Class<?> [][] reportPlan = reportOnly ? groupSequences.getPlan( groups ) : groupSequences.getReportOnlyPlan( groups );
+		if ( reporter != null && reportPlan != null && target != null ) {
+			reporter.submitBean( target, reportPlan, currentLocale );
 		}
-		if ( errors instanceof BeanBindingResult ) {
+		
+		if ( maxErrors >= 0 && errors instanceof BeanBindingResult ) {
+			( ( BeanBindingResult ) errors ).setMaxErrors( maxErrors );
+		}
+		
+		// Partial updates only report the properties bound from the request
+		BeanBindingResult partial = null;
+		if ( errors instanceof BeanBindingResult && GroupSequences.isPartial( groups ) ) {
+			partial = ( BeanBindingResult ) errors;
+		}
+		Predicate<String> pathFilter = partial == null ? null : partial::isBoundPath;
+		
+		// Group sequences are validated stage by stage, stop at the first failed stage
+		// The plan is empty if all groups are report-only
+		ValidationBudget budget = snapshot == null ? null : snapshot.getBudget();
+		ValidationBudget.Deadline deadline = budget == null ? null : budget.start( attributes );
+		for ( Class<?> [] stage : reportOnly ? NO_STAGES : groupSequences.getPlan( groups ) ) { // Updated in 1.0.5
+			// The time budget is checked between stages, added in 1.0.5
+			if ( deadline != null && deadline.isExpired() ) {
+				budget.exceeded( errors, ValidationBudget.DEADLINE );
+				break;
+			}
+			result = context == null 
+				? Validator.validateBean( target, currentLocale, stage ) 
+				: context.validateBean( target, currentLocale, stage );
+			// A partial update only fails on the rejections of the bound properties, the
+			// batch rules and the following stages still apply to them (Updated in 1.0.5)
+			if ( !result.isPassed() && ( partial == null || hasBoundRejection( result, errors.getNestedPath(), partial ) ) ) {
+				break;
+			}
+			// The batch rules of the stage only run once its other rules have passed, 
+			// a rejection stops the following stages (Added in 1.0.5)
+			if ( !batchValidator.validate( target, errors, pathFilter, stage, budget, deadline ) ) {
+				break;
+			}
+		}
+		if ( attributes != null && result != null ) {
+			setValidatedResult( attributes, result );
+		}
+		if ( result != null && !result.isPassed() ) {
+			processBindingErrors( result, errors, partial );
+		}
+		if ( errors instanceof BeanBindingResult && result != null ) {
 			( ( BeanBindingResult ) errors ).setValidated( result );
 		}
+		if ( metrics != null && target != null ) {
+			metrics.recordLatency( target.getClass(), System.nanoTime() - startTime );
+		}
+		if ( trace != null && target != null ) {
+			String rejected = errors.hasErrors() ? errors.getErrorCount() + " errors" : null;
+			trace.record( "bean", target.getClass().getName(), System.nanoTime() - startTime, rejected );
+		}
+		if ( event != null ) {
+			event.finish( target == null ? null : target.getClass(), result == null || result.isPassed(), errors.getErrorCount() );
+		}
 	}
 	
 	/**
@@ -77,15 +225,18 @@ public final class ValidatorLite implements SmartValidator {
 	 * 
 	 * @param result the data validated results of the plug-in
 	 * @param errors the spring validation error binding object
+	 * @param partial the binding result of a partial update, {@code null} if all properties are reported.
 	 */
-	private void processBindingErrors( ValidatedResult result, Errors errors  ) {
+	private void processBindingErrors( ValidatedResult result, Errors errors, BeanBindingResult partial ) {
 		for ( ElementResult rejected : result.getRejectedResults() ) {
 			String field = rejected.getField();
-			FieldError fieldError = errors.getFieldError( field );
-			if ( fieldError == null || !fieldError.isBindingFailure() ) {
+			if ( partial != null && !partial.isBoundPath( errors.getNestedPath() + field ) ) {
+				continue; // Added in 1.0.5
+			}
+			if ( !hasBindingFailure( errors, field ) ) {
 				if ( rejected.isTypeOf( ValidatedResult.class ) ) {
 					errors.pushNestedPath( field );
-					processBindingErrors( ( ValidatedResult ) rejected.getResult(), errors ); // Updated in v1.0.3
+					processBindingErrors( ( ValidatedResult ) rejected.getResult(), errors, partial ); // Updated in v1.0.3
 					errors.popNestedPath();
 				} else {
 					processFragmentErrors( rejected, errors, field );
@@ -94,6 +245,45 @@ public final class ValidatorLite implements SmartValidator {
 		}
 	}
 	
+	/**
+	 * Whether the result of a partial update has rejections of the properties
+	 * bound from the request
+	 * 
+	 * @param result the data validated results of the plug-in
+	 * @param path the property path of the result, including the trailing separator.
+	 * @param partial the binding result of the partial update
+	 * @return {@code true} if a bound property was rejected
+	 * @since 1.0.5
+	 */
+	private boolean hasBoundRejection( ValidatedResult result, String path, BeanBindingResult partial ) {
+		for ( ElementResult rejected : result.getRejectedResults() ) {
+			String field = path + rejected.getField();
+			if ( partial.isBoundPath( field ) ) {
+				if ( !rejected.isTypeOf( ValidatedResult.class ) 
+						|| hasBoundRejection( ( ValidatedResult ) rejected.getResult(), field + Errors.NESTED_PATH_SEPARATOR, partial ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Whether the field failed to bind, the accumulated validation errors of
+	 * {@link BeanBindingResult} are not materialized by the check.
+	 * 
+	 * @param errors the spring validation error binding object
+	 * @param field the field name
+	 * @return {@code true} if the field failed to bind
+	 */
+	private boolean hasBindingFailure( Errors errors, String field ) {
+		if ( errors instanceof BeanBindingResult ) {
+			return ( ( BeanBindingResult ) errors ).hasBindingFailure( field );
+		}
+		FieldError fieldError = errors.getFieldError( field );
+		return fieldError != null && fieldError.isBindingFailure();
+	}
+	
 	/**
 	 * Handle validation target fragmentation error results
 	 * 
@@ -103,6 +293,9 @@ public final class ValidatorLite implements SmartValidator {
 	 */
 	private void processFragmentErrors( ElementResult rejected, Errors errors, String field ) {
 		for ( FragmentResult result : ( List<FragmentResult> ) rejected.getResult() ) { // Updated in v1.0.3
+			if ( metrics != null ) {
+				metrics.recordRejected( result.getErrorCode() );
+			}
 			// Can do custom FieldError registration with invalid value from Validator, 
 			// as necessary for Validator compatibility (non-indexed set path in field)
 			if ( errors instanceof BindingResult ) {
@@ -114,6 +307,9 @@ public final class ValidatorLite implements SmartValidator {
 					ObjectError error = new ObjectError( errors.getObjectName(), errorCodes, result.getArguments(), result.getErrorMessage() );
 					error.wrap( result );
 					bindingResult.addError( error );
+				} else if ( bindingResult instanceof BeanBindingResult ) {
+					// Added in 1.0.5, the field error is created when it is read
+					( ( BeanBindingResult ) bindingResult ).addRejectedValue( nestedField, rejected.getFieldValue(), result );
 				} else {
 					String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + result.getErrorCode();
 					String[] errorCodes = bindingResult.resolveMessageCodes( basicMessageCode, field );
@@ -149,6 +345,33 @@ public final class ValidatorLite implements SmartValidator {
 		attributes.removeAttribute( VALIDATED, RequestAttributes.SCOPE_REQUEST );
 	}
 	
+	/**
+	 * Whether the parameter being resolved is annotated with {@link ReportOnly}
+	 * 
+	 * @param attributes the spring request attributes
+	 * @return {@code true} if all rules are validated in report-only mode
+	 * @since 1.0.5
+	 */
+	public static boolean isReportOnly( RequestAttributes attributes ) {
+		return attributes.getAttribute( REPORT_ONLY, RequestAttributes.SCOPE_REQUEST ) != null;
+	}
+	
+	/**
+	 * Mark the parameter being resolved as report-only, so that the java bean
+	 * validation triggered by the argument resolver is not enforced.
+	 * 
+	 * @param attributes the spring request attributes
+	 * @param reportOnly whether the parameter is report-only
+	 * @since 1.0.5
+	 */
+	public static void setReportOnly( RequestAttributes attributes, boolean reportOnly ) {
+		if ( reportOnly ) {
+			attributes.setAttribute( REPORT_ONLY, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST );
+		} else {
+			attributes.removeAttribute( REPORT_ONLY, RequestAttributes.SCOPE_REQUEST );
+		}
+	}
+	
 	/**
 	 * Temporarily store validation results in request attributes
 	 * 
@@ -15,12 +15,23 @@
  */
 package com.viiyue.plugins.validator.spring;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -28,21 +39,37 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.DelegatingMessageSource;
 import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 import com.viiyue.plugins.validator.ValidatorFactory;
 import com.viiyue.plugins.validator.handler.Handler;
 import com.viiyue.plugins.validator.scripting.configuration.ContextConfigurion;
+import com.viiyue.plugins.validator.spring.beans.RequestDependent;
 import com.viiyue.plugins.validator.spring.beans.ValidationRequestMappingHandlerAdapter;
+import com.viiyue.plugins.validator.spring.bindings.InputScreening;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
 import com.viiyue.plugins.validator.spring.message.SpringMessageResovler;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.metrics.ValidationTracer;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+import com.viiyue.plugins.validator.spring.report.ReportOnlyValidator;
+import com.viiyue.plugins.validator.spring.utils.ExecutorUtils;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+import com.viiyue.plugins.validator.spring.utils.NativeImageConfigGenerator;
 import com.viiyue.plugins.validator.spring.utils.PrecompileUtils;
 import com.viiyue.plugins.validator.utils.BeanUtil;
 
@@ -56,18 +83,46 @@ import com.viiyue.plugins.validator.utils.BeanUtil;
  * @see ApplicationListener
  * @see BeanDefinitionRegistryPostProcessor
  */
-public class ValidatorLiteBean extends ContextConfigurion implements InitializingBean, ApplicationListener<ContextRefreshedEvent>, BeanDefinitionRegistryPostProcessor {
+public class ValidatorLiteBean extends ContextConfigurion implements InitializingBean, DisposableBean, ApplicationContextAware, ApplicationListener<ApplicationContextEvent>, BeanDefinitionRegistryPostProcessor {
 	
-	// Package scanner
-	private static final ClassPathScanningCandidateComponentProvider scanner;
-	static {
-		scanner = new ClassPathScanningCandidateComponentProvider( false );
-		scanner.addIncludeFilter( new AssignableTypeFilter( Handler.class ) );
-	}
+	// Web stacks available on the classpath, added in 1.0.5
+	private static final boolean mvcPresent = ClassUtils.isPresent( "org.springframework.web.servlet.DispatcherServlet", ValidatorLiteBean.class.getClassLoader() );
+	private static final boolean webfluxPresent = ClassUtils.isPresent( "org.springframework.web.reactive.DispatcherHandler", ValidatorLiteBean.class.getClassLoader() );
+	
+	// Message resolvers of the live contexts in installation order, the last one is installed in the
+	// static validator. Guarded by the lock of the static validator, added in 1.0.5
+	private static final Deque<SpringMessageResovler> installedResolvers = new ArrayDeque<SpringMessageResovler>( 4 );
 	
 	private String handlers;
 	private Class<? extends ValidatorFactory> factory;
 	
+	// Added in 1.0.5
+	private boolean concurrentValidation;
+	private Executor validationExecutor;
+	private ExecutorService ownedExecutor;
+	private boolean enableMetrics;
+	private ValidationMetrics metrics;
+	private ObjectName metricsName;
+	private double traceSampleRate;
+	private long traceThreshold = 50;
+	private ValidationTracer tracer;
+	private boolean watchMessageBundles;
+	private String messageBundleEncoding = "UTF-8";
+	private SpringMessageResovler messageResolver;
+	private ApplicationContext applicationContext;
+	private ValidatorContext validatorContext;
+	private int metadataCacheLimit = MetadataCaches.DEFAULT_LIMIT;
+	private InputScreening inputScreening;
+	private RegexEngine regexEngine = RegexEngines.jdk();
+	private String nativeImageResources;
+	private int maxErrors = -1;
+	private boolean cacheBinderConfiguration;
+	private int reactiveThreads;
+	private int reportOnlyThreads = 1;
+	private int reportOnlyQueueCapacity = 1000;
+	private ReportOnlyValidator reportOnlyValidator;
+	private final ValidationBudget budget = new ValidationBudget();
+	
 	/**
 	 * Custom validation factory implementation
 	 * 
@@ -87,6 +142,293 @@ public class ValidatorLiteBean extends ContextConfigurion implements Initializin
 		this.handlers = handlers;
 	}
 
+	/**
+	 * Validate the {@code @Validated} parameters of the same request concurrently,
+	 * blocking rules (database uniqueness checks, remote lookups) of independent
+	 * parameters are dispatched together and the results are merged in
+	 * declaration order.
+	 * 
+	 * @param concurrentValidation whether to enable concurrent validation
+	 * @since 1.0.5
+	 */
+	public void setConcurrentValidation( boolean concurrentValidation ) {
+		this.concurrentValidation = concurrentValidation;
+	}
+	
+	/**
+	 * The executor used by concurrent validation, virtual threads are used by
+	 * default if the running JVM supports them, otherwise a bounded pool whose
+	 * overflow runs on the request thread.
+	 * 
+	 * @param validationExecutor the validation executor
+	 * @since 1.0.5
+	 */
+	public void setValidationExecutor( Executor validationExecutor ) {
+		this.validationExecutor = validationExecutor;
+	}
+	
+	/**
+	 * Get the executor of concurrent validation
+	 * 
+	 * @return the validation executor, {@code null} if concurrent validation is not enabled.
+	 * @since 1.0.5
+	 */
+	public Executor getValidationExecutor() {
+		if ( !concurrentValidation ) {
+			return null;
+		}
+		if ( validationExecutor == null ) {
+			this.ownedExecutor = ExecutorUtils.newValidationExecutor();
+			this.validationExecutor = ownedExecutor;
+		}
+		return validationExecutor;
+	}
+
+	/**
+	 * The number of worker threads that validate {@code @ReportOnly} rules in
+	 * the background, default is {@code 1}.
+	 * 
+	 * @param reportOnlyThreads the number of worker threads
+	 * @since 1.0.5
+	 */
+	public void setReportOnlyThreads( int reportOnlyThreads ) {
+		this.reportOnlyThreads = reportOnlyThreads;
+	}
+	
+	/**
+	 * The maximum number of queued report-only validations, further samples
+	 * are dropped until the workers catch up. Default is {@code 1000}.
+	 * 
+	 * @param reportOnlyQueueCapacity the queue capacity
+	 * @since 1.0.5
+	 */
+	public void setReportOnlyQueueCapacity( int reportOnlyQueueCapacity ) {
+		this.reportOnlyQueueCapacity = reportOnlyQueueCapacity;
+	}
+
+	/**
+	 * The validation time budget of each request. It is checked between
+	 * validation stages, between parameters and before each batch handler,
+	 * and concurrent validations are not awaited beyond it.
+	 * 
+	 * @param validationTimeout the time budget in milliseconds, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public void setValidationTimeout( long validationTimeout ) {
+		this.budget.setTimeoutMillis( validationTimeout );
+	}
+	
+	/**
+	 * The maximum number of concurrent invocations of each {@code BatchHandler} type
+	 * 
+	 * @param maxConcurrentBatches the maximum concurrency, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public void setMaxConcurrentBatches( int maxConcurrentBatches ) {
+		this.budget.setMaxConcurrentBatches( maxConcurrentBatches );
+	}
+	
+	/**
+	 * How long a batch handler waits for a bulkhead permit, default is {@code 0}.
+	 * 
+	 * @param bulkheadWait the maximum wait in milliseconds
+	 * @since 1.0.5
+	 */
+	public void setBulkheadWait( long bulkheadWait ) {
+		this.budget.setBulkheadWaitMillis( bulkheadWait );
+	}
+	
+	/**
+	 * Reject ({@code REJECT}, the default) or skip ({@code SKIP}) the
+	 * remaining validations when the time budget or the bulkhead is exhausted.
+	 * 
+	 * @param overloadPolicy the overload policy
+	 * @since 1.0.5
+	 */
+	public void setOverloadPolicy( ValidationBudget.Policy overloadPolicy ) {
+		this.budget.setPolicy( overloadPolicy );
+	}
+
+	/**
+	 * Record validation diagnostics and expose them through JMX, including the
+	 * precompilation statistics, the validation latency of each handler method,
+	 * the most frequently rejected rules and the cache hit rates.
+	 * 
+	 * @param enableMetrics whether to enable validation diagnostics
+	 * @since 1.0.5
+	 */
+	public void setEnableMetrics( boolean enableMetrics ) {
+		this.enableMetrics = enableMetrics;
+	}
+	
+	/**
+	 * Get the validation diagnostics recorder
+	 * 
+	 * @return the validation metrics, {@code null} if diagnostics are not enabled.
+	 * @since 1.0.5
+	 */
+	public ValidationMetrics getMetrics() {
+		if ( enableMetrics && metrics == null ) {
+			this.metrics = new ValidationMetrics();
+		}
+		return metrics;
+	}
+	
+	/**
+	 * The sample rate of slow validation tracing, between {@code 0} and
+	 * {@code 1}. Each validated parameter and java bean of a sampled request is
+	 * timed, and requests slower than the threshold are logged with the timing
+	 * breakdown. The default is {@code 0}, which means no tracing.
+	 * 
+	 * @param traceSampleRate the sample rate
+	 * @since 1.0.5
+	 */
+	public void setTraceSampleRate( double traceSampleRate ) {
+		this.traceSampleRate = traceSampleRate;
+	}
+	
+	/**
+	 * The threshold of slow validation tracing in milliseconds, default is {@code 50}.
+	 * 
+	 * @param traceThreshold the threshold in milliseconds
+	 * @since 1.0.5
+	 */
+	public void setTraceThreshold( long traceThreshold ) {
+		this.traceThreshold = traceThreshold;
+	}
+	
+	/**
+	 * Get the slow validation tracer
+	 * 
+	 * @return the validation tracer, {@code null} if tracing is not enabled.
+	 * @since 1.0.5
+	 */
+	public ValidationTracer getTracer() {
+		if ( traceSampleRate > 0 && tracer == null ) {
+			this.tracer = new ValidationTracer( traceSampleRate, traceThreshold );
+		}
+		return tracer;
+	}
+	
+	/**
+	 * Watch the validator message bundles for changes on a background thread
+	 * and swap them in atomically, so that message resolution on request
+	 * threads never checks the file system for last-modified times.
+	 * 
+	 * @param watchMessageBundles whether to watch the message bundles
+	 * @since 1.0.5
+	 */
+	public void setWatchMessageBundles( boolean watchMessageBundles ) {
+		this.watchMessageBundles = watchMessageBundles;
+	}
+	
+	/**
+	 * The encoding of the watched message bundle files, default is {@code UTF-8}.
+	 * 
+	 * @param messageBundleEncoding the file encoding
+	 * @since 1.0.5
+	 */
+	public void setMessageBundleEncoding( String messageBundleEncoding ) {
+		this.messageBundleEncoding = messageBundleEncoding;
+	}
+	
+	/**
+	 * Screen the raw request parameters before data binding, such as the
+	 * maximum value length, the allowed characters and the maximum element
+	 * count of indexed parameters. Rejected parameters are never converted.
+	 * 
+	 * @param inputScreening the raw input screening rules
+	 * @since 1.0.5
+	 */
+	public void setInputScreening( InputScreening inputScreening ) {
+		this.inputScreening = inputScreening;
+	}
+	
+	/**
+	 * The regex engine of the patterns evaluated by the plugin, such as the
+	 * allowed characters of input screening. Use {@code re2j} for linear-time
+	 * matching, the pattern rules found by precompilation are then checked
+	 * against it at startup.
+	 * 
+	 * @param regexEngine {@code jdk} (the default), {@code re2j} or the class name of a {@code RegexEngine} implementation
+	 * @since 1.0.5
+	 */
+	public void setRegexEngine( String regexEngine ) {
+		this.regexEngine = RegexEngines.forName( regexEngine );
+	}
+	
+	/**
+	 * Generate the GraalVM native-image metadata of the application into the
+	 * specified resources directory when the context is refreshed, run the
+	 * application once on the JVM to generate it.
+	 * 
+	 * @param nativeImageResources the resources root, such as {@code src/main/resources}.
+	 * @since 1.0.5
+	 * @see NativeImageConfigGenerator
+	 */
+	public void setNativeImageResources( String nativeImageResources ) {
+		this.nativeImageResources = nativeImageResources;
+	}
+	
+	/**
+	 * The maximum number of validation errors that are materialized as field
+	 * errors for each java bean. Rejections of large failing payloads are
+	 * accumulated compactly, and only this many are turned into field errors.
+	 * 
+	 * @param maxErrors the maximum error count, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public void setMaxErrors( int maxErrors ) {
+		this.maxErrors = maxErrors;
+	}
+	
+	/**
+	 * Capture the binder configuration of each handler and object name once,
+	 * and apply it to the following data binders instead of invoking the
+	 * {@code @InitBinder} methods again. Methods whose settings depend on the
+	 * request must be marked with {@link RequestDependent}. Default is {@code false}.
+	 * 
+	 * @param cacheBinderConfiguration whether to cache the binder configuration
+	 * @since 1.0.5
+	 */
+	public void setCacheBinderConfiguration( boolean cacheBinderConfiguration ) {
+		this.cacheBinderConfiguration = cacheBinderConfiguration;
+	}
+	
+	/**
+	 * The thread count of the scheduler on which WebFlux validations run,
+	 * twice the number of processors by default.
+	 * 
+	 * @param reactiveThreads the maximum thread count
+	 * @since 1.0.5
+	 */
+	public void setReactiveThreads( int reactiveThreads ) {
+		this.reactiveThreads = reactiveThreads;
+	}
+	
+	/**
+	 * The maximum number of entries of each metadata cache of this context,
+	 * the metadata beyond the limit is computed on every use. Default is
+	 * {@value MetadataCaches#DEFAULT_LIMIT}.
+	 * 
+	 * @param metadataCacheLimit the maximum entry count, negative means no limit.
+	 * @since 1.0.5
+	 * @see MetadataCaches
+	 */
+	public void setMetadataCacheLimit( int metadataCacheLimit ) {
+		this.metadataCacheLimit = metadataCacheLimit;
+	}
+	
+	/**
+	 * Get the validator instance scoped to the current application context
+	 * 
+	 * @return the context-scoped validator instance
+	 * @since 1.0.5
+	 */
+	public ValidatorContext getValidatorContext() {
+		return validatorContext;
+	}
+	
 	/**
 	 * Instance object of custom validation factory
 	 * 
@@ -105,6 +447,16 @@ public class ValidatorLiteBean extends ContextConfigurion implements Initializin
 		if ( StringUtils.isEmpty( handlers ) ) {
 			return Collections.emptyList();
 		}
+		// Classpath scanning is not available in a native image, added in 1.0.5
+		if ( NativeImageConfigGenerator.inNativeImage() ) {
+			List<String> indexedClassNames = NativeImageConfigGenerator.readHandlerIndex();
+			if ( indexedClassNames != null ) {
+				return indexedClassNames;
+			}
+		}
+		// The scanner caches the resources it reads, it must not outlive the application (Updated in 1.0.5)
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider( false );
+		scanner.addIncludeFilter( new AssignableTypeFilter( Handler.class ) );
 		List<String> handlerClassNames = new ArrayList<String>( 32 );
 		String [] packages = StringUtils.tokenizeToStringArray( handlers, ConfigurableApplicationContext.CONFIG_LOCATION_DELIMITERS );
 		for ( String pattern : packages ) {
@@ -117,25 +469,65 @@ public class ValidatorLiteBean extends ContextConfigurion implements Initializin
 	
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		// Preparing the operating environment
-		com.viiyue.plugins.validator.Validator.prepare();
-		
-		// Initialize a custom data validation factory implementation class
-		// Not initialized if factory class is null
-		com.viiyue.plugins.validator.Validator.initFactory( getFactoryInstance() );
+		// The validation engine only has static state, which is shared by all
+		// application contexts of the JVM, the last context to start wins.
+		// Contexts starting in parallel initialize it one at a time (Updated in 1.0.5).
+		synchronized ( com.viiyue.plugins.validator.Validator.class ) {
+			// Preparing the operating environment
+			com.viiyue.plugins.validator.Validator.prepare();
+			
+			// Initialize a custom data validation factory implementation class
+			// Not initialized if factory class is null
+			com.viiyue.plugins.validator.Validator.initFactory( getFactoryInstance() );
+			
+			// Change preference configuration
+			com.viiyue.plugins.validator.Validator.configuration( this, false );
+			
+			// Registering custom handlers
+			ValidatorFactory factory = com.viiyue.plugins.validator.Validator.getFactory();
+			for ( String handlerClassName : getHandlerClassNames() ) {
+				factory.addHandler( handlerClassName );
+			}
+		}
 		
-		// Change preference configuration
-		com.viiyue.plugins.validator.Validator.configuration( this, false );
+		// Context-scoped state of the integration, injected into the beans registered by the plugin
+		this.validatorContext = new ValidatorContext( getDefaultLanguage(), metadataCacheLimit );
+		this.validatorContext.setValidationExecutor( getValidationExecutor() );
+		this.validatorContext.setMetrics( getMetrics() );
+		this.validatorContext.setTracer( getTracer() );
+		this.reportOnlyValidator = new ReportOnlyValidator( validatorContext, reportOnlyThreads, reportOnlyQueueCapacity );
+		this.validatorContext.setReportOnlyValidator( reportOnlyValidator );
+		if ( inputScreening != null ) {
+			inputScreening.setRegexEngine( regexEngine );
+		}
+		if ( budget.isEnabled() ) {
+			this.validatorContext.setBudget( budget );
+		}
 		
-		// Registering custom handlers
-		ValidatorFactory factory = com.viiyue.plugins.validator.Validator.getFactory();
-		for ( String handlerClassName : getHandlerClassNames() ) {
-			factory.addHandler( handlerClassName );
+		// Expose validation diagnostics through JMX
+		if ( getMetrics() != null ) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			this.metricsName = new ObjectName( "com.viiyue.plugins.validator:type=ValidationMetrics,name=" + ObjectUtils.getIdentityHexString( this ) );
+			server.registerMBean( metrics, metricsName );
 		}
 	}
 
 	@Override
 	public void postProcessBeanDefinitionRegistry( BeanDefinitionRegistry registry ) throws BeansException {
+		if ( mvcPresent ) {
+			registerMvcValidation( registry );
+		}
+		if ( webfluxPresent ) {
+			registerReactiveValidation( registry );
+		}
+	}
+	
+	/**
+	 * Register the validation beans of Spring MVC
+	 * 
+	 * @param registry the bean definition registry
+	 */
+	private void registerMvcValidation( BeanDefinitionRegistry registry ) {
 		String handlerAdapterName = RequestMappingHandlerAdapter.class.getName();
 		if ( registry.containsBeanDefinition( handlerAdapterName ) ) {
 			// Replace spring's default RequestMappingHandlerAdapter object 
@@ -151,11 +543,64 @@ public class ValidatorLiteBean extends ContextConfigurion implements Initializin
 			MutablePropertyValues propertyValues = handlerAdapterDef.getPropertyValues();
 			BeanDefinition bindingDef = ( BeanDefinition ) propertyValues.get( "webBindingInitializer" );
 			bindingDef.getPropertyValues().add("validator", validatorDef);
+			
+			// Inject the context-scoped validator instance
+			propertyValues.add( "validatorContext", validatorContext );
+			validatorDef.getPropertyValues().add( "validatorContext", validatorContext );
+			if ( inputScreening != null ) {
+				propertyValues.add( "inputScreening", inputScreening );
+			}
+			if ( cacheBinderConfiguration ) {
+				propertyValues.add( "cacheBinderConfiguration", true );
+			}
+			if ( maxErrors >= 0 ) {
+				validatorDef.getPropertyValues().add( "maxErrors", maxErrors );
+			}
+		}
+	}
+	
+	/**
+	 * Register the validation post processor of Spring WebFlux
+	 * 
+	 * @param registry the bean definition registry
+	 */
+	private void registerReactiveValidation( BeanDefinitionRegistry registry ) {
+		String postProcessorName = "com.viiyue.plugins.validator.spring.reactive.ReactiveValidationPostProcessor";
+		if ( !registry.containsBeanDefinition( postProcessorName ) ) {
+			RootBeanDefinition postProcessorDef = new RootBeanDefinition( postProcessorName );
+			postProcessorDef.getPropertyValues().add( "validatorContext", validatorContext );
+			if ( reactiveThreads > 0 ) {
+				postProcessorDef.getPropertyValues().add( "maxThreads", reactiveThreads );
+			}
+			registry.registerBeanDefinition( postProcessorName, postProcessorDef );
 		}
 	}
 	
 	@Override
-	public void onApplicationEvent( ContextRefreshedEvent event ) {
+	public void setApplicationContext( ApplicationContext applicationContext ) throws BeansException {
+		this.applicationContext = applicationContext;
+	}
+	
+	@Override
+	public void onApplicationEvent( ApplicationContextEvent event ) {
+		if ( event instanceof ContextRefreshedEvent ) {
+			onContextRefreshed( ( ContextRefreshedEvent ) event );
+		} else if ( event instanceof ContextClosedEvent && event.getApplicationContext() == applicationContext ) {
+			// The metadata caches of this context must not pin the classes of the closed application,
+			// the close events of child contexts are also published to this one, added in 1.0.5
+			if ( validatorContext != null ) {
+				validatorContext.clearMetadataCaches();
+			}
+		}
+	}
+	
+	/**
+	 * Install the message resolver and precompile the validation rules once
+	 * the application context is refreshed
+	 * 
+	 * @param event the context refreshed event
+	 */
+	private void onContextRefreshed( ContextRefreshedEvent event ) {
 		// Spring applection context object
 		ApplicationContext context = event.getApplicationContext();
 
@@ -163,14 +608,125 @@ public class ValidatorLiteBean extends ContextConfigurion implements Initializin
 		MessageSource messageSource = context.getBean( MessageSource.class );
 		if ( messageSource != null && !( messageSource instanceof DelegatingMessageSource ) ) {
 			SpringMessageResovler messageResolver = new SpringMessageResovler( messageSource );
-			com.viiyue.plugins.validator.Validator.setMessageResolver( messageResolver );
+			if ( watchMessageBundles ) {
+				try {
+					messageResolver.enableBundleWatching( messageBundleEncoding );
+				} catch ( IOException e ) {
+					throw new IllegalStateException( "Unable to watch validator message bundles", e );
+				}
+			}
+			// The message resolver of the engine is process-wide, it is replaced by the
+			// last context that is refreshed. Install the new resolver before closing the
+			// previous one, requests still using it fall back to the message source.
+			SpringMessageResovler previous = this.messageResolver;
+			this.messageResolver = messageResolver;
+			synchronized ( com.viiyue.plugins.validator.Validator.class ) {
+				installedResolvers.remove( previous );
+				installedResolvers.addLast( messageResolver );
+				com.viiyue.plugins.validator.Validator.setMessageResolver( messageResolver );
+			}
+			closeMessageResolver( previous );
 		}
 		
-		// Call the initialized function
-		com.viiyue.plugins.validator.Validator.getFactory().afterInitialized();
+		// Call the initialized function, on the factory that is currently installed
+		// in the engine, another context may have replaced it since this one started.
+		synchronized ( com.viiyue.plugins.validator.Validator.class ) {
+			com.viiyue.plugins.validator.Validator.getFactory().afterInitialized();
+		}
 		
-		// Precompiled data validation rules
-		PrecompileUtils.compile( event.getApplicationContext() );
+		// Precompiled data validation rules, only the MVC handler methods are known in advance
+		if ( mvcPresent ) {
+			PrecompileUtils.compile( event.getApplicationContext(), metrics, regexEngine, validatorContext );
+			if ( nativeImageResources != null ) {
+				generateNativeImageConfig( context );
+			}
+		}
+	}
+	
+	@Override
+	public void destroy() throws Exception {
+		// Unregister validation diagnostics
+		if ( metricsName != null ) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean( metricsName );
+			metricsName = null;
+		}
+		
+		// Stop watching message bundles and uninstall the resolver of this context
+		closeMessageResolver( messageResolver );
+		if ( messageResolver != null ) {
+			uninstallMessageResolver( messageResolver );
+			messageResolver = null;
+		}
+		
+		// Discard the queued report-only validations
+		if ( reportOnlyValidator != null ) {
+			reportOnlyValidator.shutdown();
+			reportOnlyValidator = null;
+		}
+		
+		// Only the executor created by the plugin itself is closed
+		if ( ownedExecutor != null ) {
+			ownedExecutor.shutdown();
+			ownedExecutor = null;
+		}
+		
+		// The static validator still references this bean as its configuration
+		validatorContext = null;
+		applicationContext = null;
+	}
+	
+	/**
+	 * Generate the native-image metadata of the application
+	 * 
+	 * @param context the spring application context
+	 */
+	private void generateNativeImageConfig( ApplicationContext context ) {
+		NativeImageConfigGenerator generator = new NativeImageConfigGenerator();
+		generator.addHandlers( getHandlerClassNames() );
+		generator.addInstantiatedType( factory );
+		generator.collect( context );
+		try {
+			generator.write( Paths.get( nativeImageResources ) );
+		} catch ( IOException e ) {
+			throw new IllegalStateException( "Unable to write the native image metadata", e );
+		}
+	}
+	
+	/**
+	 * Remove the message resolver of this context from the static validator.
+	 * If it is installed, the resolver of the most recent live context is
+	 * installed again. The resolver always releases the message source of the
+	 * closed context, the static validator keeps the released resolver of the
+	 * last live context until another context starts, and resolves the
+	 * messages to their default values meanwhile.
+	 * 
+	 * @param messageResolver the message resolver of this context
+	 */
+	private void uninstallMessageResolver( SpringMessageResovler messageResolver ) {
+		synchronized ( com.viiyue.plugins.validator.Validator.class ) {
+			boolean installed = installedResolvers.peekLast() == messageResolver;
+			installedResolvers.remove( messageResolver );
+			SpringMessageResovler current = installedResolvers.peekLast();
+			if ( installed && current != null ) {
+				com.viiyue.plugins.validator.Validator.setMessageResolver( current );
+			}
+		}
+		messageResolver.release();
+	}
+	
+	/**
+	 * Stop watching the message bundles of a replaced message resolver
+	 * 
+	 * @param messageResolver the message resolver, nothing is done if it is {@code null}.
+	 */
+	private void closeMessageResolver( SpringMessageResovler messageResolver ) {
+		if ( messageResolver != null ) {
+			try {
+				messageResolver.disableBundleWatching();
+			} catch ( IOException e ) {
+				// Ignore
+			}
+		}
 	}
 	
 	@Override
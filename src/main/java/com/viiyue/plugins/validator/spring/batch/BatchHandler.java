@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.batch;
+
+import java.util.Set;
+
+/**
+ * Batch-capable validation handler for data-backed rules, such as "SKU must
+ * exist". All values of the same rule in one validation pass are collected
+ * across collection elements and fields, and the handler is invoked only once
+ * with the whole set.
+ * 
+ * <p>
+ * The handler is obtained from the spring container if a bean of this type
+ * exists, otherwise it will be created and autowired by the plugin.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @param <T> the value type of the validated fields
+ * @see BatchRule
+ */
+public interface BatchHandler<T> {
+
+	/**
+	 * Validate all the collected values at one time
+	 * 
+	 * @param values the distinct values to be validated, never contains {@code null}.
+	 * @return the values that failed validation, return an empty set if all passed.
+	 */
+	Set<T> reject( Set<T> values );
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.batch;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a bean field to be validated by a {@link BatchHandler}. If the field is
+ * a collection or an array, each element is validated separately.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see BatchHandler
+ */
+@Documented
+@Target( ElementType.FIELD )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface BatchRule {
+
+	/**
+	 * @return the batch handler type of the rule
+	 */
+	Class<? extends BatchHandler<?>> value();
+
+	/**
+	 * The validation groups of the rule. In a group sequence, the rule is only
+	 * validated in the stage of its groups, after the other rules of the stage
+	 * have passed, and a rejection stops the following stages.
+	 * 
+	 * @return the validation groups, the default groups if it is empty.
+	 */
+	Class<?> [] groups() default {};
+
+	/**
+	 * @return the error code, used to resolve the error message
+	 */
+	String errorCode() default "batch";
+
+	/**
+	 * @return the default error message
+	 */
+	String message() default "";
+
+}
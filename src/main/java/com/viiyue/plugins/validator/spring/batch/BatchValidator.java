@@ -0,0 +1,580 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.batch;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
+import com.viiyue.plugins.validator.spring.metrics.CacheStatistics;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+
+/**
+ * Batch validation of {@link BatchRule} fields. The values of the same handler
+ * are collected across collection elements and fields, the handler is invoked
+ * once with the set, and the rejected values are mapped back to the
+ * individual field paths.
+ * 
+ * <p>
+ * Nested beans are collected too, including the elements of collection, array
+ * and map fields, with nested field paths such as {@code lines[0].sku}. Each
+ * bean is only visited once per validation, so cyclic graphs terminate. The
+ * walk only descends into the types that can reach a batch rule through the
+ * declared types of their fields (or the element types of their collection,
+ * array and map fields), a graph that cannot reach one is not walked at all.
+ * Fields declared as {@code Object}, or whose element type cannot be resolved,
+ * are not traversed.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see BatchRule
+ * @see BatchHandler
+ */
+public class BatchValidator {
+	
+	private static final BatchField [] NO_FIELDS = {};
+	private static final Field [] NO_NESTED_FIELDS = {};
+
+	private final Map<Class<?>, BatchField []> fieldCache = MetadataCaches.newCache( 64 );
+	private final Map<Class<?>, Field []> nestedFieldCache = MetadataCaches.newCache( 64 );
+	private final Map<Class<?>, Boolean> reachableCache = MetadataCaches.newCache( 64 );
+	private final Map<Class<?>, BatchHandler<Object>> handlerCache = new ConcurrentHashMap<Class<?>, BatchHandler<Object>>( 16 );
+	private final CacheStatistics cacheStatistics = new CacheStatistics( fieldCache );
+	private BeanFactory beanFactory;
+	private int cacheLimit = MetadataCaches.DEFAULT_LIMIT;
+
+	public BatchValidator( @Nullable BeanFactory beanFactory ) {
+		this.beanFactory = beanFactory;
+	}
+	
+	public void setBeanFactory( @Nullable BeanFactory beanFactory ) {
+		this.beanFactory = beanFactory;
+	}
+	
+	/**
+	 * The maximum number of cached bean types, default is
+	 * {@value MetadataCaches#DEFAULT_LIMIT}.
+	 * 
+	 * @param cacheLimit the maximum entry count, negative means no limit.
+	 */
+	public void setCacheLimit( int cacheLimit ) {
+		this.cacheLimit = cacheLimit;
+	}
+	
+	/**
+	 * @return the statistics of the batch field metadata cache
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return cacheStatistics;
+	}
+	
+	/**
+	 * Discard the cached batch fields and handler instances
+	 */
+	public void clear() {
+		fieldCache.clear();
+		nestedFieldCache.clear();
+		reachableCache.clear();
+		handlerCache.clear();
+		cacheStatistics.reset();
+	}
+	
+	/**
+	 * Validate all batch rules of the target, the target can be a java bean, a
+	 * collection or an array of java beans.
+	 * 
+	 * @param target the validation target
+	 * @param errors the spring validation error binding object
+	 */
+	public void validate( Object target, Errors errors ) {
+		validate( target, errors, null );
+	}
+	
+	/**
+	 * Validate the batch rules of the target whose field paths are accepted by
+	 * the path filter, the target can be a java bean, a collection or an array
+	 * of java beans.
+	 * 
+	 * @param target the validation target
+	 * @param errors the spring validation error binding object
+	 * @param pathFilter the field path filter, all fields are validated if it is {@code null}.
+	 */
+	public void validate( Object target, Errors errors, @Nullable Predicate<String> pathFilter ) {
+		validate( target, errors, pathFilter, null, null );
+	}
+	
+	/**
+	 * Validate the batch rules of the target within the validation budget,
+	 * the deadline is checked before each handler is invoked, and each
+	 * invocation holds a bulkhead permit of its handler type.
+	 * 
+	 * @param target the validation target
+	 * @param errors the spring validation error binding object
+	 * @param pathFilter the field path filter, all fields are validated if it is {@code null}.
+	 * @param budget the validation budget, {@code null} if there is no limit.
+	 * @param deadline the request deadline, {@code null} if there is no time budget.
+	 */
+	public void validate( Object target, Errors errors, @Nullable Predicate<String> pathFilter, 
+			@Nullable ValidationBudget budget, @Nullable ValidationBudget.Deadline deadline ) {
+		validate( target, errors, pathFilter, null, budget, deadline );
+	}
+	
+	/**
+	 * Validate the batch rules of the specified groups within the validation
+	 * budget, used to validate the batch rules of a group sequence stage.
+	 * 
+	 * @param target the validation target
+	 * @param errors the spring validation error binding object
+	 * @param pathFilter the field path filter, all fields are validated if it is {@code null}.
+	 * @param groups the validation groups of the stage, all rules are validated if it is {@code null}.
+	 * @param budget the validation budget, {@code null} if there is no limit.
+	 * @param deadline the request deadline, {@code null} if there is no time budget.
+	 * @return {@code true} if no value was rejected and the budget was not exceeded
+	 */
+	public boolean validate( Object target, Errors errors, @Nullable Predicate<String> pathFilter, @Nullable Class<?> [] groups, 
+			@Nullable ValidationBudget budget, @Nullable ValidationBudget.Deadline deadline ) {
+		if ( target == null || !isContainer( target ) && !reachesBatchRule( target.getClass() ) ) {
+			return true;
+		}
+		Map<Class<?>, List<BatchValue>> collected = null;
+		Set<Object> visited = Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>( 8 ) );
+		if ( target instanceof Collection ) {
+			int index = 0;
+			for ( Object element : ( Collection<?> ) target ) {
+				collected = collect( element, "[" + ( index ++ ) + "].", pathFilter, groups, collected, visited );
+			}
+		} else if ( target.getClass().isArray() ) {
+			for ( int i = 0, length = Array.getLength( target ); i < length; i ++ ) {
+				collected = collect( Array.get( target, i ), "[" + i + "].", pathFilter, groups, collected, visited );
+			}
+		} else {
+			collected = collect( target, "", pathFilter, groups, collected, visited );
+		}
+		boolean passed = true;
+		if ( collected != null ) {
+			for ( Entry<Class<?>, List<BatchValue>> entry : collected.entrySet() ) {
+				if ( budget == null ) {
+					passed &= rejectValues( getHandler( entry.getKey() ), entry.getValue(), errors );
+					continue;
+				}
+				if ( deadline != null && deadline.isExpired() ) {
+					budget.exceeded( errors, ValidationBudget.DEADLINE );
+					return false;
+				}
+				ValidationBudget.Permit permit = budget.tryAcquire( entry.getKey(), deadline );
+				if ( permit == null ) {
+					budget.exceeded( errors, ValidationBudget.BULKHEAD );
+					return false;
+				}
+				try {
+					passed &= rejectValues( getHandler( entry.getKey() ), entry.getValue(), errors );
+				} finally {
+					permit.release();
+				}
+			}
+		}
+		return passed;
+	}
+	
+	/**
+	 * Get the batch rule fields of the specified type
+	 * 
+	 * @param beanType the java bean type
+	 * @return the batch rule fields, never {@code null}.
+	 */
+	public BatchField [] getBatchFields( Class<?> beanType ) {
+		BatchField [] fields = fieldCache.get( beanType );
+		if ( fields != null ) {
+			cacheStatistics.hit();
+		} else {
+			cacheStatistics.miss();
+			final List<BatchField> found = new ArrayList<BatchField>( 4 );
+			ReflectionUtils.doWithFields( beanType, field -> {
+				ReflectionUtils.makeAccessible( field );
+				found.add( new BatchField( field, field.getAnnotation( BatchRule.class ) ) );
+			}, field -> field.isAnnotationPresent( BatchRule.class ) );
+			fields = found.isEmpty() ? NO_FIELDS : found.toArray( new BatchField [ found.size() ] );
+			MetadataCaches.put( fieldCache, beanType, fields, cacheLimit );
+		}
+		return fields;
+	}
+	
+	/**
+	 * Get the fields of the specified type that may lead to batch rules, that
+	 * is the non-static fields without {@link BatchRule} whose declared type,
+	 * or element type, can reach a batch rule.
+	 * 
+	 * @param beanType the java bean type
+	 * @return the nested bean fields, never {@code null}.
+	 */
+	public Field [] getNestedFields( Class<?> beanType ) {
+		Field [] fields = nestedFieldCache.get( beanType );
+		if ( fields == null ) {
+			List<Field> found = new ArrayList<Field>( 4 );
+			for ( Field field : getCandidateFields( beanType ) ) {
+				Class<?> elementType = getElementType( field );
+				if ( elementType != null && reachesBatchRule( elementType ) ) {
+					ReflectionUtils.makeAccessible( field );
+					found.add( field );
+				}
+			}
+			fields = found.isEmpty() ? NO_NESTED_FIELDS : found.toArray( new Field [ found.size() ] );
+			MetadataCaches.put( nestedFieldCache, beanType, fields, cacheLimit );
+		}
+		return fields;
+	}
+	
+	/**
+	 * Whether a batch rule can be reached from the specified type, that is the
+	 * type declares a {@link BatchRule} field, or the declared type of one of
+	 * its nested fields can reach one. The result is computed once from the
+	 * declared types and cached.
+	 * 
+	 * @param beanType the java bean type
+	 * @return {@code true} if the values of the type must be walked
+	 */
+	public boolean reachesBatchRule( Class<?> beanType ) {
+		Boolean reachable = reachableCache.get( beanType );
+		if ( reachable == null ) {
+			reachable = reachesBatchRule( beanType, new HashSet<Class<?>>() );
+			MetadataCaches.put( reachableCache, beanType, reachable, cacheLimit );
+		}
+		return reachable;
+	}
+	
+	/**
+	 * Search the declared types for a batch rule, the types being searched are
+	 * skipped, so cyclic types terminate. Only the result of the searched type
+	 * itself is cached, the types in the middle of a cycle are incomplete.
+	 * 
+	 * @param beanType the java bean type
+	 * @param searching the types being searched
+	 * @return {@code true} if a batch rule is reachable
+	 */
+	private boolean reachesBatchRule( Class<?> beanType, Set<Class<?>> searching ) {
+		Boolean reachable = reachableCache.get( beanType );
+		if ( reachable != null ) {
+			return reachable;
+		}
+		if ( !mayHoldBeans( beanType ) || !searching.add( beanType ) ) {
+			return false;
+		}
+		if ( getBatchFields( beanType ).length > 0 ) {
+			return true;
+		}
+		for ( Field field : getCandidateFields( beanType ) ) {
+			Class<?> elementType = getElementType( field );
+			if ( elementType != null && reachesBatchRule( elementType, searching ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Get the non-static fields without {@link BatchRule} whose type may hold
+	 * java beans
+	 * 
+	 * @param beanType the java bean type
+	 * @return the candidate fields
+	 */
+	private static List<Field> getCandidateFields( Class<?> beanType ) {
+		List<Field> fields = new ArrayList<Field>( 4 );
+		ReflectionUtils.doWithFields( beanType, fields::add, field -> !Modifier.isStatic( field.getModifiers() ) 
+				&& !field.isSynthetic() && !field.isAnnotationPresent( BatchRule.class ) && mayHoldBeans( field.getType() ) );
+		return fields;
+	}
+	
+	/**
+	 * Get the declared type of the beans held by a field, that is the
+	 * component type of arrays, the element type of collections and the value
+	 * type of maps, resolved recursively.
+	 * 
+	 * @param field the nested field
+	 * @return the bean type, {@code null} if it cannot be resolved.
+	 */
+	@Nullable
+	private static Class<?> getElementType( Field field ) {
+		ResolvableType type = ResolvableType.forField( field );
+		while ( true ) {
+			Class<?> resolved = type.resolve();
+			if ( resolved == null ) {
+				return null;
+			} else if ( resolved.isArray() ) {
+				type = type.getComponentType();
+			} else if ( Collection.class.isAssignableFrom( resolved ) ) {
+				type = type.asCollection().getGeneric( 0 );
+			} else if ( Map.class.isAssignableFrom( resolved ) ) {
+				type = type.asMap().getGeneric( 1 );
+			} else {
+				return resolved;
+			}
+		}
+	}
+	
+	/**
+	 * Whether the value is a collection, a map or an array
+	 * 
+	 * @param value the value
+	 * @return {@code true} if the elements of the value are walked
+	 */
+	private static boolean isContainer( Object value ) {
+		return value instanceof Collection || value instanceof Map || value.getClass().isArray();
+	}
+	
+	/**
+	 * Whether the values of the specified type may be or contain java beans
+	 * 
+	 * @param type the declared or runtime type
+	 * @return {@code false} for primitives, simple values and other JDK types
+	 */
+	private static boolean mayHoldBeans( Class<?> type ) {
+		if ( type.isArray() ) {
+			return !type.getComponentType().isPrimitive();
+		}
+		if ( Collection.class.isAssignableFrom( type ) || Map.class.isAssignableFrom( type ) || type == Object.class ) {
+			return true;
+		}
+		if ( type.isPrimitive() || type.isEnum() || BeanUtils.isSimpleValueType( type ) ) {
+			return false;
+		}
+		String name = type.getName();
+		return !name.startsWith( "java." ) && !name.startsWith( "javax." );
+	}
+	
+	private Map<Class<?>, List<BatchValue>> collect( Object bean, String prefix, Predicate<String> pathFilter, 
+			Class<?> [] groups, Map<Class<?>, List<BatchValue>> collected, Set<Object> visited ) {
+		if ( bean == null || !mayHoldBeans( bean.getClass() ) ) {
+			return collected;
+		}
+		boolean container = isContainer( bean );
+		if ( !container && !reachesBatchRule( bean.getClass() ) || !visited.add( bean ) ) {
+			return collected;
+		}
+		if ( container ) {
+			return collectElements( bean, prefix.isEmpty() ? prefix : prefix.substring( 0, prefix.length() - 1 ), pathFilter, groups, collected, visited );
+		}
+		for ( BatchField batchField : getBatchFields( bean.getClass() ) ) {
+			if ( groups != null && !inGroups( batchField.rule, groups ) ) {
+				continue;
+			}
+			String path = prefix + batchField.field.getName();
+			if ( pathFilter != null && !pathFilter.test( path ) ) {
+				continue;
+			}
+			Object value = ReflectionUtils.getField( batchField.field, bean );
+			if ( value == null ) {
+				continue;
+			}
+			if ( collected == null ) {
+				collected = new LinkedHashMap<Class<?>, List<BatchValue>>( 4 );
+			}
+			List<BatchValue> values = collected.computeIfAbsent( batchField.rule.value(), key -> new ArrayList<BatchValue>() );
+			if ( value instanceof Collection ) {
+				int index = 0;
+				for ( Object element : ( Collection<?> ) value ) {
+					addValue( values, batchField, path + "[" + ( index ++ ) + "]", element );
+				}
+			} else if ( value.getClass().isArray() ) {
+				for ( int i = 0, length = Array.getLength( value ); i < length; i ++ ) {
+					addValue( values, batchField, path + "[" + i + "]", Array.get( value, i ) );
+				}
+			} else {
+				addValue( values, batchField, path, value );
+			}
+		}
+		for ( Field field : getNestedFields( bean.getClass() ) ) {
+			Object value = ReflectionUtils.getField( field, bean );
+			if ( value != null ) {
+				collected = collect( value, prefix + field.getName() + ".", pathFilter, groups, collected, visited );
+			}
+		}
+		return collected;
+	}
+	
+	/**
+	 * Collect the batch values of the beans in a nested collection, array or
+	 * map, the elements are addressed by index and the map values by key.
+	 * 
+	 * @param container the collection, array or map
+	 * @param path the field path of the container
+	 */
+	private Map<Class<?>, List<BatchValue>> collectElements( Object container, String path, Predicate<String> pathFilter, 
+			Class<?> [] groups, Map<Class<?>, List<BatchValue>> collected, Set<Object> visited ) {
+		if ( container instanceof Map ) {
+			for ( Entry<?, ?> entry : ( ( Map<?, ?> ) container ).entrySet() ) {
+				collected = collect( entry.getValue(), path + "[" + entry.getKey() + "].", pathFilter, groups, collected, visited );
+			}
+		} else if ( container instanceof Collection ) {
+			int index = 0;
+			for ( Object element : ( Collection<?> ) container ) {
+				collected = collect( element, path + "[" + ( index ++ ) + "].", pathFilter, groups, collected, visited );
+			}
+		} else {
+			for ( int i = 0, length = Array.getLength( container ); i < length; i ++ ) {
+				collected = collect( Array.get( container, i ), path + "[" + i + "].", pathFilter, groups, collected, visited );
+			}
+		}
+		return collected;
+	}
+	
+	private void addValue( List<BatchValue> values, BatchField batchField, String path, Object value ) {
+		if ( value != null ) {
+			values.add( new BatchValue( batchField.rule, path, value ) );
+		}
+	}
+	
+	/**
+	 * Whether the rule belongs to one of the validation groups
+	 * 
+	 * @param rule the batch rule
+	 * @param groups the validation groups of the stage
+	 * @return {@code true} if the rule is validated in the stage
+	 */
+	private boolean inGroups( BatchRule rule, Class<?> [] groups ) {
+		// The default stage of a plan is the default groups array itself
+		if ( rule.groups().length == 0 && ( groups.length == 0 || groups == Constants.DEFAULT_OBJECT_GROUPS ) ) {
+			return true;
+		}
+		Class<?> [] ruleGroups = rule.groups().length == 0 ? Constants.DEFAULT_OBJECT_GROUPS : rule.groups();
+		for ( Class<?> ruleGroup : ruleGroups ) {
+			for ( Class<?> group : groups ) {
+				if ( ruleGroup == group ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	private boolean rejectValues( BatchHandler<Object> handler, List<BatchValue> values, Errors errors ) {
+		Set<Object> distinctValues = new LinkedHashSet<Object>( values.size() );
+		for ( BatchValue value : values ) {
+			distinctValues.add( value.value );
+		}
+		Set<Object> rejectedValues = handler.reject( Collections.unmodifiableSet( distinctValues ) );
+		if ( rejectedValues == null || rejectedValues.isEmpty() ) {
+			return true;
+		}
+		boolean passed = true;
+		for ( BatchValue value : values ) {
+			if ( rejectedValues.contains( value.value ) ) {
+				passed = false;
+				String errorCode = value.rule.errorCode();
+				String message = value.rule.message();
+				if ( errors instanceof BindingResult ) {
+					BindingResult bindingResult = ( BindingResult ) errors;
+					String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + errorCode;
+					String [] errorCodes = bindingResult.resolveMessageCodes( basicMessageCode, value.path );
+					bindingResult.addError( new FieldError( errors.getObjectName(), errors.getNestedPath() + value.path, 
+							value.value, false, errorCodes, null, message ) );
+				} else {
+					errors.rejectValue( value.path, errorCode, message );
+				}
+			}
+		}
+		return passed;
+	}
+	
+	private BatchHandler<Object> getHandler( Class<?> handlerType ) {
+		BatchHandler<Object> handler = handlerCache.get( handlerType );
+		if ( handler == null ) {
+			handler = createHandler( handlerType );
+			handlerCache.put( handlerType, handler );
+		}
+		return handler;
+	}
+	
+	private BatchHandler<Object> createHandler( Class<?> handlerType ) {
+		if ( beanFactory != null ) {
+			try {
+				return ( BatchHandler<Object> ) beanFactory.getBean( handlerType );
+			} catch ( NoSuchBeanDefinitionException e ) {
+				if ( beanFactory instanceof AutowireCapableBeanFactory ) {
+					return ( BatchHandler<Object> ) ( ( AutowireCapableBeanFactory ) beanFactory ).createBean( handlerType );
+				}
+			}
+		}
+		return ( BatchHandler<Object> ) BeanUtils.instantiateClass( handlerType );
+	}
+	
+	/**
+	 * Field marked with {@link BatchRule}
+	 */
+	public static final class BatchField {
+		
+		private final Field field;
+		private final BatchRule rule;
+		
+		private BatchField( Field field, BatchRule rule ) {
+			this.field = field;
+			this.rule = rule;
+		}
+		
+		public Field getField() {
+			return field;
+		}
+		
+		public BatchRule getRule() {
+			return rule;
+		}
+		
+	}
+	
+	/**
+	 * Collected value and its field path
+	 */
+	private static final class BatchValue {
+		
+		private final BatchRule rule;
+		private final String path;
+		private final Object value;
+		
+		private BatchValue( BatchRule rule, String path, Object value ) {
+			this.rule = rule;
+			this.path = path;
+			this.value = value;
+		}
+		
+	}
+
+}
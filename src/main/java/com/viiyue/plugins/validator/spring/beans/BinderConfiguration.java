@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.validation.BindingErrorProcessor;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+
+/**
+ * Binder configuration captured after the {@code WebBindingInitializer} and
+ * the {@code @InitBinder} methods of a handler have initialized a binder, and
+ * applied to the following binders of the same handler, object name and
+ * target type instead of invoking them again.
+ * 
+ * <p>
+ * The captured settings are the allowed, disallowed and required fields, the
+ * binding flags and prefixes, the conversion service, the message codes
+ * resolver, the binding error processor, the validators and the custom
+ * formatters. Property editors are stateful and cannot be shared between
+ * requests, a configuration that registers a property editor (directly or
+ * through a {@code PropertyEditorRegistrar}) is not captured, and its binders
+ * are initialized as usual. The same applies to a configuration that accesses
+ * the binding result of the binder, except through the formatters and the
+ * message codes resolver, which are captured.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see RequestDependent
+ */
+public final class BinderConfiguration {
+	
+	private final String [] allowedFields;
+	private final String [] disallowedFields;
+	private final String [] requiredFields;
+	private final boolean ignoreUnknownFields;
+	private final boolean ignoreInvalidFields;
+	private final boolean autoGrowNestedPaths;
+	private final int autoGrowCollectionLimit;
+	private final boolean bindEmptyMultipartFiles;
+	private final String fieldMarkerPrefix;
+	private final String fieldDefaultPrefix;
+	private final ConversionService conversionService;
+	private final MessageCodesResolver messageCodesResolver;
+	private final BindingErrorProcessor bindingErrorProcessor;
+	private final Validator [] validators;
+	private final List<Consumer<WebDataBinder>> formatters;
+	
+	private BinderConfiguration( ValidationServletRequestDataBinder binder, List<Consumer<WebDataBinder>> formatters ) {
+		this.allowedFields = binder.getAllowedFields();
+		this.disallowedFields = binder.getDisallowedFields();
+		this.requiredFields = binder.getRequiredFields();
+		this.ignoreUnknownFields = binder.isIgnoreUnknownFields();
+		this.ignoreInvalidFields = binder.isIgnoreInvalidFields();
+		this.autoGrowNestedPaths = binder.isAutoGrowNestedPaths();
+		this.autoGrowCollectionLimit = binder.getAutoGrowCollectionLimit();
+		this.bindEmptyMultipartFiles = binder.isBindEmptyMultipartFiles();
+		this.fieldMarkerPrefix = binder.getFieldMarkerPrefix();
+		this.fieldDefaultPrefix = binder.getFieldDefaultPrefix();
+		this.conversionService = binder.getConversionService();
+		this.messageCodesResolver = binder.getMessageCodesResolver();
+		this.bindingErrorProcessor = binder.getBindingErrorProcessor();
+		this.validators = binder.getValidators().toArray( new Validator [ 0 ] );
+		this.formatters = new ArrayList<Consumer<WebDataBinder>>( formatters );
+	}
+	
+	/**
+	 * Capture the configuration of an initialized binder
+	 * 
+	 * @param binder the initialized binder
+	 * @return the binder configuration, {@code null} if the configuration cannot be shared.
+	 */
+	static BinderConfiguration capture( ValidationServletRequestDataBinder binder ) {
+		List<Consumer<WebDataBinder>> formatters = binder.getFormatterRegistrations();
+		return formatters == null ? null : new BinderConfiguration( binder, formatters );
+	}
+	
+	/**
+	 * Apply the configuration to a new binder
+	 * 
+	 * @param binder the new binder of the same handler, object name and target type
+	 */
+	void apply( ValidationServletRequestDataBinder binder ) {
+		binder.setAllowedFields( allowedFields );
+		binder.setDisallowedFields( disallowedFields );
+		binder.setRequiredFields( requiredFields );
+		binder.setIgnoreUnknownFields( ignoreUnknownFields );
+		binder.setIgnoreInvalidFields( ignoreInvalidFields );
+		binder.setAutoGrowNestedPaths( autoGrowNestedPaths );
+		binder.setAutoGrowCollectionLimit( autoGrowCollectionLimit );
+		binder.setBindEmptyMultipartFiles( bindEmptyMultipartFiles );
+		binder.setFieldMarkerPrefix( fieldMarkerPrefix );
+		binder.setFieldDefaultPrefix( fieldDefaultPrefix );
+		if ( conversionService != null ) {
+			binder.setConversionService( conversionService );
+		}
+		if ( messageCodesResolver != null ) {
+			binder.setMessageCodesResolver( messageCodesResolver );
+		}
+		binder.setBindingErrorProcessor( bindingErrorProcessor );
+		if ( validators.length > 0 ) {
+			binder.addValidators( validators );
+		}
+		for ( Consumer<WebDataBinder> formatter : formatters ) {
+			formatter.accept( binder );
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.beans;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@code @InitBinder} method whose binder settings depend on the
+ * current request, such as the user's role or a request header. When the
+ * binder configuration is cached, the marked method is excluded from the
+ * captured configuration and invoked for every binder, after the cached
+ * configuration has been applied.
+ * 
+ * <pre>
+ * &#64;InitBinder
+ * &#64;RequestDependent
+ * public void initBinder( WebDataBinder binder, HttpServletRequest request ) {
+ *     if ( !request.isUserInRole( "ADMIN" ) ) {
+ *         binder.setDisallowedFields( "role" );
+ *     }
+ * }
+ * </pre>
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see BinderConfiguration
+ */
+@Documented
+@Target( ElementType.METHOD )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface RequestDependent {
+
+}
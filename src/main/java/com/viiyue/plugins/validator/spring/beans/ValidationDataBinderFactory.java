@@ -15,14 +15,24 @@
  */
 package com.viiyue.plugins.validator.spring.beans;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.support.WebBindingInitializer;
 import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.annotation.InitBinderDataBinderFactory;
 import org.springframework.web.method.support.InvocableHandlerMethod;
 import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
 
+import com.viiyue.plugins.validator.spring.bindings.InputScreening;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+
 /**
  * Wrapped {@link ServletRequestDataBinderFactory}, a binder for adding data validation.
  *
@@ -30,11 +40,93 @@ import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataB
  * @since 1.0.0
  */
 public class ValidationDataBinderFactory extends ServletRequestDataBinderFactory {
+	
+	// Added in 1.0.5
+	private final InputScreening inputScreening;
+	private final WebBindingInitializer initializer;
+	private final InitBinderDataBinderFactory requestDependentFactory;
+	private final List<Method> binderMethodKeys;
+	private final Map<List<Object>, BinderConfiguration> configurations;
+	private final int cacheLimit;
 
 	public ValidationDataBinderFactory( 
 		List<InvocableHandlerMethod> binderMethods, 
 		WebBindingInitializer initializer ) {
-		super( binderMethods, initializer );
+		this( binderMethods, initializer, null );
+	}
+	
+	public ValidationDataBinderFactory( 
+		List<InvocableHandlerMethod> binderMethods, 
+		WebBindingInitializer initializer, 
+		@Nullable InputScreening inputScreening ) {
+		this( binderMethods, initializer, inputScreening, null, -1 );
+	}
+	
+	/**
+	 * Create a binder factory that caches the binder configuration. The
+	 * {@code WebBindingInitializer} and the {@code @InitBinder} methods
+	 * initialize the first binder of each object name and target type, the
+	 * captured configuration is applied to the following binders. The
+	 * methods marked with {@link RequestDependent} are invoked for every binder.
+	 * 
+	 * @param binderMethods the {@code @InitBinder} methods of the handler
+	 * @param initializer the binding initializer, can be {@code null}.
+	 * @param inputScreening the raw input screening rules, can be {@code null}.
+	 * @param configurations the binder configuration cache shared by the
+	 *        factories of the handler adapter, {@code null} to disable caching.
+	 * @param cacheLimit the entry limit of the binder configuration cache, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public ValidationDataBinderFactory( 
+		List<InvocableHandlerMethod> binderMethods, 
+		WebBindingInitializer initializer, 
+		@Nullable InputScreening inputScreening, 
+		@Nullable Map<List<Object>, BinderConfiguration> configurations, 
+		int cacheLimit ) {
+		// The initializer is applied by the factory itself when caching
+		super( configurations == null ? binderMethods : filter( binderMethods, false ), configurations == null ? initializer : null );
+		this.inputScreening = inputScreening;
+		this.configurations = configurations;
+		this.cacheLimit = cacheLimit;
+		this.initializer = configurations == null ? null : initializer;
+		if ( configurations == null ) {
+			this.requestDependentFactory = null;
+			this.binderMethodKeys = null;
+		} else {
+			List<InvocableHandlerMethod> requestDependentMethods = filter( binderMethods, true );
+			this.requestDependentFactory = requestDependentMethods.isEmpty() ? null : new InitBinderDataBinderFactory( requestDependentMethods, null );
+			this.binderMethodKeys = new ArrayList<Method>( binderMethods.size() );
+			for ( InvocableHandlerMethod binderMethod : binderMethods ) {
+				binderMethodKeys.add( binderMethod.getMethod() );
+			}
+		}
+	}
+	
+	@Override
+	public void initBinder( WebDataBinder dataBinder, NativeWebRequest request ) throws Exception {
+		if ( configurations == null || !( dataBinder instanceof ValidationServletRequestDataBinder ) ) {
+			super.initBinder( dataBinder, request );
+			return;
+		}
+		ValidationServletRequestDataBinder binder = ( ValidationServletRequestDataBinder ) dataBinder;
+		Object target = binder.getTarget();
+		List<Object> key = Arrays.asList( binderMethodKeys, binder.getObjectName(), target == null ? null : target.getClass() );
+		BinderConfiguration configuration = configurations.get( key );
+		if ( configuration != null ) {
+			configuration.apply( binder );
+		} else {
+			if ( initializer != null ) {
+				initializer.initBinder( binder, request );
+			}
+			super.initBinder( binder, request );
+			configuration = BinderConfiguration.capture( binder );
+			if ( configuration != null ) {
+				MetadataCaches.put( configurations, key, configuration, cacheLimit );
+			}
+		}
+		if ( requestDependentFactory != null ) {
+			requestDependentFactory.initBinder( binder, request );
+		}
 	}
 
 	@Override
@@ -42,7 +134,27 @@ public class ValidationDataBinderFactory extends ServletRequestDataBinderFactory
 		Object target,
 		String objectName,
 		NativeWebRequest webRequest ) throws Exception {
-		return new ValidationServletRequestDataBinder( target, objectName );
+		ValidationServletRequestDataBinder binder = new ValidationServletRequestDataBinder( target, objectName );
+		binder.setInputScreening( inputScreening );
+		return binder;
+	}
+	
+	/**
+	 * Filter the {@code @InitBinder} methods
+	 * 
+	 * @param binderMethods the {@code @InitBinder} methods
+	 * @param requestDependent {@code true} to keep the methods marked with
+	 *        {@link RequestDependent}, {@code false} to keep the others.
+	 * @return the filtered methods
+	 */
+	private static List<InvocableHandlerMethod> filter( List<InvocableHandlerMethod> binderMethods, boolean requestDependent ) {
+		List<InvocableHandlerMethod> filtered = new ArrayList<InvocableHandlerMethod>( binderMethods.size() );
+		for ( InvocableHandlerMethod binderMethod : binderMethods ) {
+			if ( binderMethod.hasMethodAnnotation( RequestDependent.class ) == requestDependent ) {
+				filtered.add( binderMethod );
+			}
+		}
+		return filtered;
 	}
 
 }
@@ -17,10 +17,18 @@ package com.viiyue.plugins.validator.spring.beans;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.lang.Nullable;
@@ -33,102 +41,316 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
 import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.util.WebUtils;
 
 import com.viiyue.plugins.validator.Validator;
 import com.viiyue.plugins.validator.common.Constants;
 import com.viiyue.plugins.validator.metadata.result.ElementResult;
 import com.viiyue.plugins.validator.metadata.result.FragmentResult;
 import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
 import com.viiyue.plugins.validator.spring.ValidatorLite;
 import com.viiyue.plugins.validator.spring.bindings.ParameterBindingResult;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
 import com.viiyue.plugins.validator.spring.exception.ValidatedException;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.metrics.ArgumentValidationEvent;
+import com.viiyue.plugins.validator.spring.metrics.FlightRecorderSupport;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.metrics.ValidationTrace;
+import com.viiyue.plugins.validator.spring.metrics.ValidationTracer;
+import com.viiyue.plugins.validator.spring.report.ReportOnly;
+import com.viiyue.plugins.validator.spring.report.ReportOnlyValidator;
 import com.viiyue.plugins.validator.spring.utils.LocaleUtils;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
 
 /**
  * Rewrite handler method parameter resolver and add data validation after
  * parameter processing is complete.
+ * 
+ * <p>
+ * Since 1.0.5, a single instance is shared by all requests of the handler
+ * adapter, all request state is kept in request attributes. The data binder
+ * and the binding result are only created when a parameter is rejected, or
+ * when the handler method declares an {@link Errors} parameter. Until then a
+ * passed parameter is only recorded with its value and result, the records
+ * are replayed into the binding result when a later parameter is rejected.
  *
  * @author tangxbai
  * @since 1.0.0
  */
 public final class ValidationHandlerMethodArgumentResolverComposite extends HandlerMethodArgumentResolverComposite {
 
-	private static final String FORWARD_ATTRIBUTE_PREFIX = "javax.servlet.forward";
 	private static final String BINDING_RESULT = ValidationHandlerMethodArgumentResolverComposite.class.getName() + ".BINDING_RESULT";
 	private static final String VALIDATED_RESULT = ValidationHandlerMethodArgumentResolverComposite.class.getName() + ".VALIDATED_RESULT";
+	private static final String PENDING_VALIDATIONS = ValidationHandlerMethodArgumentResolverComposite.class.getName() + ".PENDING_VALIDATIONS";
+	private static final String PASSED_PARAMETERS = ValidationHandlerMethodArgumentResolverComposite.class.getName() + ".PASSED_PARAMETERS";
+	
+	// Added in 1.0.5
+	private final ValidatorContext context;
+	private final Map<MethodParameter, ParameterMetadata> metadataCache = new ConcurrentHashMap<MethodParameter, ParameterMetadata>( 256 );
 	
 	public ValidationHandlerMethodArgumentResolverComposite( HandlerMethodArgumentResolverComposite resolvers ) {
-		super.addResolvers( resolvers.getResolvers() );
+		this( resolvers, null );
+	}
+	
+	public ValidationHandlerMethodArgumentResolverComposite( HandlerMethodArgumentResolverComposite resolvers, @Nullable ValidatorContext context ) {
+		this( resolvers.getResolvers(), context );
+	}
+	
+	public ValidationHandlerMethodArgumentResolverComposite( List<HandlerMethodArgumentResolver> resolvers, @Nullable ValidatorContext context ) {
+		super.addResolvers( resolvers );
+		this.context = context;
 	}
 	
 	@Override
 	public Object resolveArgument( MethodParameter mp, @Nullable ModelAndViewContainer mavContainer,
 			NativeWebRequest webRequest, @Nullable WebDataBinderFactory binderFactory ) throws Exception {
 		
-		BindingResult bindingResult = null;
-		final Class<?> parameterType = mp.getParameterType();
-		final boolean isParameterErrors = Errors.class.isAssignableFrom( parameterType );
-		Object bindingResultObject = webRequest.getAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
+		final ParameterMetadata metadata = getMetadata( mp );
 		
 		// The 'errors' parameter will be handled by 'ErrorsMethodArgumentResolver'
 		// @org.springframework.web.method.annotation.ErrorsMethodArgumentResolver
-		if ( isParameterErrors ) {
+		if ( metadata.errorsParameter ) {
+			awaitPendingValidations( webRequest, binderFactory, mp ); // Added in 1.0.5
+			Object bindingResultObject = webRequest.getAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
 			if ( bindingResultObject != null ) {
-				bindingResult = ( BindingResult ) bindingResultObject;
-				Map<String, Object> bindingResultModel = bindingResult.getModel();
+				Map<String, Object> bindingResultModel = ( ( BindingResult ) bindingResultObject ).getModel();
 				mavContainer.removeAttributes( bindingResultModel );
 				mavContainer.addAllAttributes( bindingResultModel );
-				clearAttributes( webRequest, mp, bindingResult, isParameterErrors );
+				clearAttributes( webRequest, binderFactory, mp, true );
 			}
 			return super.resolveArgument( mp, mavContainer, webRequest, binderFactory );
 		}
 		
-		// Get the parsed value by the framework
-		final Object argument = super.resolveArgument( mp, mavContainer, webRequest, binderFactory );
+		// The context state is read once for each argument
+		final ValidatorContext.Snapshot snapshot = context == null ? null : context.getSnapshot();
+		final ValidationTracer tracer = snapshot == null ? null : snapshot.getTracer();
+		
+		// Get the parsed value by the framework, java beans of report-only 
+		// parameters are not enforced by the validator. (Updated in 1.0.5)
+		final Object argument;
+		if ( metadata.reportOnly ) {
+			ValidatorLite.setReportOnly( webRequest, true );
+			try {
+				argument = super.resolveArgument( mp, mavContainer, webRequest, binderFactory );
+			} finally {
+				ValidatorLite.setReportOnly( webRequest, false );
+			}
+		} else {
+			argument = super.resolveArgument( mp, mavContainer, webRequest, binderFactory );
+		}
 		boolean isValidated = ValidatorLite.getValidatedResult( webRequest ) != null; 
 		
 		// 1) Prevent duplicate validation
 		// 2) Program internal forwarding does not need to handle parameter validation
 		if ( isValidated || isInternalForwarding( webRequest ) ) {
+			// Dispatched validations must not be lost even if the remaining parameters are skipped
+			if ( metadata.lastParameter ) {
+				awaitPendingValidations( webRequest, binderFactory, mp );
+				if ( tracer != null ) {
+					tracer.finish( webRequest, mp.getMethod() );
+				}
+			}
 			return argument;
 		}
 		
 		// Validating non-bean ordinary parameters
-		Method method = mp.getMethod();
-		String methodName = method.getName();
-		Parameter parameter = mp.getParameter();
-		Validated validated = getValidatedAnnotation( mp, parameter );
-		if ( validated == null ) {
-			clearAttributes( webRequest, mp, bindingResult, isParameterErrors );
+		if ( metadata.plan == null && metadata.reportPlan == null ) {
+			clearAttributes( webRequest, binderFactory, mp, false );
 			return argument;
 		}
 		
-		if ( bindingResultObject != null ) {
-			bindingResult = ( BindingResult ) bindingResultObject;
-		}
+		// The validator supports internationalized message display, 
+		// but needs to get the current locale from the spring framework.
+		final Locale locale = snapshot == null ? LocaleUtils.switchLocale() : LocaleUtils.switchLocale( snapshot );
 		
-		// Initialize the data binder, because there is no specific object for ordinary parameters, 
-		// so use Map as the data source here.
-		else {
-			Map<String, Object> target = new HashMap<String, Object>( mp.getExecutable().getParameterCount() );
-			WebDataBinder binder = binderFactory.createBinder( webRequest, target, methodName );
-			binder.initDirectFieldAccess();
-			bindingResult = binder.getBindingResult();
-			webRequest.setAttribute( BINDING_RESULT, bindingResult, RequestAttributes.SCOPE_REQUEST ); // Temporary cache
+		// Report-only rules are validated off the request thread, added in 1.0.5
+		final ReportOnlyValidator reporter = snapshot == null ? null : snapshot.getReportOnlyValidator();
+		if ( reporter != null && metadata.reportPlan != null ) {
+			reporter.submitParameter( metadata.method, metadata.parameter, metadata.parameterName, 
+					metadata.defaultMessage, metadata.reportPlan, argument, locale );
+		}
+		if ( metadata.plan == null ) {
+			clearAttributes( webRequest, binderFactory, mp, false );
+			return argument;
 		}
 		
-		// The validator supports internationalized message display, 
-		// but needs to get the current locale from the spring framework.
-		Locale locale = LocaleUtils.switchLocale();
+		// The validation time budget is checked before each parameter, added in 1.0.5
+		final ValidationBudget budget = snapshot == null ? null : snapshot.getBudget();
+		final ValidationBudget.Deadline deadline = budget == null ? null : budget.start( webRequest );
+		if ( deadline != null && deadline.isExpired() ) {
+			budgetExceeded( webRequest, binderFactory, mp, budget, deadline );
+			clearAttributes( webRequest, binderFactory, mp, false );
+			return argument;
+		}
 
 		// Validation of common parameters
-		String parameterName = mp.getParameterName();
-		String containingName = mp.getContainingClass().getName();
-		String defaultMessage = "{" + containingName + "." + method.getName() + "." + parameterName + "}";
-		ValidatedResult result = Validator.validateParameter( argument, parameter, parameterName, defaultMessage, locale, validated.value() );
+		final ValidationMetrics metrics = snapshot == null ? null : snapshot.getMetrics();
+		final Executor validationExecutor = snapshot == null ? null : snapshot.getValidationExecutor();
+		final ValidationTrace trace = tracer == null ? null : tracer.begin( webRequest );
+		if ( validationExecutor == null ) {
+			ValidatedResult result = validateParameter( metadata, metrics, trace, deadline, argument, locale );
+			processValidatedResult( webRequest, binderFactory, mp, metadata, metrics, result, argument );
+		} else {
+			// Blocking rules of independent parameters are dispatched together, 
+			// and the results are merged in declaration order after the last parameter.
+			CompletableFuture<ValidatedResult> future = CompletableFuture.supplyAsync( 
+				() -> validateParameter( metadata, metrics, trace, deadline, argument, locale ), validationExecutor );
+			getPendingValidations( webRequest, mp ).add( new PendingValidation( metadata, metrics, deadline, argument, future ) );
+		}
+		
+		// Automatically clear cache data when the last parameter is processed
+		clearAttributes( webRequest, binderFactory, mp, false );
+		return argument;
+	}
+	
+	/**
+	 * Get the cached metadata of a method parameter
+	 * 
+	 * @param mp the spring method parameter object
+	 * @return the parameter metadata
+	 */
+	private ParameterMetadata getMetadata( MethodParameter mp ) {
+		ParameterMetadata metadata = metadataCache.get( mp );
+		if ( metadata == null ) {
+			metadata = new ParameterMetadata( mp, getValidatedAnnotation( mp, mp.getParameter() ), isReportOnly( mp ), GroupSequences.of( context ) );
+			MetadataCaches.put( metadataCache, mp, metadata, MetadataCaches.getLimit( context ) ); // Bounded since 1.0.5
+		}
+		return metadata;
+	}
+	
+	/**
+	 * Validate a single parameter, and record the latency if diagnostics are
+	 * enabled, as well as the flight recorder event if it is being recorded,
+	 * and the trace segment if the request is sampled.
+	 * 
+	 * @param metadata the parameter metadata
+	 * @param metrics the validation metrics, {@code null} if diagnostics are not enabled.
+	 * @param trace the trace of the current request, {@code null} if not sampled.
+	 * @param deadline the validation deadline of the request, {@code null} if there is no time budget.
+	 * @param argument the resolved argument value
+	 * @param locale the current locale
+	 * @return the validation result of the parameter, {@code null} if the time budget is exhausted.
+	 */
+	private ValidatedResult validateParameter( ParameterMetadata metadata, ValidationMetrics metrics, 
+			ValidationTrace trace, ValidationBudget.Deadline deadline, Object argument, Locale locale ) {
+		long startTime = metrics == null && trace == null ? 0 : System.nanoTime();
+		ArgumentValidationEvent event = FlightRecorderSupport.AVAILABLE ? ArgumentValidationEvent.start() : null;
+		ValidatedResult result = null;
+		// Group sequences are validated stage by stage, stop at the first failed stage
+		for ( Class<?> [] stage : metadata.plan ) { // Updated in 1.0.5
+			if ( deadline != null && deadline.isExpired() ) {
+				return null;
+			}
+			result = context == null 
+				? Validator.validateParameter( argument, metadata.parameter, metadata.parameterName, metadata.defaultMessage, locale, stage ) 
+				: context.validateParameter( argument, metadata.parameter, metadata.parameterName, metadata.defaultMessage, locale, stage );
+			if ( !result.isPassed() ) {
+				break;
+			}
+		}
+		if ( metrics != null ) {
+			metrics.recordLatency( metadata.method, System.nanoTime() - startTime );
+		}
+		if ( trace != null ) {
+			trace.record( "parameter", metadata.parameterName, System.nanoTime() - startTime, getRejectedRules( result ) );
+		}
+		if ( event != null ) {
+			int errorCount = result.isPassed() ? 0 : ( ( List<?> ) result.getLastRejectedResult().getResult() ).size();
+			event.finish( metadata.method, metadata.parameterName, result.isPassed(), errorCount );
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the rejected rules of a parameter validation result
+	 * 
+	 * @param result the validation result of the parameter
+	 * @return the comma separated error codes, {@code null} if passed.
+	 */
+	private String getRejectedRules( ValidatedResult result ) {
+		if ( result.isPassed() ) {
+			return null;
+		}
+		StringBuilder rules = new StringBuilder();
+		for ( FragmentResult fr : ( List<FragmentResult> ) result.getLastRejectedResult().getResult() ) {
+			if ( rules.length() > 0 ) {
+				rules.append( ',' );
+			}
+			rules.append( fr.getErrorCode() );
+		}
+		return rules.toString();
+	}
+	
+	/**
+	 * Merge the validation result of a single parameter into the request, and
+	 * append each rejected fragment to the binding result. If the binding
+	 * result does not exist yet and the handler method declares no
+	 * {@link Errors} parameter, a passed result is only recorded when a later
+	 * parameter is validated, and merged if the binding result is created for
+	 * it. A passed result without validated parameters after it allocates
+	 * nothing.
+	 * 
+	 * @param webRequest the current request object
+	 * @param binderFactory the data binder factory
+	 * @param mp the spring method parameter object
+	 * @param metadata the parameter metadata
+	 * @param metrics the validation metrics, {@code null} if diagnostics are not enabled.
+	 * @param result the validation result of the parameter, {@code null} if the time budget is exhausted.
+	 * @param argument the resolved argument value
+	 * @throws Exception if the data binder cannot be created
+	 */
+	private void processValidatedResult( NativeWebRequest webRequest, WebDataBinderFactory binderFactory, MethodParameter mp, 
+			ParameterMetadata metadata, ValidationMetrics metrics, ValidatedResult result, Object argument ) throws Exception {
+		if ( result == null ) {
+			ValidationBudget budget = context.getSnapshot().getBudget();
+			budgetExceeded( webRequest, binderFactory, mp, budget, budget.start( webRequest ) );
+			return;
+		}
+		BindingResult bindingResult = ( BindingResult ) webRequest.getAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
+		if ( bindingResult == null ) {
+			if ( result.isPassed() && !metadata.errorsDeclared ) {
+				// Replayed if the binding result is created for a later parameter
+				if ( metadata.validatedLater ) {
+					getPassedParameters( webRequest, mp ).add( new PassedParameter( metadata, result, argument ) );
+				}
+				return;
+			}
+			bindingResult = createBindingResult( webRequest, binderFactory, mp );
+		}
+		mergeValidatedResult( webRequest, bindingResult, metadata, result, argument );
 		
+		// Append each validation result to BindingResult
+		String parameterName = metadata.parameterName;
+		if ( !result.isPassed() ) {
+			ElementResult rejectedResult = result.getLastRejectedResult();
+			for ( FragmentResult fr : ( List<FragmentResult> ) rejectedResult.getResult() ) { // Updated in v1.0.3
+				if ( metrics != null ) {
+					metrics.recordRejected( fr.getErrorCode() );
+				}
+				String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + fr.getFragment();
+				String [] errorCodes = bindingResult.resolveMessageCodes( basicMessageCode, parameterName );
+				bindingResult.addError( new FieldError( metadata.methodName, parameterName, argument, false, errorCodes, fr.getArguments(), fr.getErrorMessage() ) );
+			}
+		}
+	}
+	
+	/**
+	 * Merge the validation result of a single parameter into the validated
+	 * result of the request, and add the parameter value to the binding result.
+	 * 
+	 * @param webRequest the current request object
+	 * @param bindingResult the binding result of the request
+	 * @param metadata the parameter metadata
+	 * @param result the validation result of the parameter
+	 * @param argument the resolved argument value
+	 */
+	private void mergeValidatedResult( NativeWebRequest webRequest, BindingResult bindingResult, 
+			ParameterMetadata metadata, ValidatedResult result, Object argument ) {
 		// Integration of multiple validation parameters
 		ValidatedResult validatedResult = null;
 		Object validatedResultObject = webRequest.getAttribute( VALIDATED_RESULT, RequestAttributes.SCOPE_REQUEST );
@@ -144,22 +366,108 @@ public final class ValidationHandlerMethodArgumentResolverComposite extends Hand
 		if ( bindingResult instanceof ParameterBindingResult ) {
 			ParameterBindingResult pbr = ( ( ParameterBindingResult ) bindingResult );
 			pbr.setValidated( validatedResult );
-			pbr.putParameter( parameterName, argument, parameterType );
+			pbr.putParameter( metadata.parameterName, argument, metadata.parameterType );
 		}
+	}
+	
+	/**
+	 * Get the passed parameters that have not been merged into a binding
+	 * result yet, the list is created on first use.
+	 * 
+	 * @param webRequest the current request object
+	 * @param mp the spring method parameter object
+	 * @return the passed parameters of the current request
+	 */
+	private List<PassedParameter> getPassedParameters( NativeWebRequest webRequest, MethodParameter mp ) {
+		Object passed = webRequest.getAttribute( PASSED_PARAMETERS, RequestAttributes.SCOPE_REQUEST );
+		if ( passed == null ) {
+			passed = new ArrayList<PassedParameter>( mp.getExecutable().getParameterCount() );
+			webRequest.setAttribute( PASSED_PARAMETERS, passed, RequestAttributes.SCOPE_REQUEST );
+		}
+		return ( List<PassedParameter> ) passed;
+	}
+	
+	/**
+	 * Apply the overload policy once for the request when the validation time
+	 * budget is exhausted.
+	 * 
+	 * @param webRequest the current request object
+	 * @param binderFactory the data binder factory
+	 * @param mp the spring method parameter object
+	 * @param budget the validation budget
+	 * @param deadline the validation deadline of the request
+	 * @throws Exception if the data binder cannot be created
+	 */
+	private void budgetExceeded( NativeWebRequest webRequest, WebDataBinderFactory binderFactory, MethodParameter mp, 
+			ValidationBudget budget, ValidationBudget.Deadline deadline ) throws Exception {
+		if ( deadline.markExceeded() ) {
+			BindingResult bindingResult = ( BindingResult ) webRequest.getAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
+			budget.exceeded( bindingResult == null ? createBindingResult( webRequest, binderFactory, mp ) : bindingResult, ValidationBudget.DEADLINE );
+		}
+	}
+	
+	/**
+	 * Initialize the data binder, because there is no specific object for
+	 * ordinary parameters, so use Map as the data source here.
+	 * 
+	 * @param webRequest the current request object
+	 * @param binderFactory the data binder factory
+	 * @param mp the spring method parameter object
+	 * @return the binding result of the request
+	 * @throws Exception if the data binder cannot be created
+	 */
+	private BindingResult createBindingResult( NativeWebRequest webRequest, WebDataBinderFactory binderFactory, MethodParameter mp ) throws Exception {
+		Map<String, Object> target = new HashMap<String, Object>( mp.getExecutable().getParameterCount() );
+		WebDataBinder binder = binderFactory.createBinder( webRequest, target, mp.getMethod().getName() );
+		binder.initDirectFieldAccess();
+		BindingResult bindingResult = binder.getBindingResult();
+		webRequest.setAttribute( BINDING_RESULT, bindingResult, RequestAttributes.SCOPE_REQUEST ); // Temporary cache
 		
-		// Append each validation result to BindingResult
-		if ( !result.isPassed() ) {
-			ElementResult rejectedResult = result.getLastRejectedResult();
-			for ( FragmentResult fr : ( List<FragmentResult> ) rejectedResult.getResult() ) { // Updated in v1.0.3
-				String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + fr.getFragment();
-				String [] errorCodes = bindingResult.resolveMessageCodes( basicMessageCode, parameterName );
-				bindingResult.addError( new FieldError( methodName, parameterName, argument, false, errorCodes, fr.getArguments(), fr.getErrorMessage() ) );
+		// The parameters that passed before the binding result existed, in declaration order
+		Object passed = webRequest.getAttribute( PASSED_PARAMETERS, RequestAttributes.SCOPE_REQUEST );
+		if ( passed != null ) {
+			webRequest.removeAttribute( PASSED_PARAMETERS, RequestAttributes.SCOPE_REQUEST );
+			for ( PassedParameter parameter : ( List<PassedParameter> ) passed ) {
+				mergeValidatedResult( webRequest, bindingResult, parameter.metadata, parameter.result, parameter.argument );
+			}
+		}
+		return bindingResult;
+	}
+	
+	/**
+	 * Get the validations that have been dispatched to the validation executor
+	 * but have not been merged yet.
+	 * 
+	 * @param webRequest the current request object
+	 * @param mp the spring method parameter object
+	 * @return the pending validations of the current request
+	 */
+	private List<PendingValidation> getPendingValidations( NativeWebRequest webRequest, MethodParameter mp ) {
+		Object pendings = webRequest.getAttribute( PENDING_VALIDATIONS, RequestAttributes.SCOPE_REQUEST );
+		if ( pendings == null ) {
+			pendings = new ArrayList<PendingValidation>( mp.getExecutable().getParameterCount() );
+			webRequest.setAttribute( PENDING_VALIDATIONS, pendings, RequestAttributes.SCOPE_REQUEST );
+		}
+		return ( List<PendingValidation> ) pendings;
+	}
+	
+	/**
+	 * Wait for all dispatched validations to complete, and merge their results
+	 * in the declaration order of the parameters.
+	 * 
+	 * @param webRequest the current request object
+	 * @param binderFactory the data binder factory
+	 * @param mp the spring method parameter object
+	 * @throws Exception if the data binder cannot be created
+	 */
+	private void awaitPendingValidations( NativeWebRequest webRequest, WebDataBinderFactory binderFactory, MethodParameter mp ) throws Exception {
+		Object pendings = webRequest.getAttribute( PENDING_VALIDATIONS, RequestAttributes.SCOPE_REQUEST );
+		if ( pendings != null ) {
+			webRequest.removeAttribute( PENDING_VALIDATIONS, RequestAttributes.SCOPE_REQUEST );
+			for ( PendingValidation pending : ( List<PendingValidation> ) pendings ) {
+				processValidatedResult( webRequest, binderFactory, mp, pending.metadata, pending.metrics, pending.join(), pending.argument );
 			}
 		}
-		
-		// Automatically clear cache data when the last parameter is processed
-		clearAttributes( webRequest, mp, bindingResult, isParameterErrors );
-		return argument;
 	}
 	
 	/**
@@ -169,7 +477,7 @@ public final class ValidationHandlerMethodArgumentResolverComposite extends Hand
 	 * @param parameter method parameter object
 	 * @return annotation mark object, {@code null} if not found.
 	 */
-	private Validated getValidatedAnnotation( MethodParameter mp, Parameter parameter ) {
+	private static Validated getValidatedAnnotation( MethodParameter mp, Parameter parameter ) {
 		// Method parameter annotation
 		Validated validated = parameter.getAnnotation( Validated.class );
 		// Method annotation
@@ -179,22 +487,38 @@ public final class ValidationHandlerMethodArgumentResolverComposite extends Hand
 		return validated;
 	}
 	
+	/**
+	 * Whether the parameter or its handler method is annotated with {@link ReportOnly}
+	 * 
+	 * @param mp the spring method parameter object
+	 * @return {@code true} if all rules of the parameter are report-only
+	 */
+	private static boolean isReportOnly( MethodParameter mp ) {
+		return mp.hasParameterAnnotation( ReportOnly.class ) || mp.getExecutable().isAnnotationPresent( ReportOnly.class );
+	}
+	
 	/**
 	 * Remove cached data when the last argument is processed
 	 * 
 	 * @param webRequest the current request object
+	 * @param binderFactory the data binder factory
 	 * @param mp the spring method parameter object
-	 * @param result the validate binding results
 	 * @param isParameterErrors whether it is a wrong parameter?
 	 * @throws BindException If there are any binding errors, and the last parameter is of type {@link Errors}.
+	 * @throws Exception if the data binder cannot be created
 	 */
-	private void clearAttributes( NativeWebRequest webRequest, MethodParameter mp, BindingResult result, boolean isParameterErrors ) throws BindException {
-		int index = mp.getParameterIndex();
-		int totalNumber = mp.getExecutable().getParameterCount();
-		if ( index == totalNumber - 1 ) { // Last argument
+	private void clearAttributes( NativeWebRequest webRequest, WebDataBinderFactory binderFactory, MethodParameter mp, boolean isParameterErrors ) throws Exception {
+		if ( getMetadata( mp ).lastParameter ) { // Last argument
+			awaitPendingValidations( webRequest, binderFactory, mp ); // Added in 1.0.5
+			ValidationTracer tracer = context == null ? null : context.getSnapshot().getTracer();
+			if ( tracer != null ) {
+				tracer.finish( webRequest, mp.getMethod() );
+			}
+			BindingResult result = ( BindingResult ) webRequest.getAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
 			ValidatorLite.removeValidatedResult( webRequest );
 			webRequest.removeAttribute( BINDING_RESULT, RequestAttributes.SCOPE_REQUEST );
 			webRequest.removeAttribute( VALIDATED_RESULT, RequestAttributes.SCOPE_REQUEST );
+			webRequest.removeAttribute( PASSED_PARAMETERS, RequestAttributes.SCOPE_REQUEST );
 			if ( !isParameterErrors && result != null && result.hasErrors() ) {
 				throw new ValidatedException( result );
 			}
@@ -208,13 +532,130 @@ public final class ValidationHandlerMethodArgumentResolverComposite extends Hand
 	 * @return {@code true} for internal request forwarding, {@code false} is not.
 	 */
 	private boolean isInternalForwarding( NativeWebRequest request ) {
-		String [] attributeNames = request.getAttributeNames( RequestAttributes.SCOPE_REQUEST );
-		for ( String attributeName : attributeNames ) {
-			if ( attributeName.startsWith( FORWARD_ATTRIBUTE_PREFIX ) ) {
-				return true;
+		// Updated in 1.0.5, the servlet container always exposes the forward request uri
+		return request.getAttribute( WebUtils.FORWARD_REQUEST_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST ) != null;
+	}
+	
+	/**
+	 * Request-independent metadata of a handler method parameter
+	 */
+	private static final class ParameterMetadata {
+		
+		private final Method method;
+		private final String methodName;
+		private final Parameter parameter;
+		private final String parameterName;
+		private final Class<?> parameterType;
+		private final String defaultMessage;
+		private final Class<?> [][] plan;
+		private final Class<?> [][] reportPlan;
+		private final boolean reportOnly;
+		private final boolean errorsParameter;
+		private final boolean errorsDeclared;
+		private final boolean lastParameter;
+		private final boolean validatedLater;
+		
+		private ParameterMetadata( MethodParameter mp, Validated validated, boolean reportOnly, GroupSequences groupSequences ) {
+			this.method = mp.getMethod();
+			this.methodName = method.getName();
+			this.parameter = mp.getParameter();
+			this.parameterName = mp.getParameterName();
+			this.parameterType = mp.getParameterType();
+			this.defaultMessage = "{" + mp.getContainingClass().getName() + "." + methodName + "." + parameterName + "}";
+			// The enforced plan is empty if all groups are report-only (Updated in 1.0.5)
+			Class<?> [][] plan = validated == null ? null : groupSequences.getPlan( ( Object [] ) validated.value() );
+			Class<?> [][] reportPlan = validated == null ? null : groupSequences.getReportOnlyPlan( ( Object [] ) validated.value() );
+			if ( reportOnly && plan != null && plan.length > 0 ) {
+				reportPlan = plan;
+			}
+			this.plan = reportOnly || plan == null || plan.length == 0 ? null : plan;
+			this.reportPlan = reportPlan;
+			this.reportOnly = reportOnly;
+			this.errorsParameter = Errors.class.isAssignableFrom( parameterType );
+			this.lastParameter = mp.getParameterIndex() == mp.getExecutable().getParameterCount() - 1;
+			boolean errorsDeclared = false;
+			for ( Class<?> type : mp.getExecutable().getParameterTypes() ) {
+				errorsDeclared |= Errors.class.isAssignableFrom( type );
 			}
+			this.errorsDeclared = errorsDeclared;
+			// Whether a later parameter can still create the binding result
+			boolean validatedLater = false;
+			for ( int i = mp.getParameterIndex() + 1, count = mp.getExecutable().getParameterCount(); i < count && !validatedLater; i ++ ) {
+				MethodParameter later = MethodParameter.forExecutable( mp.getExecutable(), i );
+				Validated laterValidated = getValidatedAnnotation( later, later.getParameter() );
+				validatedLater = laterValidated != null && !isReportOnly( later ) && !Errors.class.isAssignableFrom( later.getParameterType() ) 
+						&& groupSequences.getPlan( ( Object [] ) laterValidated.value() ).length > 0;
+			}
+			this.validatedLater = validatedLater;
 		}
-		return false;
+		
+	}
+	
+	/**
+	 * A passed parameter that is waiting for the binding result
+	 */
+	private static final class PassedParameter {
+		
+		private final ParameterMetadata metadata;
+		private final ValidatedResult result;
+		private final Object argument;
+		
+		private PassedParameter( ParameterMetadata metadata, ValidatedResult result, Object argument ) {
+			this.metadata = metadata;
+			this.result = result;
+			this.argument = argument;
+		}
+		
+	}
+	
+	/**
+	 * A parameter validation that is running on the validation executor
+	 */
+	private static final class PendingValidation {
+		
+		private final ParameterMetadata metadata;
+		private final ValidationMetrics metrics;
+		private final ValidationBudget.Deadline deadline;
+		private final Object argument;
+		private final CompletableFuture<ValidatedResult> future;
+		
+		private PendingValidation( ParameterMetadata metadata, ValidationMetrics metrics, 
+				ValidationBudget.Deadline deadline, Object argument, CompletableFuture<ValidatedResult> future ) {
+			this.metadata = metadata;
+			this.metrics = metrics;
+			this.deadline = deadline;
+			this.argument = argument;
+			this.future = future;
+		}
+		
+		/**
+		 * Wait for the validation, but not beyond the deadline of the request
+		 * 
+		 * @return the validation result, {@code null} if the time budget is exhausted.
+		 */
+		private ValidatedResult join() {
+			try {
+				if ( deadline == null ) {
+					return future.join();
+				}
+				return future.get( Math.max( 0, deadline.remainingNanos() ), TimeUnit.NANOSECONDS );
+			} catch ( TimeoutException e ) {
+				return null;
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch ( CompletionException | ExecutionException e ) {
+				Throwable cause = e.getCause();
+				if ( cause instanceof RuntimeException ) {
+					throw ( RuntimeException ) cause;
+				}
+				if ( cause instanceof Error ) {
+					throw ( Error ) cause;
+				}
+				throw new CompletionException( cause );
+			}
+		}
+		
 	}
 
 }
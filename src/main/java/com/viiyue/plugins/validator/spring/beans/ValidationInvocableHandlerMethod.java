@@ -17,10 +17,13 @@ package com.viiyue.plugins.validator.spring.beans;
 
 import java.lang.reflect.Method;
 
+import org.springframework.lang.Nullable;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
 import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
 
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+
 /**
  * Wrapped {@link ServletInvocableHandlerMethod} for overriding method parameter resolvers.
  *
@@ -28,6 +31,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHan
  * @since 1.0.0
  */
 public class ValidationInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+	
+	// Added in 1.0.5
+	private ValidatorContext validatorContext;
+	private ValidationHandlerMethodArgumentResolverComposite sharedResolvers;
 
 	public ValidationInvocableHandlerMethod( HandlerMethod handlerMethod ) {
 		super( handlerMethod );
@@ -36,10 +43,32 @@ public class ValidationInvocableHandlerMethod extends ServletInvocableHandlerMet
 	public ValidationInvocableHandlerMethod( Object handler, Method method ) {
 		super( handler, method );
 	}
+	
+	public ValidationInvocableHandlerMethod( HandlerMethod handlerMethod, @Nullable ValidatorContext validatorContext ) {
+		super( handlerMethod );
+		this.validatorContext = validatorContext;
+	}
+
+	/**
+	 * Use a parameter resolver shared by all requests, instead of wrapping the
+	 * resolvers of the adapter again for each request.
+	 * 
+	 * @param handlerMethod the handler method
+	 * @param sharedResolvers the shared validation parameter resolver
+	 * @since 1.0.5
+	 */
+	public ValidationInvocableHandlerMethod( HandlerMethod handlerMethod, ValidationHandlerMethodArgumentResolverComposite sharedResolvers ) {
+		super( handlerMethod );
+		this.sharedResolvers = sharedResolvers;
+	}
 
 	@Override
 	public void setHandlerMethodArgumentResolvers( HandlerMethodArgumentResolverComposite argumentResolvers ) {
-		super.setHandlerMethodArgumentResolvers( new ValidationHandlerMethodArgumentResolverComposite( argumentResolvers ) );
+		if ( sharedResolvers != null ) {
+			super.setHandlerMethodArgumentResolvers( sharedResolvers );
+		} else {
+			super.setHandlerMethodArgumentResolvers( new ValidationHandlerMethodArgumentResolverComposite( argumentResolvers, validatorContext ) );
+		}
 	}
 
 }
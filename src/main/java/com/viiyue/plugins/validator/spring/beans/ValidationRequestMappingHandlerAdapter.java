@@ -15,14 +15,24 @@
  */
 package com.viiyue.plugins.validator.spring.beans;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.util.ClassUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.annotation.InitBinderDataBinderFactory;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.InvocableHandlerMethod;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
 
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.bindings.InputScreening;
+import com.viiyue.plugins.validator.spring.streaming.StreamingBodyArgumentResolver;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+
 /**
  * Wrapped {@link RequestMappingHandlerAdapter}, used to replace the original
  * {@link RequestMappingHandlerAdapter} in order to add data validation when
@@ -32,15 +42,86 @@ import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHan
  * @since 1.0.0
  */
 public class ValidationRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+	
+	private static final boolean jackson2Present = ClassUtils.isPresent( "com.fasterxml.jackson.databind.ObjectMapper", 
+			ValidationRequestMappingHandlerAdapter.class.getClassLoader() );
+	
+	// Added in 1.0.5
+	private ValidatorContext validatorContext;
+	private InputScreening inputScreening;
+	private ValidationHandlerMethodArgumentResolverComposite validationResolvers;
+	private Map<List<Object>, BinderConfiguration> binderConfigurations;
+	
+	/**
+	 * Set the validator instance scoped to the current application context, the
+	 * static validator API is used if it is not set.
+	 * 
+	 * @param validatorContext the context-scoped validator instance
+	 * @since 1.0.5
+	 */
+	public void setValidatorContext( ValidatorContext validatorContext ) {
+		this.validatorContext = validatorContext;
+	}
+	
+	public ValidatorContext getValidatorContext() {
+		return validatorContext;
+	}
+	
+	/**
+	 * Screen the raw request parameters of every data binder before type conversion
+	 * 
+	 * @param inputScreening the raw input screening rules
+	 * @since 1.0.5
+	 */
+	public void setInputScreening( InputScreening inputScreening ) {
+		this.inputScreening = inputScreening;
+	}
+	
+	/**
+	 * Capture the binder configuration of each handler and object name once,
+	 * instead of invoking the {@code WebBindingInitializer} and the
+	 * {@code @InitBinder} methods for every binder. Methods whose settings
+	 * depend on the request must be marked with {@link RequestDependent}.
+	 * 
+	 * @param cacheBinderConfiguration whether to cache the binder configuration
+	 * @since 1.0.5
+	 * @see BinderConfiguration
+	 */
+	public void setCacheBinderConfiguration( boolean cacheBinderConfiguration ) {
+		this.binderConfigurations = cacheBinderConfiguration ? new ConcurrentHashMap<List<Object>, BinderConfiguration>( 64 ) : null;
+	}
 		
+	@Override
+	public void afterPropertiesSet() {
+		// Added in 1.0.5, streaming validation of @StreamingBody parameters
+		if ( jackson2Present ) {
+			List<HandlerMethodArgumentResolver> customResolvers = new ArrayList<HandlerMethodArgumentResolver>();
+			if ( getCustomArgumentResolvers() != null ) {
+				customResolvers.addAll( getCustomArgumentResolvers() );
+			}
+			customResolvers.add( StreamingBodyArgumentResolver.create( getMessageConverters(), getBeanFactory() ) );
+			setCustomArgumentResolvers( customResolvers );
+		}
+		super.afterPropertiesSet();
+		// Added in 1.0.5, the validation parameter resolver is shared by all requests
+		List<HandlerMethodArgumentResolver> resolvers = getArgumentResolvers();
+		if ( resolvers != null ) {
+			this.validationResolvers = new ValidationHandlerMethodArgumentResolverComposite( resolvers, validatorContext );
+		}
+	}
+	
 	@Override
 	protected InitBinderDataBinderFactory createDataBinderFactory( List<InvocableHandlerMethod> binderMethods ) throws Exception {
-		return new ValidationDataBinderFactory( binderMethods, getWebBindingInitializer() );
+		return new ValidationDataBinderFactory( binderMethods, getWebBindingInitializer(), inputScreening, binderConfigurations, 
+				MetadataCaches.getLimit( validatorContext ) );
 	}
 	
 	@Override
 	protected ServletInvocableHandlerMethod createInvocableHandlerMethod( HandlerMethod handlerMethod ) {
-		return new ValidationInvocableHandlerMethod( handlerMethod );
+		if ( validationResolvers != null ) {
+			return new ValidationInvocableHandlerMethod( handlerMethod, validationResolvers );
+		}
+		return new ValidationInvocableHandlerMethod( handlerMethod, validatorContext );
 	}
 	
 }
\ No newline at end of file
@@ -15,14 +15,24 @@
  */
 package com.viiyue.plugins.validator.spring.beans;
 
+import java.beans.PropertyEditor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.format.Formatter;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.AbstractPropertyBindingResult;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.MessageCodesResolver;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.servlet.mvc.method.annotation.ExtendedServletRequestDataBinder;
 
 import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+import com.viiyue.plugins.validator.spring.bindings.InputScreening;
 import com.viiyue.plugins.validator.spring.bindings.ParameterBindingResult;
 
 /**
@@ -36,6 +46,16 @@ public class ValidationServletRequestDataBinder extends ExtendedServletRequestDa
 	
 	@Nullable
 	private MessageCodesResolver messageCodesResolver; 
+	
+	// Added in 1.0.5
+	@Nullable
+	private InputScreening inputScreening;
+	@Nullable
+	private List<Consumer<WebDataBinder>> formatterRegistrations;
+	private boolean bindingResultCreated;
+	private boolean bindingResultExposed;
+	private boolean editorRegistered;
+	private boolean capturing;
 
 	public ValidationServletRequestDataBinder( @Nullable Object target ) {
 		super( target );
@@ -47,12 +67,129 @@ public class ValidationServletRequestDataBinder extends ExtendedServletRequestDa
 
 	@Override
 	public void setMessageCodesResolver( @Nullable MessageCodesResolver messageCodesResolver ) {
-		super.setMessageCodesResolver( messageCodesResolver );
+		// The resolver is captured, the binding result it creates can be shared (Updated in 1.0.5)
+		applyCaptured( () -> super.setMessageCodesResolver( messageCodesResolver ) );
 		this.messageCodesResolver = messageCodesResolver;
 	}
 	
+	/**
+	 * @return the message codes resolver of the binder, {@code null} if not set.
+	 * @since 1.0.5
+	 */
+	@Nullable
+	public MessageCodesResolver getMessageCodesResolver() {
+		return messageCodesResolver;
+	}
+	
+	/**
+	 * Screen the raw request parameters before they are converted and bound
+	 * 
+	 * @param inputScreening the raw input screening rules
+	 * @since 1.0.5
+	 */
+	public void setInputScreening( @Nullable InputScreening inputScreening ) {
+		this.inputScreening = inputScreening;
+	}
+	
+	@Override
+	public void addCustomFormatter( Formatter<?> formatter ) {
+		applyCaptured( () -> super.addCustomFormatter( formatter ) );
+		recordFormatter( binder -> binder.addCustomFormatter( formatter ) );
+	}
+	
+	@Override
+	public void addCustomFormatter( Formatter<?> formatter, String ... fields ) {
+		applyCaptured( () -> super.addCustomFormatter( formatter, fields ) );
+		recordFormatter( binder -> binder.addCustomFormatter( formatter, fields ) );
+	}
+	
+	@Override
+	public void addCustomFormatter( Formatter<?> formatter, Class<?> ... fieldTypes ) {
+		applyCaptured( () -> super.addCustomFormatter( formatter, fieldTypes ) );
+		recordFormatter( binder -> binder.addCustomFormatter( formatter, fieldTypes ) );
+	}
+	
+	@Override
+	public BindingResult getBindingResult() {
+		this.bindingResultExposed = true; // Added in 1.0.5
+		return super.getBindingResult();
+	}
+	
+	@Override
+	public void registerCustomEditor( Class<?> requiredType, PropertyEditor propertyEditor ) {
+		super.registerCustomEditor( requiredType, propertyEditor );
+		this.editorRegistered = true;
+	}
+	
+	@Override
+	public void registerCustomEditor( @Nullable Class<?> requiredType, @Nullable String field, PropertyEditor propertyEditor ) {
+		super.registerCustomEditor( requiredType, field, propertyEditor );
+		this.editorRegistered = true;
+	}
+	
+	/**
+	 * Get the formatter registrations of the binder, used to capture the
+	 * binder configuration.
+	 * 
+	 * @return the formatter registrations, {@code null} if a property editor
+	 *         has been registered or the binding result has been used by
+	 *         other means than the recorded registrations, the configuration
+	 *         cannot be shared then.
+	 * @since 1.0.5
+	 */
+	@Nullable
+	List<Consumer<WebDataBinder>> getFormatterRegistrations() {
+		if ( editorRegistered || bindingResultCreated || bindingResultExposed ) {
+			return null;
+		}
+		return formatterRegistrations == null ? Collections.emptyList() : formatterRegistrations;
+	}
+	
+	/**
+	 * Record a formatter registration to be replayed on other binders
+	 * 
+	 * @param registration the formatter registration
+	 */
+	private void recordFormatter( Consumer<WebDataBinder> registration ) {
+		if ( formatterRegistrations == null ) {
+			formatterRegistrations = new ArrayList<Consumer<WebDataBinder>>( 2 );
+		}
+		formatterRegistrations.add( registration );
+	}
+	
+	/**
+	 * Apply a configuration that is captured, formatters are registered as
+	 * property editors of the binding result, the binding result created for
+	 * them does not prevent sharing the configuration.
+	 * 
+	 * @param configuration the captured configuration call
+	 */
+	private void applyCaptured( Runnable configuration ) {
+		this.capturing = true;
+		try {
+			configuration.run();
+		} finally {
+			this.capturing = false;
+		}
+	}
+	
+	@Override
+	protected void doBind( MutablePropertyValues mpvs ) {
+		if ( inputScreening != null ) {
+			inputScreening.screen( mpvs, getInternalBindingResult() );
+		}
+		super.doBind( mpvs );
+		// Record the properties that were actually applied, 
+		// disallowed fields and field markers have been removed at this point.
+		AbstractPropertyBindingResult result = getInternalBindingResult();
+		if ( result instanceof BeanBindingResult ) {
+			( ( BeanBindingResult ) result ).addBoundPaths( mpvs ); // Added in 1.0.5
+		}
+	}
+	
 	@Override
 	protected AbstractPropertyBindingResult createDirectFieldBindingResult() {
+		this.bindingResultCreated = !capturing; // Added in 1.0.5
 		ParameterBindingResult result = new ParameterBindingResult( ( Map<String, Object> ) getTarget(), getObjectName() );
 		if ( getConversionService() != null ) {
 			result.initConversion( getConversionService() );
@@ -65,6 +202,7 @@ public class ValidationServletRequestDataBinder extends ExtendedServletRequestDa
 
 	@Override
 	protected AbstractPropertyBindingResult createBeanPropertyBindingResult() {
+		this.bindingResultCreated = !capturing; // Added in 1.0.5
 		BeanBindingResult result = new BeanBindingResult( getTarget(), getObjectName(), isAutoGrowNestedPaths(), getAutoGrowCollectionLimit() );
 		if ( getConversionService() != null ) {
 			result.initConversion( getConversionService() );
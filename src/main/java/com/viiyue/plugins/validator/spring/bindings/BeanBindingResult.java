@@ -15,15 +15,34 @@
  */
 package com.viiyue.plugins.validator.spring.bindings;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.PropertyValues;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
 import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
 
 /**
  * Wrapped {@link BeanPropertyBindingResult}, used instead of Bean validation
  * binding object.
+ * 
+ * <p>
+ * Since 1.0.5, the rejections of the validator are accumulated compactly and
+ * only materialized as {@link FieldError}s when the field errors are read, the
+ * number of materialized rejections can be limited by {@link #setMaxErrors(int)}.
  *
  * @author tangxbai
  * @since 1.0.0
@@ -34,6 +53,12 @@ public class BeanBindingResult extends BeanPropertyBindingResult {
 	private static final long serialVersionUID = 1L;
 
 	private ValidatedResult validated;
+	
+	// Added in 1.0.5
+	private Set<String> boundPaths;
+	private transient CompactErrors compactErrors;
+	private int maxErrors = -1;
+	private int truncatedCount;
 
 	public BeanBindingResult( 
 		@Nullable Object target, 
@@ -50,5 +75,254 @@ public class BeanBindingResult extends BeanPropertyBindingResult {
 	public void setValidated( @NonNull ValidatedResult validated ) {
 		this.validated = validated;
 	}
+	
+	/**
+	 * The maximum number of validator rejections that are materialized as
+	 * field errors, the remaining rejections are only counted.
+	 * 
+	 * @param maxErrors the maximum error count, negative means no limit.
+	 * @since 1.0.5
+	 */
+	public void setMaxErrors( int maxErrors ) {
+		this.maxErrors = maxErrors;
+	}
+	
+	/**
+	 * Record a rejection of the validator, the field error is created when the
+	 * field errors are read.
+	 * 
+	 * @param path the full property path
+	 * @param value the rejected value
+	 * @param fragment the rejected fragment of the validator
+	 * @since 1.0.5
+	 */
+	public void addRejectedValue( String path, @Nullable Object value, FragmentResult fragment ) {
+		if ( compactErrors == null ) {
+			this.compactErrors = new CompactErrors();
+		}
+		compactErrors.add( path, value, fragment );
+	}
+	
+	/**
+	 * Get the number of all errors, including the rejections that were not
+	 * materialized because of the limit.
+	 * 
+	 * @return the total error count
+	 * @since 1.0.5
+	 */
+	public int getRejectedCount() {
+		return super.getErrorCount() + ( compactErrors == null ? 0 : compactErrors.size() ) + truncatedCount;
+	}
+	
+	/**
+	 * Whether the field has a binding failure, accumulated rejections are not materialized.
+	 * 
+	 * @param field the field name
+	 * @return {@code true} if the field failed to bind
+	 * @since 1.0.5
+	 */
+	public boolean hasBindingFailure( String field ) {
+		FieldError fieldError = super.getFieldError( field );
+		return fieldError != null && fieldError.isBindingFailure();
+	}
+	
+	@Override
+	public boolean hasErrors() {
+		return super.hasErrors() || getPendingCount() > 0;
+	}
+	
+	@Override
+	public int getErrorCount() {
+		return super.getErrorCount() + getPendingCount();
+	}
+	
+	@Override
+	public void addError( ObjectError error ) {
+		materialize();
+		super.addError( error );
+	}
+	
+	@Override
+	public void addAllErrors( Errors errors ) {
+		materialize();
+		super.addAllErrors( errors );
+	}
+	
+	@Override
+	public List<ObjectError> getAllErrors() {
+		materialize();
+		return super.getAllErrors();
+	}
+	
+	/**
+	 * Get at most the given number of errors, in the same order as
+	 * {@link #getAllErrors()}. The accumulated rejections beyond the limit are
+	 * not materialized, so reading the first few errors of a large failing
+	 * payload does not create a field error for every rejection.
+	 * 
+	 * @param limit the maximum number of errors
+	 * @return the first errors, at most {@code limit}
+	 * @since 1.0.5
+	 */
+	public List<ObjectError> getAllErrors( int limit ) {
+		List<ObjectError> errors = super.getAllErrors();
+		if ( errors.size() >= limit ) {
+			return errors.subList( 0, Math.max( 0, limit ) );
+		}
+		int count = Math.min( getPendingCount(), limit - errors.size() );
+		if ( count == 0 ) {
+			return errors;
+		}
+		List<ObjectError> limited = new ArrayList<ObjectError>( errors.size() + count );
+		limited.addAll( errors );
+		for ( int i = 0; i < count; i ++ ) {
+			limited.add( createFieldError( compactErrors, i ) );
+		}
+		return limited;
+	}
+	
+	@Override
+	public List<FieldError> getFieldErrors() {
+		materialize();
+		return super.getFieldErrors();
+	}
+	
+	@Override
+	@Nullable
+	public FieldError getFieldError() {
+		materialize();
+		return super.getFieldError();
+	}
+	
+	@Override
+	public List<FieldError> getFieldErrors( String field ) {
+		materialize();
+		return super.getFieldErrors( field );
+	}
+	
+	@Override
+	@Nullable
+	public FieldError getFieldError( String field ) {
+		materialize();
+		return super.getFieldError( field );
+	}
+	
+	/**
+	 * Get the number of accumulated rejections that will be materialized
+	 * 
+	 * @return the pending error count
+	 */
+	private int getPendingCount() {
+		if ( compactErrors == null ) {
+			return 0;
+		}
+		int size = compactErrors.size();
+		return maxErrors < 0 ? size : Math.max( 0, Math.min( size, maxErrors - super.getErrorCount() ) );
+	}
+	
+	/**
+	 * Create the field errors of the accumulated rejections
+	 */
+	private void materialize() {
+		if ( compactErrors == null ) {
+			return;
+		}
+		CompactErrors pending = compactErrors;
+		int count = getPendingCount();
+		this.compactErrors = null;
+		for ( int i = 0; i < count; i ++ ) {
+			super.addError( createFieldError( pending, i ) );
+		}
+		truncatedCount += pending.size() - count;
+		pending.clear();
+	}
+	
+	/**
+	 * Create the field error of an accumulated rejection
+	 * 
+	 * @param pending the accumulated rejections
+	 * @param index the rejection index
+	 * @return the field error
+	 */
+	private FieldError createFieldError( CompactErrors pending, int index ) {
+		String path = pending.getPath( index );
+		FragmentResult fragment = pending.getFragment( index );
+		String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + pending.getRule( index );
+		Class<?> fieldType = getTarget() == null ? null : getPropertyAccessor().getPropertyType( path );
+		String [] errorCodes = getMessageCodesResolver().resolveMessageCodes( basicMessageCode, getObjectName(), path, fieldType );
+		FieldError error = new FieldError( getObjectName(), path, pending.getValue( index ), false, 
+				errorCodes, fragment.getArguments(), fragment.getErrorMessage() );
+		error.wrap( fragment );
+		return error;
+	}
+	
+	private void writeObject( ObjectOutputStream out ) throws IOException {
+		materialize();
+		out.defaultWriteObject();
+	}
+	
+	/**
+	 * Record the property paths that were bound from the request
+	 * 
+	 * @param propertyValues the property values applied by the data binder
+	 * @since 1.0.5
+	 */
+	public void addBoundPaths( PropertyValues propertyValues ) {
+		if ( boundPaths == null ) {
+			this.boundPaths = new HashSet<String>( 16 );
+		}
+		for ( PropertyValue propertyValue : propertyValues.getPropertyValues() ) {
+			boundPaths.add( propertyValue.getName() );
+		}
+	}
+	
+	/**
+	 * Get the property paths that were bound from the request
+	 * 
+	 * @return the bound property paths, {@code null} if the target was not bound from request parameters.
+	 * @since 1.0.5
+	 */
+	@Nullable
+	public Set<String> getBoundPaths() {
+		return boundPaths;
+	}
+	
+	/**
+	 * Whether the property path was bound from the request, or is a parent or a
+	 * child of a bound path. If the target was not bound from request
+	 * parameters, all paths are treated as bound, and so are object-level
+	 * errors (empty path).
+	 * 
+	 * @param path the property path
+	 * @return {@code true} if the path is affected by the bound values
+	 * @since 1.0.5
+	 */
+	public boolean isBoundPath( String path ) {
+		if ( boundPaths == null || path.isEmpty() || boundPaths.contains( path ) ) {
+			return true;
+		}
+		for ( String boundPath : boundPaths ) {
+			if ( isNestedPath( boundPath, path ) || isNestedPath( path, boundPath ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Whether the path is a nested path of the parent path
+	 * 
+	 * @param parent the parent property path
+	 * @param path the property path
+	 * @return {@code true} if the path is nested in the parent path
+	 */
+	private boolean isNestedPath( String parent, String path ) {
+		int length = parent.length();
+		if ( path.length() > length && path.startsWith( parent ) ) {
+			char separator = path.charAt( length );
+			return separator == '.' || separator == '[';
+		}
+		return false;
+	}
 
 }
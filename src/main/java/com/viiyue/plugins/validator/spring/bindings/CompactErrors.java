@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.bindings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
+
+/**
+ * Compact accumulator of rejected fields. Each error is recorded in parallel
+ * arrays (path index, rule index, element index and value reference), paths
+ * with the same shape such as {@code items[0].name} and {@code items[1].name}
+ * share a single path template, so a failing bulk payload does not create a
+ * {@code FieldError} with its message codes for every rejection until the
+ * errors are actually read.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+final class CompactErrors {
+	
+	private final List<String> paths = new ArrayList<String>();
+	private final Map<String, Integer> pathIndexes = new HashMap<String, Integer>();
+	private final List<String> rules = new ArrayList<String>();
+	private final Map<String, Integer> ruleIndexes = new HashMap<String, Integer>();
+	
+	private int size;
+	private int [] pathIds = new int[ 16 ];
+	private int [] ruleIds = new int[ 16 ];
+	private int [] elementIndexes = new int[ 16 ];
+	private Object [] values = new Object[ 16 ];
+	private FragmentResult [] fragments = new FragmentResult[ 16 ];
+	
+	/**
+	 * Record a rejected field
+	 * 
+	 * @param path the full property path
+	 * @param value the rejected value
+	 * @param fragment the rejected fragment of the validator
+	 */
+	void add( String path, Object value, FragmentResult fragment ) {
+		if ( size == pathIds.length ) {
+			int capacity = size << 1;
+			pathIds = Arrays.copyOf( pathIds, capacity );
+			ruleIds = Arrays.copyOf( ruleIds, capacity );
+			elementIndexes = Arrays.copyOf( elementIndexes, capacity );
+			values = Arrays.copyOf( values, capacity );
+			fragments = Arrays.copyOf( fragments, capacity );
+		}
+		int elementIndex = -1;
+		int start = path.indexOf( '[' );
+		int end = start < 0 ? -1 : path.indexOf( ']', start );
+		if ( end > start + 1 && end - start <= 10 && isDigits( path, start + 1, end ) ) {
+			elementIndex = Integer.parseInt( path.substring( start + 1, end ) );
+			path = path.substring( 0, start + 1 ) + path.substring( end );
+		}
+		pathIds[ size ] = indexOf( path, paths, pathIndexes );
+		ruleIds[ size ] = indexOf( fragment.getErrorCode(), rules, ruleIndexes );
+		elementIndexes[ size ] = elementIndex;
+		values[ size ] = value;
+		fragments[ size ] = fragment;
+		size ++;
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the full property path of an error
+	 * 
+	 * @param index the error index
+	 * @return the property path
+	 */
+	String getPath( int index ) {
+		String path = paths.get( pathIds[ index ] );
+		int elementIndex = elementIndexes[ index ];
+		if ( elementIndex < 0 ) {
+			return path;
+		}
+		int position = path.indexOf( "[]" ) + 1;
+		return path.substring( 0, position ) + elementIndex + path.substring( position );
+	}
+	
+	String getRule( int index ) {
+		return rules.get( ruleIds[ index ] );
+	}
+	
+	Object getValue( int index ) {
+		return values[ index ];
+	}
+	
+	FragmentResult getFragment( int index ) {
+		return fragments[ index ];
+	}
+	
+	void clear() {
+		size = 0;
+		paths.clear();
+		pathIndexes.clear();
+		rules.clear();
+		ruleIndexes.clear();
+		Arrays.fill( values, null );
+		Arrays.fill( fragments, null );
+	}
+	
+	/**
+	 * Get the index of a value in the lookup table, the value is added if absent
+	 * 
+	 * @param value the table value
+	 * @param table the lookup table
+	 * @param indexes the indexes of the table values
+	 * @return the index of the value
+	 */
+	private int indexOf( String value, List<String> table, Map<String, Integer> indexes ) {
+		Integer index = indexes.get( value );
+		if ( index == null ) {
+			index = table.size();
+			table.add( value );
+			indexes.put( value, index );
+		}
+		return index;
+	}
+	
+	/**
+	 * Whether the characters in the range are all digits
+	 * 
+	 * @param text the text
+	 * @param start the start index, inclusive
+	 * @param end the end index, exclusive
+	 * @return {@code true} if all characters are digits
+	 */
+	private boolean isDigits( String text, int start, int end ) {
+		for ( int i = start; i < end; i ++ ) {
+			if ( !Character.isDigit( text.charAt( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.bindings;
+
+import java.util.Iterator;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.spring.regex.CompiledPattern;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+
+/**
+ * Screening of raw request parameters before data binding. The checks are
+ * applied to the raw strings of the request parameter map, so malformed or
+ * hostile input is rejected before any type conversion and before indexed
+ * collections are grown. Rejected parameters are removed from the binding and
+ * registered as binding failures, all limits are disabled by default.
+ * 
+ * <p>
+ * Error codes are resolved with the prefix {@value #ERROR_CODE_PREFIX}:
+ * {@code maxParameters}, {@code maxLength}, {@code maxElements},
+ * {@code controlCharacters} and {@code characters}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class InputScreening {
+	
+	public static final String ERROR_CODE_PREFIX = Constants.DEFAULT_MESSAGE_KEY_PREFIX + ".screening.";
+	
+	private int maxParameters = -1;
+	private int maxValueLength = -1;
+	private int maxElements = -1;
+	private boolean rejectControlCharacters;
+	private String allowedCharactersRegex;
+	private CompiledPattern allowedCharacters;
+	private RegexEngine regexEngine = RegexEngines.jdk();
+	
+	/**
+	 * The maximum number of request parameters of a single binding, nothing is
+	 * bound if it is exceeded.
+	 * 
+	 * @param maxParameters the maximum parameter count, negative means no limit.
+	 */
+	public void setMaxParameters( int maxParameters ) {
+		this.maxParameters = maxParameters;
+	}
+	
+	/**
+	 * The maximum length of each raw parameter value
+	 * 
+	 * @param maxValueLength the maximum length, negative means no limit.
+	 */
+	public void setMaxValueLength( int maxValueLength ) {
+		this.maxValueLength = maxValueLength;
+	}
+	
+	/**
+	 * The maximum element count of indexed parameters (such as
+	 * {@code items[10].name}) and multi-valued parameters. It should not be
+	 * greater than the {@code autoGrowCollectionLimit} of the binder.
+	 * 
+	 * @param maxElements the maximum element count, negative means no limit.
+	 */
+	public void setMaxElements( int maxElements ) {
+		this.maxElements = maxElements;
+	}
+	
+	/**
+	 * Reject values containing control characters other than tab, carriage
+	 * return and line feed.
+	 * 
+	 * @param rejectControlCharacters whether to reject control characters
+	 */
+	public void setRejectControlCharacters( boolean rejectControlCharacters ) {
+		this.rejectControlCharacters = rejectControlCharacters;
+	}
+	
+	/**
+	 * The pattern that every raw value must match, for example
+	 * {@code [\p{L}\p{N}\p{P}\p{Zs}]*}.
+	 * 
+	 * @param allowedCharacters the regular expression of allowed values
+	 */
+	public void setAllowedCharacters( String allowedCharacters ) {
+		this.allowedCharactersRegex = allowedCharacters;
+		this.allowedCharacters = RegexEngines.compile( regexEngine, allowedCharacters, "allowed characters" );
+	}
+	
+	/**
+	 * The engine of the allowed characters pattern, the pattern is compiled
+	 * again if it is already set.
+	 * 
+	 * @param regexEngine the regular expression engine
+	 */
+	public void setRegexEngine( RegexEngine regexEngine ) {
+		this.regexEngine = regexEngine == null ? RegexEngines.jdk() : regexEngine;
+		setAllowedCharacters( allowedCharactersRegex );
+	}
+	
+	/**
+	 * Screen the raw property values, rejected values are removed and
+	 * registered as binding failures.
+	 * 
+	 * @param mpvs the raw property values from the request
+	 * @param bindingResult the binding result of the binder
+	 */
+	public void screen( MutablePropertyValues mpvs, BindingResult bindingResult ) {
+		if ( maxParameters >= 0 && mpvs.size() > maxParameters ) {
+			String [] errorCodes = bindingResult.resolveMessageCodes( ERROR_CODE_PREFIX + "maxParameters" );
+			bindingResult.addError( new ObjectError( bindingResult.getObjectName(), errorCodes, 
+					new Object [] { maxParameters }, "Too many request parameters" ) );
+			mpvs.getPropertyValueList().clear();
+			return;
+		}
+		for ( Iterator<PropertyValue> iterator = mpvs.getPropertyValueList().iterator(); iterator.hasNext(); ) {
+			PropertyValue pv = iterator.next();
+			String rejection = screenName( pv.getName() );
+			if ( rejection == null ) {
+				rejection = screenValue( pv.getValue() );
+			}
+			if ( rejection != null ) {
+				iterator.remove();
+				String [] errorCodes = bindingResult.resolveMessageCodes( ERROR_CODE_PREFIX + rejection, pv.getName() );
+				bindingResult.addError( new FieldError( bindingResult.getObjectName(), pv.getName(), pv.getValue(), 
+						true, errorCodes, null, "Rejected request parameter" ) );
+			}
+		}
+	}
+	
+	/**
+	 * Check the indexes of an indexed property name
+	 * 
+	 * @param name the property name
+	 * @return the rejection code, {@code null} if accepted.
+	 */
+	private String screenName( String name ) {
+		if ( maxElements < 0 ) {
+			return null;
+		}
+		for ( int i = name.indexOf( '[' ); i >= 0; i = name.indexOf( '[', i + 1 ) ) {
+			long index = 0;
+			int digits = 0;
+			for ( int j = i + 1; j < name.length() && Character.isDigit( name.charAt( j ) ); j ++ ) {
+				index = index * 10 + ( name.charAt( j ) - '0' );
+				// Avoid overflow of huge indexes
+				if ( ++ digits > 10 ) {
+					return "maxElements";
+				}
+			}
+			if ( digits > 0 && index >= maxElements ) {
+				return "maxElements";
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Check a raw property value
+	 * 
+	 * @param value the raw value, a string or an array of strings for multi-valued parameters.
+	 * @return the rejection code, {@code null} if accepted.
+	 */
+	private String screenValue( Object value ) {
+		if ( value instanceof String ) {
+			return screenString( ( String ) value );
+		}
+		if ( value instanceof String [] ) {
+			String [] values = ( String [] ) value;
+			if ( maxElements >= 0 && values.length > maxElements ) {
+				return "maxElements";
+			}
+			for ( String element : values ) {
+				String rejection = screenString( element );
+				if ( rejection != null ) {
+					return rejection;
+				}
+			}
+		}
+		// Multipart files and values added by the binder itself are not screened
+		return null;
+	}
+	
+	/**
+	 * Check a raw string value
+	 * 
+	 * @param value the raw string value
+	 * @return the rejection code, {@code null} if accepted.
+	 */
+	private String screenString( String value ) {
+		if ( value == null ) {
+			return null;
+		}
+		if ( maxValueLength >= 0 && value.length() > maxValueLength ) {
+			return "maxLength";
+		}
+		if ( rejectControlCharacters ) {
+			for ( int i = 0, length = value.length(); i < length; i ++ ) {
+				char c = value.charAt( i );
+				if ( Character.isISOControl( c ) && c != '\t' && c != '\r' && c != '\n' ) {
+					return "controlCharacters";
+				}
+			}
+		}
+		if ( allowedCharacters != null && !allowedCharacters.matches( value ) ) {
+			return "characters";
+		}
+		return null;
+	}
+
+}
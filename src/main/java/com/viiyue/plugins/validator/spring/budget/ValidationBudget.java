@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.budget;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.Errors;
+import org.springframework.web.context.request.RequestAttributes;
+
+import com.viiyue.plugins.validator.common.Constants;
+
+/**
+ * Validation time budget and bulkhead. Slow rules must not hold request
+ * threads for an unbounded time, so each request gets a validation deadline
+ * that is checked between validation stages, between parameters, before each
+ * batch handler and while waiting for concurrent validations. Batch handlers
+ * (the store-backed rules of the plugin) are additionally limited by a
+ * semaphore per handler type.
+ * 
+ * <p>
+ * When the budget is exhausted, the remaining validations are either rejected
+ * with a global error or skipped, according to the {@link Policy}. Error codes
+ * are resolved with the prefix {@value #ERROR_CODE_PREFIX}: {@code deadline}
+ * and {@code bulkhead}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationBudget {
+	
+	public static final String ERROR_CODE_PREFIX = Constants.DEFAULT_MESSAGE_KEY_PREFIX + ".budget.";
+	public static final String DEADLINE = "deadline";
+	public static final String BULKHEAD = "bulkhead";
+	
+	private static final Logger log = LoggerFactory.getLogger( ValidationBudget.class );
+	private static final String DEADLINE_ATTRIBUTE = ValidationBudget.class.getName() + ".DEADLINE";
+	
+	private long timeoutMillis = -1;
+	private int maxConcurrentBatches = -1;
+	private long bulkheadWaitMillis;
+	private Policy policy = Policy.REJECT;
+	private final Map<Class<?>, Semaphore> bulkheads = new ConcurrentHashMap<Class<?>, Semaphore>( 16 );
+	
+	/**
+	 * The validation time budget of a single request, starting from the first
+	 * validation of the request.
+	 * 
+	 * @param timeoutMillis the time budget in milliseconds, negative means no limit.
+	 */
+	public void setTimeoutMillis( long timeoutMillis ) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * The maximum number of concurrent invocations of each batch handler type.
+	 * Changing the limit replaces the bulkheads, the permits that are held
+	 * are still returned to the bulkhead they were acquired from.
+	 * 
+	 * @param maxConcurrentBatches the maximum concurrency, negative means no limit.
+	 */
+	public void setMaxConcurrentBatches( int maxConcurrentBatches ) {
+		this.maxConcurrentBatches = maxConcurrentBatches;
+		this.bulkheads.clear();
+	}
+	
+	/**
+	 * How long to wait for a bulkhead permit, the wait never exceeds the
+	 * remaining time budget. Default is {@code 0}, do not wait.
+	 * 
+	 * @param bulkheadWaitMillis the maximum wait in milliseconds
+	 */
+	public void setBulkheadWaitMillis( long bulkheadWaitMillis ) {
+		this.bulkheadWaitMillis = bulkheadWaitMillis;
+	}
+	
+	/**
+	 * What to do with the remaining validations when the budget is
+	 * exhausted, default is {@link Policy#REJECT}.
+	 * 
+	 * @param policy the overload policy
+	 */
+	public void setPolicy( Policy policy ) {
+		this.policy = policy == null ? Policy.REJECT : policy;
+	}
+	
+	public Policy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * Whether any limit is configured
+	 * 
+	 * @return {@code true} if the time budget or the bulkhead is enabled
+	 */
+	public boolean isEnabled() {
+		return timeoutMillis >= 0 || maxConcurrentBatches >= 0;
+	}
+	
+	/**
+	 * Get the deadline of the current request, it is started by the first
+	 * validation of the request and shared by the following ones.
+	 * 
+	 * @param attributes the request attributes, a new deadline is started for each call if it is {@code null}.
+	 * @return the validation deadline, {@code null} if there is no time budget.
+	 */
+	@Nullable
+	public Deadline start( @Nullable RequestAttributes attributes ) {
+		if ( timeoutMillis < 0 ) {
+			return null;
+		}
+		if ( attributes == null ) {
+			return new Deadline( timeoutMillis );
+		}
+		Deadline deadline = ( Deadline ) attributes.getAttribute( DEADLINE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST );
+		if ( deadline == null ) {
+			deadline = new Deadline( timeoutMillis );
+			attributes.setAttribute( DEADLINE_ATTRIBUTE, deadline, RequestAttributes.SCOPE_REQUEST );
+		}
+		return deadline;
+	}
+	
+	/**
+	 * Acquire a bulkhead permit of a batch handler type
+	 * 
+	 * @param handlerType the batch handler type
+	 * @param deadline the request deadline, {@code null} if there is no time budget.
+	 * @return the acquired permit that must be released after the invocation, {@code null} if not acquired.
+	 */
+	@Nullable
+	public Permit tryAcquire( Class<?> handlerType, @Nullable Deadline deadline ) {
+		int maxConcurrentBatches = this.maxConcurrentBatches;
+		if ( maxConcurrentBatches < 0 ) {
+			return Permit.UNLIMITED;
+		}
+		Semaphore semaphore = bulkheads.get( handlerType );
+		if ( semaphore == null ) {
+			semaphore = bulkheads.computeIfAbsent( handlerType, key -> new Semaphore( maxConcurrentBatches ) );
+		}
+		long waitNanos = TimeUnit.MILLISECONDS.toNanos( bulkheadWaitMillis );
+		if ( deadline != null ) {
+			waitNanos = Math.min( waitNanos, deadline.remainingNanos() );
+		}
+		boolean acquired;
+		if ( waitNanos <= 0 ) {
+			acquired = semaphore.tryAcquire();
+		} else {
+			try {
+				acquired = semaphore.tryAcquire( waitNanos, TimeUnit.NANOSECONDS );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				acquired = false;
+			}
+		}
+		return acquired ? new Permit( semaphore ) : null;
+	}
+	
+	/**
+	 * Apply the overload policy when the budget is exhausted
+	 * 
+	 * @param errors the spring validation error binding object
+	 * @param reason {@link #DEADLINE} or {@link #BULKHEAD}
+	 */
+	public void exceeded( Errors errors, String reason ) {
+		if ( policy == Policy.REJECT ) {
+			log.debug( "Validation budget exhausted ({}), '{}' is rejected", reason, errors.getObjectName() );
+			errors.reject( ERROR_CODE_PREFIX + reason, DEADLINE.equals( reason ) 
+					? "Validation time budget exceeded" : "Too many concurrent validations" );
+		} else {
+			log.debug( "Validation budget exhausted ({}), the remaining rules of '{}' are skipped", reason, errors.getObjectName() );
+		}
+	}
+	
+	/**
+	 * What to do with the remaining validations when the budget is exhausted
+	 */
+	public enum Policy {
+		
+		/**
+		 * Reject the request with a global validation error
+		 */
+		REJECT,
+		
+		/**
+		 * Skip the remaining validations, the request is accepted if the
+		 * completed validations passed.
+		 */
+		SKIP
+		
+	}
+	
+	/**
+	 * Bulkhead permit of a single batch handler invocation, it is bound to the
+	 * semaphore it was acquired from.
+	 */
+	public static final class Permit {
+		
+		private static final Permit UNLIMITED = new Permit( null );
+		
+		private final Semaphore semaphore;
+		
+		private Permit( Semaphore semaphore ) {
+			this.semaphore = semaphore;
+		}
+		
+		/**
+		 * Return the permit to its bulkhead
+		 */
+		public void release() {
+			if ( semaphore != null ) {
+				semaphore.release();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Validation deadline of a single request
+	 */
+	public static final class Deadline {
+		
+		private final long deadlineNanos;
+		private final AtomicBoolean exceeded = new AtomicBoolean();
+		
+		private Deadline( long timeoutMillis ) {
+			this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+		}
+		
+		public boolean isExpired() {
+			return remainingNanos() <= 0;
+		}
+		
+		public long remainingNanos() {
+			return deadlineNanos - System.nanoTime();
+		}
+		
+		/**
+		 * Mark the deadline as exceeded, so that the overload policy is only
+		 * applied once for the shared binding result of the request.
+		 * 
+		 * @return {@code true} if it is the first time
+		 */
+		public boolean markExceeded() {
+			return exceeded.compareAndSet( false, true );
+		}
+		
+	}
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.exception;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+
+/**
+ * Write {@link ValidatedException} directly to the response as JSON. The
+ * errors are streamed to the response output stream one by one, without
+ * building any intermediate collection or tree model.
+ * 
+ * <pre>
+ * {
+ *   "objectName": "save",
+ *   "errorCount": 2,
+ *   "errors": [
+ *     { "field": "name", "code": "validator.length", "message": "..." }
+ *   ]
+ * }
+ * </pre>
+ * 
+ * <p>
+ * The resolver has the lowest precedence by default, so that the
+ * {@code @ExceptionHandler} methods of the application still take effect.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidatedExceptionResolver implements HandlerExceptionResolver, Ordered {
+	
+	private static final Logger log = LoggerFactory.getLogger( ValidatedExceptionResolver.class );
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private int order = Ordered.LOWEST_PRECEDENCE;
+	private int statusCode = HttpStatus.BAD_REQUEST.value();
+	private int maxErrors = Integer.MAX_VALUE;
+	private boolean includeRejectedValue;
+	
+	public void setOrder( int order ) {
+		this.order = order;
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * The response status code, default is {@code 400}.
+	 * 
+	 * @param statusCode the response status code
+	 */
+	public void setStatusCode( int statusCode ) {
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * The maximum number of errors written to the response, the remaining errors
+	 * are only counted in {@code errorCount}.
+	 * 
+	 * @param maxErrors the maximum number of errors
+	 */
+	public void setMaxErrors( int maxErrors ) {
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Whether to write the rejected value of each field, the default is
+	 * {@code false} because the rejected value may contain sensitive data.
+	 * 
+	 * @param includeRejectedValue whether to write the rejected value
+	 */
+	public void setIncludeRejectedValue( boolean includeRejectedValue ) {
+		this.includeRejectedValue = includeRejectedValue;
+	}
+
+	@Override
+	@Nullable
+	public ModelAndView resolveException( HttpServletRequest request, HttpServletResponse response, 
+			@Nullable Object handler, Exception ex ) {
+		if ( !( ex instanceof ValidatedException ) || response.isCommitted() ) {
+			return null;
+		}
+		try {
+			response.setStatus( statusCode );
+			response.setContentType( MediaType.APPLICATION_JSON_VALUE );
+			response.setCharacterEncoding( StandardCharsets.UTF_8.name() );
+			writeErrors( ( ( ValidatedException ) ex ).getBindingResult(), response );
+			return new ModelAndView();
+		} catch ( IOException e ) {
+			log.warn( "Failed to write validation errors to the response", e );
+			return null;
+		}
+	}
+	
+	/**
+	 * Stream the binding errors to the response
+	 * 
+	 * @param bindingResult the validate binding results
+	 * @param response the current response
+	 * @throws IOException if the response cannot be written
+	 */
+	protected void writeErrors( BindingResult bindingResult, HttpServletResponse response ) throws IOException {
+		JsonGenerator generator = jsonFactory.createGenerator( response.getOutputStream(), JsonEncoding.UTF8 );
+		try {
+			generator.writeStartObject();
+			generator.writeStringField( "objectName", bindingResult.getObjectName() );
+			generator.writeNumberField( "errorCount", bindingResult.getErrorCount() );
+			generator.writeArrayFieldStart( "errors" );
+			List<ObjectError> errors = getErrors( bindingResult );
+			for ( int i = 0, size = Math.min( errors.size(), maxErrors ); i < size; i ++ ) {
+				writeError( generator, errors.get( i ) );
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		} finally {
+			generator.close();
+		}
+	}
+	
+	/**
+	 * Get the errors to write, the accumulated rejections of a
+	 * {@link BeanBindingResult} are only materialized up to {@code maxErrors}.
+	 * 
+	 * @param bindingResult the validate binding results
+	 * @return the binding errors
+	 */
+	private List<ObjectError> getErrors( BindingResult bindingResult ) {
+		if ( bindingResult instanceof BeanBindingResult ) {
+			return ( ( BeanBindingResult ) bindingResult ).getAllErrors( maxErrors );
+		}
+		return bindingResult.getAllErrors();
+	}
+	
+	/**
+	 * Write a single error object
+	 * 
+	 * @param generator the streaming json generator
+	 * @param error the binding error
+	 * @throws IOException if the response cannot be written
+	 */
+	protected void writeError( JsonGenerator generator, ObjectError error ) throws IOException {
+		generator.writeStartObject();
+		if ( error instanceof FieldError ) {
+			FieldError fieldError = ( FieldError ) error;
+			generator.writeStringField( "field", fieldError.getField() );
+			if ( includeRejectedValue ) {
+				Object rejectedValue = fieldError.getRejectedValue();
+				generator.writeStringField( "rejectedValue", rejectedValue == null ? null : rejectedValue.toString() );
+			}
+		}
+		generator.writeStringField( "code", error.getCode() );
+		generator.writeStringField( "message", error.getDefaultMessage() );
+		generator.writeEndObject();
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.groups;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare an ordered sequence of validation groups on a group interface. When
+ * the interface is used in {@code @Validated}, its groups are validated one
+ * after another and the validation stops at the first group that fails, so
+ * cheap checks (such as formats) can guard expensive ones (such as existence
+ * checks against a database).
+ * 
+ * <pre>
+ * &#64;GroupSequence( { Format.class, Existence.class } )
+ * public interface Ordered {}
+ * 
+ * public String save( &#64;Validated( Ordered.class ) User user ) { ... }
+ * </pre>
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see GroupSequences
+ */
+@Documented
+@Target( ElementType.TYPE )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface GroupSequence {
+
+	/**
+	 * @return the validation groups in the order in which they are validated,
+	 *         a group can be another sequence.
+	 */
+	Class<?> [] value();
+
+}
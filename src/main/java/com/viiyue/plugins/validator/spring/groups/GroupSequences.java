@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.groups;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.metrics.CacheStatistics;
+import com.viiyue.plugins.validator.spring.report.ReportOnly;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+import com.viiyue.plugins.validator.spring.utils.RuleInterner;
+
+/**
+ * Validation plans of group combinations. A plan is the list of stages in
+ * which the groups are validated: the ordinary groups are validated together
+ * in the first stage, followed by one stage for each group of every
+ * {@link GroupSequence}. Plans are expanded once for each combination and
+ * cached, so that {@code @Validated} invocations do not inspect the groups
+ * again. The {@link PartialUpdate} marker is not part of the plan, and the
+ * groups annotated with {@link ReportOnly} have a separate plan that is only
+ * validated in the background. Each application context owns its plans
+ * through its {@link ValidatorContext}, the caches are bounded and do not
+ * outlive the group classes, see {@link MetadataCaches}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see GroupSequence
+ */
+public class GroupSequences {
+	
+	private static final Class<?> [][] DEFAULT_PLAN = { Constants.DEFAULT_OBJECT_GROUPS };
+	private static final Class<?> [][] EMPTY_PLAN = {};
+	private static final GroupSequences uncached = new GroupSequences( new RuleInterner( 0 ), 0 );
+	
+	private final Map<List<Object>, Class<?> [][]> plans = MetadataCaches.newCache( 64 );
+	private final Map<List<Object>, Class<?> [][]> reportOnlyPlans = MetadataCaches.newCache( 16 );
+	private final CacheStatistics cacheStatistics = new CacheStatistics( plans );
+	private final RuleInterner ruleInterner;
+	private final int limit;
+	
+	/**
+	 * @param ruleInterner the interning table of the plans
+	 * @param limit the maximum entry count of each plan cache, negative means no limit.
+	 */
+	public GroupSequences( RuleInterner ruleInterner, int limit ) {
+		this.ruleInterner = ruleInterner;
+		this.limit = limit;
+	}
+	
+	/**
+	 * Get the validation plans of an application context
+	 * 
+	 * @param context the context-scoped validator instance, can be {@code null}.
+	 * @return the plans of the context, the plans are not cached without a context.
+	 */
+	public static GroupSequences of( @Nullable ValidatorContext context ) {
+		return context == null ? uncached : context.getGroupSequences();
+	}
+	
+	/**
+	 * @return the statistics of the validation plan cache
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return cacheStatistics;
+	}
+	
+	/**
+	 * Get the validation plan of the specified groups, validation hints that are
+	 * not classes are ignored.
+	 * 
+	 * @param groups the validation groups or hints
+	 * @return the validation stages in order, empty only if all groups are
+	 *         {@link ReportOnly} groups.
+	 */
+	public Class<?> [][] getPlan( Object ... groups ) {
+		if ( groups == null || groups.length == 0 ) {
+			return DEFAULT_PLAN;
+		}
+		Class<?> [][] plan = plans.get( Arrays.asList( groups ) );
+		if ( plan != null ) {
+			cacheStatistics.hit();
+		} else {
+			cacheStatistics.miss();
+			plan = ruleInterner.intern( expand( groups, false ) ); // Shared by equal plans
+			// The caller may reuse the array, so the key must be a copy
+			MetadataCaches.put( plans, Arrays.asList( groups.clone() ), plan, limit );
+		}
+		return plan;
+	}
+	
+	/**
+	 * Get the validation plan of the {@link ReportOnly} groups among the
+	 * specified groups.
+	 * 
+	 * @param groups the validation groups or hints
+	 * @return the validation stages in order, {@code null} if there are no report-only groups.
+	 */
+	public Class<?> [][] getReportOnlyPlan( Object ... groups ) {
+		if ( groups == null || groups.length == 0 ) {
+			return null;
+		}
+		Class<?> [][] plan = reportOnlyPlans.get( Arrays.asList( groups ) );
+		if ( plan == null ) {
+			plan = ruleInterner.intern( expand( groups, true ) );
+			MetadataCaches.put( reportOnlyPlans, Arrays.asList( groups.clone() ), plan, limit );
+		}
+		return plan == EMPTY_PLAN ? null : plan;
+	}
+	
+	/**
+	 * Discard the cached plans, the plans are expanded again when they are
+	 * used next time.
+	 */
+	public void clear() {
+		plans.clear();
+		reportOnlyPlans.clear();
+		cacheStatistics.reset();
+	}
+	
+	/**
+	 * Whether the groups contain the {@link PartialUpdate} marker
+	 * 
+	 * @param groups the validation groups or hints
+	 * @return {@code true} if only the bound properties are reported
+	 */
+	public static boolean isPartial( Object ... groups ) {
+		if ( groups != null ) {
+			for ( Object group : groups ) {
+				if ( group == PartialUpdate.class ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Expand the groups into validation stages
+	 * 
+	 * @param groups the validation groups or hints
+	 * @param reportOnly {@code true} to expand the report-only groups, {@code false} to expand the others.
+	 * @return the validation stages in order
+	 */
+	private static Class<?> [][] expand( Object [] groups, boolean reportOnly ) {
+		List<Class<?>> ordinary = new ArrayList<Class<?>>( groups.length );
+		List<Class<?> []> sequences = new ArrayList<Class<?> []>( 4 );
+		boolean excluded = false;
+		for ( Object group : groups ) {
+			if ( group instanceof Class && group != PartialUpdate.class ) {
+				Class<?> groupType = ( Class<?> ) group;
+				if ( groupType.isAnnotationPresent( ReportOnly.class ) != reportOnly ) {
+					excluded = true;
+				} else if ( groupType.isAnnotationPresent( GroupSequence.class ) ) {
+					expandSequence( groupType, new LinkedHashSet<Class<?>>(), sequences );
+				} else {
+					ordinary.add( groupType );
+				}
+			}
+		}
+		if ( sequences.isEmpty() ) {
+			if ( ordinary.isEmpty() ) {
+				// Nothing is left if all groups belong to the other mode
+				return excluded || reportOnly ? EMPTY_PLAN : DEFAULT_PLAN;
+			}
+			return new Class<?> [][] { ordinary.toArray( new Class<?> [ ordinary.size() ] ) };
+		}
+		if ( !ordinary.isEmpty() ) {
+			sequences.add( 0, ordinary.toArray( new Class<?> [ ordinary.size() ] ) );
+		}
+		return sequences.toArray( new Class<?> [ sequences.size() ][] );
+	}
+	
+	/**
+	 * Expand a group sequence recursively, each group of the sequence becomes
+	 * a separate stage.
+	 * 
+	 * @param sequence the group type annotated with {@link GroupSequence}
+	 * @param expanding the sequences being expanded, used to detect cycles
+	 * @param stages the expanded stages
+	 */
+	private static void expandSequence( Class<?> sequence, Set<Class<?>> expanding, List<Class<?> []> stages ) {
+		if ( !expanding.add( sequence ) ) {
+			throw new IllegalStateException( "Cyclic group sequence definition: " + expanding + " -> " + sequence.getName() );
+		}
+		for ( Class<?> group : sequence.getAnnotation( GroupSequence.class ).value() ) {
+			if ( group.isAnnotationPresent( GroupSequence.class ) ) {
+				expandSequence( group, expanding, stages );
+			} else {
+				stages.add( new Class<?> [] { group } );
+			}
+		}
+		expanding.remove( sequence );
+	}
+	
+}
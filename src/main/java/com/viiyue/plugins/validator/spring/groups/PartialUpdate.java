@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.groups;
+
+/**
+ * Marker group for partial-update endpoints (such as {@code PATCH} requests).
+ * When it is present in {@code @Validated}, a request is only rejected for
+ * the properties that were bound from the request (and their parent and child
+ * paths): the rejections of the other properties are not reported and do not
+ * stop the following stages of a {@link GroupSequence}, and
+ * {@code @BatchRule} handlers are only invoked for the bound properties. The
+ * marker itself is not a validation group.
+ * 
+ * <pre>
+ * public String patch( &#64;Validated( { PartialUpdate.class, Update.class } ) User user ) { ... }
+ * </pre>
+ * 
+ * <p>
+ * Targets that were not bound from request parameters (such as
+ * {@code @RequestBody}) are validated and reported as a whole.
+ * 
+ * <p>
+ * The marker decides which rejections count, it does not select the rules
+ * that are evaluated: validator-lite validates a java bean as a whole.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public interface PartialUpdate {
+
+}
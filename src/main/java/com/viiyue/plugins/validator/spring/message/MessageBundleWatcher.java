@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.message;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+
+import com.viiyue.plugins.validator.spring.utils.ExecutorUtils;
+
+/**
+ * Validator message bundles that are watched for changes on a background
+ * thread. The bundles are loaded into a message source that never checks the
+ * file system by itself, and on change a new message source is loaded and
+ * warmed up off the request path and then swapped in atomically, so message
+ * resolution on request threads never touches the file system.
+ * 
+ * <p>
+ * Only bundles located in a file system directory can be watched, bundles
+ * packaged in a jar file are loaded once and never change.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see SpringMessageResovler
+ */
+public class MessageBundleWatcher implements Closeable {
+	
+	private static final Logger log = LoggerFactory.getLogger( MessageBundleWatcher.class );
+	private static final long QUIET_PERIOD_MILLIS = 200;
+
+	private final String defaultEncoding;
+	private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+	private final CopyOnWriteArrayList<String> basenames = new CopyOnWriteArrayList<String>();
+	private final Set<Locale> knownLocales = ConcurrentHashMap.newKeySet();
+	private final Map<Path, Set<String>> watchedDirectories = new ConcurrentHashMap<Path, Set<String>>();
+	private final AtomicReference<ReloadableResourceBundleMessageSource> current = new AtomicReference<ReloadableResourceBundleMessageSource>();
+	private final WatchService watchService;
+	private final Thread watchThread;
+	
+	public MessageBundleWatcher( @Nullable String defaultEncoding ) throws IOException {
+		this.defaultEncoding = defaultEncoding;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.current.set( newMessageSource() );
+		this.watchThread = ExecutorUtils.newThreadFactory( "validator-lite-bundle-watcher-" ).newThread( this::watch );
+		this.watchThread.start();
+	}
+	
+	/**
+	 * Add bundles to be watched
+	 * 
+	 * @param names the bundle base names, such as {@code classpath:validator/messages}.
+	 */
+	public void addBasenames( String ... names ) {
+		boolean added = false;
+		for ( String basename : names ) {
+			if ( basenames.addIfAbsent( basename ) ) {
+				register( basename );
+				added = true;
+			}
+		}
+		if ( added ) {
+			reload();
+		}
+	}
+	
+	/**
+	 * Resolve a message from the current snapshot of the watched bundles
+	 * 
+	 * @param key the message key
+	 * @param locale the message locale
+	 * @return the resolved message, {@code null} if not found.
+	 */
+	@Nullable
+	public String getMessage( String key, Locale locale ) {
+		knownLocales.add( locale );
+		// A null default message resolves a miss to null without throwing an exception
+		return current.get().getMessage( key, ArrayUtils.EMPTY_OBJECT_ARRAY, null, locale );
+	}
+	
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+		watchThread.interrupt();
+	}
+	
+	/**
+	 * Load a new message source with all bundles, warm it up for every locale
+	 * used so far, and then swap it in.
+	 */
+	private void reload() {
+		ReloadableResourceBundleMessageSource messageSource = newMessageSource();
+		for ( Locale locale : knownLocales ) {
+			messageSource.getMessage( StringUtils.EMPTY, ArrayUtils.EMPTY_OBJECT_ARRAY, StringUtils.EMPTY, locale );
+		}
+		current.set( messageSource );
+	}
+	
+	private ReloadableResourceBundleMessageSource newMessageSource() {
+		ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+		messageSource.setBasenames( basenames.toArray( new String[ 0 ] ) );
+		messageSource.setDefaultEncoding( defaultEncoding );
+		messageSource.setFallbackToSystemLocale( false );
+		messageSource.setUseCodeAsDefaultMessage( false );
+		messageSource.setCacheSeconds( -1 ); // Never check the file system again
+		return messageSource;
+	}
+	
+	private void register( String basename ) {
+		int separator = basename.lastIndexOf( '/' );
+		String location = basename.substring( 0, separator + 1 );
+		String filePrefix = basename.substring( separator + 1 );
+		Resource resource = resourceLoader.getResource( location );
+		try {
+			if ( resource.exists() ) {
+				File directory = resource.getFile();
+				if ( directory.isDirectory() ) {
+					Path path = directory.toPath();
+					path.register( watchService, StandardWatchEventKinds.ENTRY_CREATE, 
+							StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE );
+					watchedDirectories.computeIfAbsent( path, key -> ConcurrentHashMap.newKeySet() ).add( filePrefix );
+				}
+			}
+		} catch ( IOException e ) {
+			log.debug( "Message bundle '{}' is not located in the file system and will not be watched", basename );
+		}
+	}
+	
+	private void watch() {
+		try {
+			while ( true ) {
+				WatchKey key = watchService.take();
+				boolean changed = isBundleChanged( key );
+				// Wait for the editor or deployment to finish writing
+				while ( ( key = watchService.poll( QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS ) ) != null ) {
+					changed |= isBundleChanged( key );
+				}
+				if ( changed ) {
+					reload();
+					log.info( "Validator message bundles have been reloaded" );
+				}
+			}
+		} catch ( InterruptedException | ClosedWatchServiceException e ) {
+			// Closed
+		} catch ( RuntimeException e ) {
+			log.error( "Validator message bundle watcher stopped unexpectedly", e );
+		}
+	}
+	
+	private boolean isBundleChanged( WatchKey key ) {
+		boolean changed = false;
+		Set<String> filePrefixes = watchedDirectories.get( ( Path ) key.watchable() );
+		for ( WatchEvent<?> event : key.pollEvents() ) {
+			Object context = event.context();
+			if ( filePrefixes != null && context instanceof Path ) {
+				String fileName = context.toString();
+				for ( String filePrefix : filePrefixes ) {
+					if ( fileName.startsWith( filePrefix ) && ( fileName.endsWith( ".properties" ) || fileName.endsWith( ".xml" ) ) ) {
+						changed = true;
+					}
+				}
+			}
+		}
+		key.reset();
+		return changed;
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package com.viiyue.plugins.validator.spring.message;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -33,6 +34,8 @@ import com.viiyue.plugins.validator.scripting.configuration.ContextConfigurion;
 import com.viiyue.plugins.validator.scripting.configuration.MessageResource;
 import com.viiyue.plugins.validator.scripting.message.DefaultMessageResolver;
 import com.viiyue.plugins.validator.scripting.message.MessageResolver;
+import com.viiyue.plugins.validator.spring.metrics.FlightRecorderSupport;
+import com.viiyue.plugins.validator.spring.metrics.MessageResolutionEvent;
 import com.viiyue.plugins.validator.utils.Assert;
 
 /**
@@ -48,21 +51,66 @@ import com.viiyue.plugins.validator.utils.Assert;
 public class SpringMessageResovler implements MessageResolver {
 	
 	private final String keyPrefix;
-	private final MessageSource messageSource;
-	private Locale defaultLocale;
-	private ContextConfigurion configuration;
+	private volatile MessageSource messageSource; // Updated in 1.0.5
+	private volatile Locale defaultLocale; // Updated in 1.0.5
+	private volatile ContextConfigurion configuration; // Updated in 1.0.5
+	
+	// Added in 1.0.5
+	private volatile MessageBundleWatcher bundleWatcher;
 	
 	public SpringMessageResovler( MessageSource messageSource ) {
 		this.messageSource = messageSource;
 		this.keyPrefix = Constants.DEFAULT_MESSAGE_KEY_PREFIX + ".";
 	}
+	
+	/**
+	 * Watch the validator message bundles for changes on a background thread,
+	 * instead of letting the message source check the last-modified time of
+	 * the files on the request path. The watched bundles are not added to the
+	 * message source of the application, and the validator keys are only
+	 * resolved from them, a missing key resolves to its default message. Must
+	 * be called before any bundle is added.
+	 * 
+	 * @param defaultEncoding the encoding of the bundle files
+	 * @throws IOException if the file system watch service cannot be created
+	 * @since 1.0.5
+	 */
+	public void enableBundleWatching( @Nullable String defaultEncoding ) throws IOException {
+		if ( bundleWatcher == null ) {
+			this.bundleWatcher = new MessageBundleWatcher( defaultEncoding );
+		}
+	}
+	
+	/**
+	 * Stop watching the validator message bundles
+	 * 
+	 * @throws IOException if the file system watch service cannot be closed
+	 * @since 1.0.5
+	 */
+	public void disableBundleWatching() throws IOException {
+		MessageBundleWatcher watcher = bundleWatcher;
+		if ( watcher != null ) {
+			bundleWatcher = null;
+			watcher.close();
+		}
+	}
+
+	/**
+	 * Release the message source of the closed application context. The
+	 * static validator keeps referencing this resolver until another context
+	 * replaces it, messages are then resolved to their default values.
+	 * 
+	 * @since 1.0.5
+	 */
+	public void release() {
+		this.messageSource = null;
+		this.configuration = null;
+	}
 
 	@Override
 	public Locale getDefaultLocale() {
-		if ( defaultLocale == null ) {
-			this.defaultLocale = Locale.getDefault();
-		}
-		return defaultLocale;
+		Locale locale = defaultLocale;
+		return locale == null ? Locale.getDefault() : locale;
 	}
 	
 	@Override
@@ -88,14 +136,25 @@ public class SpringMessageResovler implements MessageResolver {
 	
 	@Override
 	public void addResourceBundle( String resourceName, @Nullable String ... preloadings ) {
-		if ( messageSource != null && messageSource instanceof AbstractResourceBasedMessageSource ) {
+		// The watched bundles are kept out of the message source, which may poll the file system (Updated in 1.0.5)
+		MessageBundleWatcher watcher = bundleWatcher;
+		if ( watcher != null ) {
+			watcher.addBasenames( getWatchedResourceName( resourceName ) );
+		} else if ( messageSource != null && messageSource instanceof AbstractResourceBasedMessageSource ) {
 			( ( AbstractResourceBasedMessageSource ) messageSource ).addBasenames( getResourceName( resourceName ) );
 		}
 	}
 
 	@Override
 	public void addResourceBundles( List<MessageResource> resources ) {
-		if ( messageSource != null && messageSource instanceof AbstractResourceBasedMessageSource ) {
+		MessageBundleWatcher watcher = bundleWatcher;
+		if ( watcher != null ) {
+			String [] resourceNames = new String[ resources.size() ];
+			for ( int i = 0; i < resourceNames.length; i ++ ) {
+				resourceNames[ i ] = getWatchedResourceName( resources.get( i ).getBaseName() );
+			}
+			watcher.addBasenames( resourceNames );
+		} else if ( messageSource != null && messageSource instanceof AbstractResourceBasedMessageSource ) {
 			AbstractResourceBasedMessageSource rbms = ( ( AbstractResourceBasedMessageSource ) messageSource );
 			for ( MessageResource messageResource : resources ) {
 				rbms.addBasenames( getResourceName( messageResource.getBaseName() ) );
@@ -125,7 +184,19 @@ public class SpringMessageResovler implements MessageResolver {
 
 	@Override
 	public String resolve( String key, @Nullable Locale locale, @Nullable String defaultValue ) {
-		return messageSource.getMessage( key, ArrayUtils.EMPTY_OBJECT_ARRAY, defaultValue, ObjectUtils.defaultIfNull( locale, getDefaultLocale() ) );
+		Locale messageLocale = ObjectUtils.defaultIfNull( locale, getDefaultLocale() );
+		MessageResolutionEvent event = FlightRecorderSupport.AVAILABLE ? MessageResolutionEvent.start() : null;
+		MessageBundleWatcher watcher = bundleWatcher;
+		String message = watcher == null ? null : watcher.getMessage( key, messageLocale );
+		if ( message == null ) {
+			// The watched bundles own the validator keys, a miss must not reach the file system
+			MessageSource source = watcher != null && key.startsWith( keyPrefix ) ? null : messageSource;
+			message = source == null ? defaultValue : source.getMessage( key, ArrayUtils.EMPTY_OBJECT_ARRAY, defaultValue, messageLocale );
+		}
+		if ( event != null ) {
+			event.finish( key, messageLocale, message != null && !message.equals( defaultValue ) );
+		}
+		return message;
 	}
 	
 	public String getResourceName( String resourceName ) {
@@ -134,5 +205,9 @@ public class SpringMessageResovler implements MessageResolver {
 		}
 		return resourceName;
 	}
+	
+	private String getWatchedResourceName( String resourceName ) {
+		return "classpath:" + StringUtils.replace( resourceName, ".", "/" );
+	}
 
 }
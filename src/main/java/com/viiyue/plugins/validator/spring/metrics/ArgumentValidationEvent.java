@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.lang.reflect.Method;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of handler method parameter validation
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+@Name( "com.viiyue.plugins.validator.ArgumentValidation" )
+@Label( "Argument Validation" )
+@Category( FlightRecorderSupport.CATEGORY )
+@StackTrace( false )
+public class ArgumentValidationEvent extends Event {
+	
+	private static final ArgumentValidationEvent PROBE = new ArgumentValidationEvent();
+
+	@Label( "Handler Type" )
+	private Class<?> handlerType;
+	
+	@Label( "Method" )
+	private String method;
+
+	@Label( "Parameter" )
+	private String parameter;
+
+	@Label( "Passed" )
+	private boolean passed;
+
+	@Label( "Error Count" )
+	private int errorCount;
+	
+	/**
+	 * Begin a new event
+	 * 
+	 * @return the started event, {@code null} if the event is not enabled.
+	 */
+	public static ArgumentValidationEvent start() {
+		if ( !PROBE.isEnabled() ) {
+			return null;
+		}
+		ArgumentValidationEvent event = new ArgumentValidationEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * End and commit the event
+	 * 
+	 * @param method the handler method
+	 * @param parameter the parameter name
+	 * @param passed whether the parameter passed the validation
+	 * @param errorCount the number of rejected rules
+	 */
+	public void finish( Method method, String parameter, boolean passed, int errorCount ) {
+		end();
+		if ( shouldCommit() ) {
+			this.handlerType = method.getDeclaringClass();
+			this.method = method.getName();
+			this.parameter = parameter;
+			this.passed = passed;
+			this.errorCount = errorCount;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of java bean validation
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+@Name( "com.viiyue.plugins.validator.BeanValidation" )
+@Label( "Bean Validation" )
+@Category( FlightRecorderSupport.CATEGORY )
+@StackTrace( false )
+public class BeanValidationEvent extends Event {
+	
+	private static final BeanValidationEvent PROBE = new BeanValidationEvent();
+
+	@Label( "Bean Type" )
+	private Class<?> beanType;
+
+	@Label( "Passed" )
+	private boolean passed;
+
+	@Label( "Error Count" )
+	private int errorCount;
+	
+	/**
+	 * Begin a new event
+	 * 
+	 * @return the started event, {@code null} if the event is not enabled.
+	 */
+	public static BeanValidationEvent start() {
+		if ( !PROBE.isEnabled() ) {
+			return null;
+		}
+		BeanValidationEvent event = new BeanValidationEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * End and commit the event
+	 * 
+	 * @param beanType the validated bean type
+	 * @param passed whether the bean passed the validation
+	 * @param errorCount the number of binding errors
+	 */
+	public void finish( Class<?> beanType, boolean passed, int errorCount ) {
+		end();
+		if ( shouldCommit() ) {
+			this.beanType = beanType;
+			this.passed = passed;
+			this.errorCount = errorCount;
+			commit();
+		}
+	}
+
+}
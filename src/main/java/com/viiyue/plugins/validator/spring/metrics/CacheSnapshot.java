@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time view of {@link CacheStatistics}
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class CacheSnapshot {
+
+	private final int size;
+	private final long hits;
+	private final long misses;
+	private final double hitRate;
+
+	@ConstructorProperties( { "size", "hits", "misses", "hitRate" } )
+	public CacheSnapshot( int size, long hits, long misses, double hitRate ) {
+		this.size = size;
+		this.hits = hits;
+		this.misses = misses;
+		this.hitRate = hitRate;
+	}
+	
+	public static CacheSnapshot of( CacheStatistics statistics ) {
+		return new CacheSnapshot( statistics.getSize(), statistics.getHits(), statistics.getMisses(), statistics.getHitRate() );
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public double getHitRate() {
+		return hitRate;
+	}
+
+}
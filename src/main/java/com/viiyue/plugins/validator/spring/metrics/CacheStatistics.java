@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss statistics of an integration-level metadata cache
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class CacheStatistics {
+
+	private final Map<?, ?> cache;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	
+	public CacheStatistics( Map<?, ?> cache ) {
+		this.cache = cache;
+	}
+	
+	public void hit() {
+		hits.increment();
+	}
+	
+	public void miss() {
+		misses.increment();
+	}
+	
+	public int getSize() {
+		return cache.size();
+	}
+	
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	public long getMisses() {
+		return misses.sum();
+	}
+	
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0D : ( double ) hitCount / total;
+	}
+	
+	public void reset() {
+		hits.reset();
+		misses.reset();
+	}
+
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Java Flight Recorder support. The validation event classes can only be
+ * loaded when the running JVM provides the {@code jdk.jfr} API, so every
+ * event must be guarded by {@link #AVAILABLE}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public final class FlightRecorderSupport {
+	
+	public static final String CATEGORY = "Validator Lite";
+	
+	public static final boolean AVAILABLE = ClassUtils.isPresent( "jdk.jfr.Event", FlightRecorderSupport.class.getClassLoader() );
+	
+	private FlightRecorderSupport() {}
+
+}
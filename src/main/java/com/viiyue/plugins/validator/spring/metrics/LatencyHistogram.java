@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in nanoseconds. Values are recorded into
+ * log-linear buckets (8 sub-buckets for each power of two), so the relative
+ * error of any percentile is no more than 12.5%, and recording is a single
+ * atomic increment without any allocation.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class LatencyHistogram {
+	
+	private static final int LINEAR_BUCKETS = 16;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = LINEAR_BUCKETS + ( 63 - 4 ) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Record a latency value
+	 * 
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record( long nanos ) {
+		if ( nanos < 0 ) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet( bucketIndex( nanos ) );
+		count.increment();
+		sum.add( nanos );
+		long current;
+		while ( nanos > ( current = max.get() ) && !max.compareAndSet( current, nanos ) );
+	}
+	
+	public long getCount() {
+		return count.sum();
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	public long getMean() {
+		long total = count.sum();
+		return total == 0 ? 0 : sum.sum() / total;
+	}
+	
+	/**
+	 * Get the value at the specified percentile
+	 * 
+	 * @param percentile the percentile, between {@code 0} and {@code 100}.
+	 * @return the upper bound of the bucket that the percentile falls in
+	 */
+	public long getValueAtPercentile( double percentile ) {
+		long [] snapshot = new long[ BUCKET_COUNT ];
+		long total = 0;
+		for ( int i = 0; i < BUCKET_COUNT; i ++ ) {
+			total += ( snapshot[ i ] = buckets.get( i ) );
+		}
+		if ( total == 0 ) {
+			return 0;
+		}
+		long rank = Math.max( 1, ( long ) Math.ceil( total * Math.min( percentile, 100D ) / 100D ) );
+		long seen = 0;
+		for ( int i = 0; i < BUCKET_COUNT; i ++ ) {
+			if ( ( seen += snapshot[ i ] ) >= rank ) {
+				return Math.min( bucketUpperBound( i ), getMax() );
+			}
+		}
+		return getMax();
+	}
+	
+	public void reset() {
+		for ( int i = 0; i < BUCKET_COUNT; i ++ ) {
+			buckets.set( i, 0 );
+		}
+		count.reset();
+		sum.reset();
+		max.set( 0 );
+	}
+	
+	private static int bucketIndex( long value ) {
+		if ( value < LINEAR_BUCKETS ) {
+			return ( int ) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros( value );
+		int subBucket = ( int ) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+		return LINEAR_BUCKETS + ( exponent - 4 ) * SUB_BUCKETS + subBucket;
+	}
+	
+	private static long bucketUpperBound( int index ) {
+		if ( index < LINEAR_BUCKETS ) {
+			return index;
+		}
+		int exponent = ( index - LINEAR_BUCKETS ) / SUB_BUCKETS + 4;
+		int subBucket = ( index - LINEAR_BUCKETS ) % SUB_BUCKETS;
+		long width = 1L << ( exponent - SUB_BUCKET_BITS );
+		return ( ( SUB_BUCKETS + subBucket ) * width ) + width - 1;
+	}
+
+}
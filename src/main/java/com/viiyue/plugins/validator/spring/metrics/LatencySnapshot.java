@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time view of a {@link LatencyHistogram}, all latencies are in
+ * microseconds.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class LatencySnapshot {
+
+	private final long count;
+	private final long mean;
+	private final long p50;
+	private final long p99;
+	private final long p999;
+	private final long max;
+
+	@ConstructorProperties( { "count", "mean", "p50", "p99", "p999", "max" } )
+	public LatencySnapshot( long count, long mean, long p50, long p99, long p999, long max ) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+	
+	public static LatencySnapshot of( LatencyHistogram histogram ) {
+		return new LatencySnapshot( 
+			histogram.getCount(),
+			histogram.getMean() / 1000,
+			histogram.getValueAtPercentile( 50 ) / 1000,
+			histogram.getValueAtPercentile( 99 ) / 1000,
+			histogram.getValueAtPercentile( 99.9 ) / 1000,
+			histogram.getMax() / 1000 
+		);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMean() {
+		return mean;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getP999() {
+		return p999;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of validation message resolution
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+@Name( "com.viiyue.plugins.validator.MessageResolution" )
+@Label( "Message Resolution" )
+@Category( FlightRecorderSupport.CATEGORY )
+@StackTrace( false )
+public class MessageResolutionEvent extends Event {
+	
+	private static final MessageResolutionEvent PROBE = new MessageResolutionEvent();
+
+	@Label( "Key" )
+	private String key;
+
+	@Label( "Locale" )
+	private String locale;
+
+	@Label( "Resolved" )
+	private boolean resolved;
+	
+	/**
+	 * Begin a new event
+	 * 
+	 * @return the started event, {@code null} if the event is not enabled.
+	 */
+	public static MessageResolutionEvent start() {
+		if ( !PROBE.isEnabled() ) {
+			return null;
+		}
+		MessageResolutionEvent event = new MessageResolutionEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * End and commit the event
+	 * 
+	 * @param key the message key
+	 * @param locale the message locale
+	 * @param resolved whether the message was found
+	 */
+	public void finish( String key, Locale locale, boolean resolved ) {
+		end();
+		if ( shouldCommit() ) {
+			this.key = key;
+			this.locale = locale == null ? null : locale.toLanguageTag();
+			this.resolved = resolved;
+			commit();
+		}
+	}
+
+}
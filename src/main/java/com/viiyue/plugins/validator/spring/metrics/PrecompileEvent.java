@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of validation rule precompilation
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+@Name( "com.viiyue.plugins.validator.Precompile" )
+@Label( "Validation Precompile" )
+@Category( FlightRecorderSupport.CATEGORY )
+@StackTrace( false )
+public class PrecompileEvent extends Event {
+	
+	private static final PrecompileEvent PROBE = new PrecompileEvent();
+
+	@Label( "Method Count" )
+	private int methodCount;
+
+	@Label( "Type Count" )
+	private int typeCount;
+	
+	/**
+	 * Begin a new event
+	 * 
+	 * @return the started event, {@code null} if the event is not enabled.
+	 */
+	public static PrecompileEvent start() {
+		if ( !PROBE.isEnabled() ) {
+			return null;
+		}
+		PrecompileEvent event = new PrecompileEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * End and commit the event
+	 * 
+	 * @param methodCount the number of precompiled handler methods
+	 * @param typeCount the number of precompiled java bean types
+	 */
+	public void finish( int methodCount, int typeCount ) {
+		end();
+		if ( shouldCommit() ) {
+			this.methodCount = methodCount;
+			this.typeCount = typeCount;
+			commit();
+		}
+	}
+
+}
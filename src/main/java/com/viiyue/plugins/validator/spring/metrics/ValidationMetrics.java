@@ -0,0 +1,243 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validation diagnostics of the plugin, including precompilation statistics,
+ * validation latency of each handler method and java bean type, the most
+ * frequently rejected rules, integration-level cache statistics, and the
+ * outcomes of report-only validations.
+ * 
+ * <p>
+ * All recording methods are lock-free and can be called concurrently from
+ * request threads.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationMetrics implements ValidationMetricsMXBean {
+	
+	private static final int TOP_REJECTED_RULES = 20;
+
+	private final Map<Object, LatencyHistogram> latencies = new ConcurrentHashMap<Object, LatencyHistogram>( 256 );
+	private final Map<String, LongAdder> rejectedRules = new ConcurrentHashMap<String, LongAdder>( 64 );
+	private final Map<String, CacheStatistics> caches = new ConcurrentHashMap<String, CacheStatistics>( 8 );
+	private final Map<String, LongAdder> reportOnlyRules = new ConcurrentHashMap<String, LongAdder>( 64 );
+	private final LongAdder reportOnlyPassed = new LongAdder();
+	private final LongAdder reportOnlyRejected = new LongAdder();
+	private final LongAdder reportOnlyDropped = new LongAdder();
+	
+	private volatile int precompiledMethodCount;
+	private volatile int precompiledTypeCount;
+	private volatile long precompileTimeMillis;
+	
+	/**
+	 * Record the result of precompilation
+	 * 
+	 * @param methodCount the number of precompiled handler methods
+	 * @param typeCount the number of precompiled java bean types
+	 * @param timeMillis the time taken in milliseconds
+	 */
+	public void recordPrecompile( int methodCount, int typeCount, long timeMillis ) {
+		this.precompiledMethodCount = methodCount;
+		this.precompiledTypeCount = typeCount;
+		this.precompileTimeMillis = timeMillis;
+	}
+	
+	/**
+	 * Record the parameter validation latency of a handler method
+	 * 
+	 * @param method the handler method
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void recordLatency( Method method, long nanos ) {
+		getHistogram( method ).record( nanos );
+	}
+	
+	/**
+	 * Record the validation latency of a java bean type
+	 * 
+	 * @param beanType the java bean type
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void recordLatency( Class<?> beanType, long nanos ) {
+		getHistogram( beanType ).record( nanos );
+	}
+	
+	/**
+	 * Record a rejected rule
+	 * 
+	 * @param rule the rule error code
+	 */
+	public void recordRejected( String rule ) {
+		increment( rejectedRules, rule );
+	}
+	
+	/**
+	 * Record the outcome of a report-only validation
+	 * 
+	 * @param rules the rejected rule error codes, empty if passed.
+	 */
+	public void recordReportOnly( List<String> rules ) {
+		if ( rules.isEmpty() ) {
+			reportOnlyPassed.increment();
+		} else {
+			reportOnlyRejected.increment();
+			for ( String rule : rules ) {
+				increment( reportOnlyRules, rule );
+			}
+		}
+	}
+	
+	/**
+	 * Record a report-only validation dropped under backpressure, or because
+	 * the argument cannot be copied
+	 */
+	public void recordReportOnlyDropped() {
+		reportOnlyDropped.increment();
+	}
+	
+	/**
+	 * Register a cache to be monitored
+	 * 
+	 * @param name the cache name
+	 * @param statistics the cache statistics
+	 */
+	public void registerCache( String name, CacheStatistics statistics ) {
+		caches.put( name, statistics );
+	}
+	
+	@Override
+	public int getPrecompiledMethodCount() {
+		return precompiledMethodCount;
+	}
+
+	@Override
+	public int getPrecompiledTypeCount() {
+		return precompiledTypeCount;
+	}
+
+	@Override
+	public long getPrecompileTimeMillis() {
+		return precompileTimeMillis;
+	}
+	
+	@Override
+	public Map<String, LatencySnapshot> getLatencies() {
+		Map<String, LatencySnapshot> snapshots = new TreeMap<String, LatencySnapshot>();
+		for ( Entry<Object, LatencyHistogram> entry : latencies.entrySet() ) {
+			snapshots.put( getName( entry.getKey() ), LatencySnapshot.of( entry.getValue() ) );
+		}
+		return snapshots;
+	}
+
+	@Override
+	public Map<String, Long> getTopRejectedRules() {
+		return top( rejectedRules );
+	}
+
+	@Override
+	public Map<String, Long> getReportOnlyCounts() {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>( 4 );
+		counts.put( "passed", reportOnlyPassed.sum() );
+		counts.put( "rejected", reportOnlyRejected.sum() );
+		counts.put( "dropped", reportOnlyDropped.sum() );
+		return counts;
+	}
+
+	@Override
+	public Map<String, Long> getTopReportOnlyRejectedRules() {
+		return top( reportOnlyRules );
+	}
+
+	@Override
+	public Map<String, CacheSnapshot> getCaches() {
+		Map<String, CacheSnapshot> snapshots = new TreeMap<String, CacheSnapshot>();
+		for ( Entry<String, CacheStatistics> entry : caches.entrySet() ) {
+			snapshots.put( entry.getKey(), CacheSnapshot.of( entry.getValue() ) );
+		}
+		return snapshots;
+	}
+
+	@Override
+	public void reset() {
+		latencies.clear();
+		rejectedRules.clear();
+		reportOnlyRules.clear();
+		reportOnlyPassed.reset();
+		reportOnlyRejected.reset();
+		reportOnlyDropped.reset();
+		for ( CacheStatistics statistics : caches.values() ) {
+			statistics.reset();
+		}
+	}
+	
+	private void increment( Map<String, LongAdder> counters, String rule ) {
+		if ( rule != null ) {
+			LongAdder counter = counters.get( rule );
+			if ( counter == null ) {
+				counter = counters.computeIfAbsent( rule, key -> new LongAdder() );
+			}
+			counter.increment();
+		}
+	}
+	
+	private Map<String, Long> top( Map<String, LongAdder> counters ) {
+		List<Entry<String, LongAdder>> entries = new ArrayList<Entry<String, LongAdder>>( counters.entrySet() );
+		entries.sort( ( a, b ) -> Long.compare( b.getValue().sum(), a.getValue().sum() ) );
+		Map<String, Long> top = new LinkedHashMap<String, Long>( TOP_REJECTED_RULES );
+		for ( Entry<String, LongAdder> entry : entries ) {
+			if ( top.size() >= TOP_REJECTED_RULES ) {
+				break;
+			}
+			top.put( entry.getKey(), entry.getValue().sum() );
+		}
+		return top;
+	}
+	
+	private LatencyHistogram getHistogram( Object key ) {
+		LatencyHistogram histogram = latencies.get( key );
+		if ( histogram == null ) {
+			histogram = latencies.computeIfAbsent( key, k -> new LatencyHistogram() );
+		}
+		return histogram;
+	}
+	
+	private String getName( Object key ) {
+		if ( key instanceof Method ) {
+			// Parameter types keep overloaded handler methods apart
+			Method method = ( Method ) key;
+			StringBuilder name = new StringBuilder( method.getDeclaringClass().getName() ).append( '#' ).append( method.getName() ).append( '(' );
+			Class<?> [] parameterTypes = method.getParameterTypes();
+			for ( int i = 0; i < parameterTypes.length; i ++ ) {
+				name.append( i == 0 ? "" : "," ).append( parameterTypes[ i ].getTypeName() );
+			}
+			return name.append( ')' ).toString();
+		}
+		return ( ( Class<?> ) key ).getName();
+	}
+
+}
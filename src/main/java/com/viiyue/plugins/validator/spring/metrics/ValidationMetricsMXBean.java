@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of validation diagnostics, registered to the platform
+ * MBean server by the plugin bean.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ValidationMetrics
+ */
+public interface ValidationMetricsMXBean {
+
+	/**
+	 * @return the number of precompiled handler methods
+	 */
+	int getPrecompiledMethodCount();
+
+	/**
+	 * @return the number of precompiled java bean types
+	 */
+	int getPrecompiledTypeCount();
+
+	/**
+	 * @return the time taken by precompilation in milliseconds
+	 */
+	long getPrecompileTimeMillis();
+
+	/**
+	 * @return the validation latency of each handler method and java bean type
+	 */
+	Map<String, LatencySnapshot> getLatencies();
+
+	/**
+	 * @return the most frequently rejected rules and their rejection counts
+	 */
+	Map<String, Long> getTopRejectedRules();
+
+	/**
+	 * @return the size and hit rate of each integration-level cache
+	 */
+	Map<String, CacheSnapshot> getCaches();
+
+	/**
+	 * @return the number of passed, rejected and dropped report-only validations
+	 */
+	Map<String, Long> getReportOnlyCounts();
+
+	/**
+	 * @return the rules most frequently rejected by report-only validations
+	 */
+	Map<String, Long> getTopReportOnlyRejectedRules();
+
+	/**
+	 * Clear all recorded latencies, rejection counts, cache statistics and
+	 * report-only outcomes
+	 */
+	void reset();
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing breakdown of a sampled request, each validated parameter and java
+ * bean is recorded as a separate segment.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ValidationTracer
+ */
+public class ValidationTrace {
+
+	private final List<Segment> segments = new ArrayList<Segment>( 8 );
+	private long totalNanos;
+	
+	/**
+	 * Record a validated segment, segments validated on the validation executor
+	 * can be recorded concurrently.
+	 * 
+	 * @param kind the segment kind, such as {@code parameter} or {@code bean}.
+	 * @param name the parameter name or the java bean type name
+	 * @param nanos the time taken in nanoseconds
+	 * @param rejected the rejected rules, or {@code null} if passed.
+	 */
+	public synchronized void record( String kind, String name, long nanos, String rejected ) {
+		segments.add( new Segment( kind, name, nanos, rejected ) );
+		totalNanos += nanos;
+	}
+	
+	public synchronized long getTotalNanos() {
+		return totalNanos;
+	}
+	
+	/**
+	 * Format the trace as a single structured log line
+	 * 
+	 * @param handler the handler name of the request
+	 * @return the formatted log line
+	 */
+	public synchronized String format( String handler ) {
+		StringBuilder sb = new StringBuilder( 64 + segments.size() * 48 );
+		sb.append( "handler=" ).append( handler );
+		sb.append( " total=" ).append( toMillis( totalNanos ) ).append( "ms" );
+		sb.append( " segments=[" );
+		for ( int i = 0, size = segments.size(); i < size; i ++ ) {
+			Segment segment = segments.get( i );
+			if ( i > 0 ) {
+				sb.append( ", " );
+			}
+			sb.append( segment.kind ).append( ':' ).append( segment.name );
+			sb.append( '=' ).append( toMillis( segment.nanos ) ).append( "ms" );
+			if ( segment.rejected != null ) {
+				sb.append( "(rejected=" ).append( segment.rejected ).append( ')' );
+			}
+		}
+		return sb.append( ']' ).toString();
+	}
+	
+	private String toMillis( long nanos ) {
+		return String.format( "%.3f", nanos / ( double ) TimeUnit.MILLISECONDS.toNanos( 1 ) );
+	}
+	
+	private static final class Segment {
+		
+		private final String kind;
+		private final String name;
+		private final long nanos;
+		private final String rejected;
+		
+		private Segment( String kind, String name, long nanos, String rejected ) {
+			this.kind = kind;
+			this.name = name;
+			this.nanos = nanos;
+			this.rejected = rejected;
+		}
+		
+	}
+
+}
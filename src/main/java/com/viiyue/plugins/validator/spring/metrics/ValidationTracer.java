@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+
+/**
+ * Sampled tracing of slow validation. A fraction of requests is sampled, the
+ * validation of each parameter and java bean of a sampled request is timed,
+ * and a single structured line with the timing breakdown is logged if the
+ * total time exceeds the threshold.
+ * 
+ * <p>
+ * A request that is not sampled only pays for one request attribute lookup
+ * and a single branch for each validation.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationTracer {
+	
+	private static final Logger log = LoggerFactory.getLogger( ValidationTracer.class );
+	private static final String TRACE = ValidationTracer.class.getName() + ".TRACE";
+	private static final Object NOT_SAMPLED = new Object();
+
+	private final double sampleRate;
+	private final long thresholdNanos;
+	
+	/**
+	 * @param sampleRate the sample rate, between {@code 0} and {@code 1}.
+	 * @param thresholdMillis only requests slower than this threshold are logged
+	 */
+	public ValidationTracer( double sampleRate, long thresholdMillis ) {
+		this.sampleRate = sampleRate;
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos( thresholdMillis );
+	}
+	
+	/**
+	 * Get the trace of the current request, the sampling decision is made on
+	 * the first call of each request.
+	 * 
+	 * @param attributes the spring request attributes
+	 * @return the trace of the current request, {@code null} if it is not sampled.
+	 */
+	@Nullable
+	public ValidationTrace begin( @Nullable RequestAttributes attributes ) {
+		if ( attributes == null ) {
+			return null;
+		}
+		Object trace = attributes.getAttribute( TRACE, RequestAttributes.SCOPE_REQUEST );
+		if ( trace == null ) {
+			trace = ThreadLocalRandom.current().nextDouble() < sampleRate ? new ValidationTrace() : NOT_SAMPLED;
+			attributes.setAttribute( TRACE, trace, RequestAttributes.SCOPE_REQUEST );
+		}
+		return trace == NOT_SAMPLED ? null : ( ValidationTrace ) trace;
+	}
+	
+	/**
+	 * Finish the trace of the current request, and log it if it is slow.
+	 * 
+	 * @param attributes the spring request attributes
+	 * @param handler the handler method of the request
+	 */
+	public void finish( RequestAttributes attributes, Method handler ) {
+		Object trace = attributes.getAttribute( TRACE, RequestAttributes.SCOPE_REQUEST );
+		if ( trace != null ) {
+			attributes.removeAttribute( TRACE, RequestAttributes.SCOPE_REQUEST );
+			if ( trace != NOT_SAMPLED && ( ( ValidationTrace ) trace ).getTotalNanos() >= thresholdNanos ) {
+				String handlerName = handler.getDeclaringClass().getName() + "#" + handler.getName();
+				log.warn( "Slow validation: {}", ( ( ValidationTrace ) trace ).format( handlerName ) );
+			}
+		}
+	}
+
+}
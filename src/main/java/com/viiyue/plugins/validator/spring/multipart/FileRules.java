@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.multipart;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import com.viiyue.plugins.validator.spring.regex.CompiledPattern;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+
+/**
+ * Upload rules of a multipart file part, evaluated from the part headers
+ * before any content of the part is stored. All rules are disabled by
+ * default.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ValidationMultipartResolver
+ */
+public class FileRules {
+	
+	private long maxSize = -1;
+	private String [] contentTypes;
+	private String filenameRegex;
+	private CompiledPattern filenamePattern;
+	private RegexEngine regexEngine = RegexEngines.jdk();
+	
+	public long getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * The maximum size of each file in bytes
+	 * 
+	 * @param maxSize the maximum file size, negative means no limit.
+	 */
+	public void setMaxSize( long maxSize ) {
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * The allowed content types, a subtype of {@code *} matches all subtypes,
+	 * such as {@code image/*}.
+	 * 
+	 * @param contentTypes the allowed content types
+	 */
+	public void setContentTypes( String ... contentTypes ) {
+		this.contentTypes = contentTypes;
+	}
+	
+	/**
+	 * The pattern that the original file name must match, for example
+	 * {@code [\w\-. ]+\.(png|jpg)}.
+	 * 
+	 * @param filenamePattern the regular expression of allowed file names
+	 */
+	public void setFilenamePattern( String filenamePattern ) {
+		this.filenameRegex = filenamePattern;
+		this.filenamePattern = RegexEngines.compile( regexEngine, filenamePattern, "file name" );
+	}
+	
+	/**
+	 * The engine of the file name pattern, the pattern is compiled again if
+	 * it is already set.
+	 * 
+	 * @param regexEngine the regular expression engine
+	 */
+	public void setRegexEngine( RegexEngine regexEngine ) {
+		this.regexEngine = regexEngine == null ? RegexEngines.jdk() : regexEngine;
+		setFilenamePattern( filenameRegex );
+	}
+	
+	/**
+	 * Check the headers of a file part
+	 * 
+	 * @param contentType the content type of the part
+	 * @param filename the original file name
+	 * @param declaredSize the size declared by the part headers, negative if unknown.
+	 * @return the rejection code, {@code null} if accepted.
+	 */
+	@Nullable
+	public String check( @Nullable String contentType, @Nullable String filename, long declaredSize ) {
+		if ( maxSize >= 0 && declaredSize > maxSize ) {
+			return "maxSize";
+		}
+		if ( contentTypes != null && !isAllowedContentType( contentType ) ) {
+			return "contentType";
+		}
+		if ( filenamePattern != null && ( filename == null || !filenamePattern.matches( filename ) ) ) {
+			return "filename";
+		}
+		return null;
+	}
+	
+	/**
+	 * Check the content type of a file part
+	 * 
+	 * @param contentType the content type of the part
+	 * @return {@code true} if the content type is allowed
+	 */
+	private boolean isAllowedContentType( @Nullable String contentType ) {
+		if ( !StringUtils.hasText( contentType ) ) {
+			return false;
+		}
+		// Ignore parameters such as charset
+		int index = contentType.indexOf( ';' );
+		String mimeType = ( index < 0 ? contentType : contentType.substring( 0, index ) ).trim();
+		for ( String allowed : contentTypes ) {
+			if ( allowed.endsWith( "/*" ) ) {
+				if ( mimeType.regionMatches( true, 0, allowed, 0, allowed.length() - 1 ) ) {
+					return true;
+				}
+			} else if ( mimeType.equalsIgnoreCase( allowed ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemHeaders;
+import org.apache.commons.fileupload.FileItemHeadersSupport;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletRequestContext;
+import org.springframework.util.StreamUtils;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.commons.CommonsMultipartResolver;
+
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.spring.exception.ValidatedException;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+
+/**
+ * Multipart resolver that validates the uploaded files while the multipart
+ * stream is parsed. The file count, content type, file name and declared size
+ * of each part are checked from the part headers before the part is stored,
+ * and the content is counted while it is copied, so an oversized file is
+ * rejected at the first byte over the limit instead of after being spooled to
+ * disk. The request size is checked against {@code Content-Length} by
+ * {@link #setMaxUploadSize(long)} before anything is read.
+ * 
+ * <pre>
+ * &lt;bean id="multipartResolver" class="com.viiyue.plugins.validator.spring.multipart.ValidationMultipartResolver"&gt;
+ *     &lt;property name="maxUploadSize" value="52428800"/&gt;
+ *     &lt;property name="maxFiles" value="5"/&gt;
+ *     &lt;property name="defaultRules"&gt;
+ *         &lt;bean class="com.viiyue.plugins.validator.spring.multipart.FileRules"&gt;
+ *             &lt;property name="maxSize" value="10485760"/&gt;
+ *             &lt;property name="contentTypes" value="image/*,application/pdf"/&gt;
+ *         &lt;/bean&gt;
+ *     &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * <p>
+ * Rejected uploads are reported as {@link ValidatedException}, error codes
+ * are resolved with the prefix {@value #ERROR_CODE_PREFIX}: {@code maxFiles},
+ * {@code maxSize}, {@code contentType} and {@code filename}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationMultipartResolver extends CommonsMultipartResolver {
+	
+	public static final String ERROR_CODE_PREFIX = Constants.DEFAULT_MESSAGE_KEY_PREFIX + ".multipart.";
+	private static final String OBJECT_NAME = "multipart";
+	
+	private int maxFiles = -1;
+	private FileRules defaultRules = new FileRules();
+	private Map<String, FileRules> fieldRules = new HashMap<String, FileRules>( 8 );
+	private RegexEngine regexEngine;
+	
+	/**
+	 * The maximum number of files of a single request
+	 * 
+	 * @param maxFiles the maximum file count, negative means no limit.
+	 */
+	public void setMaxFiles( int maxFiles ) {
+		this.maxFiles = maxFiles;
+	}
+	
+	/**
+	 * The rules of the file parts without field specific rules
+	 * 
+	 * @param defaultRules the default file rules
+	 */
+	public void setDefaultRules( FileRules defaultRules ) {
+		this.defaultRules = defaultRules == null ? new FileRules() : defaultRules;
+		applyRegexEngine();
+	}
+	
+	/**
+	 * The rules of the file parts, keyed by the form field name
+	 * 
+	 * @param fieldRules the field specific file rules
+	 */
+	public void setFieldRules( Map<String, FileRules> fieldRules ) {
+		this.fieldRules = fieldRules == null ? new HashMap<String, FileRules>( 0 ) : fieldRules;
+		applyRegexEngine();
+	}
+	
+	/**
+	 * The engine of the file name patterns of all rules, such as the
+	 * linear-time {@code re2j} engine.
+	 * 
+	 * @param regexEngine {@code jdk}, {@code re2j} or the class name of a {@code RegexEngine} implementation
+	 */
+	public void setRegexEngine( String regexEngine ) {
+		this.regexEngine = RegexEngines.forName( regexEngine );
+		applyRegexEngine();
+	}
+	
+	/**
+	 * Apply the configured regex engine to all file rules
+	 */
+	private void applyRegexEngine() {
+		if ( regexEngine != null ) {
+			defaultRules.setRegexEngine( regexEngine );
+			for ( FileRules rules : fieldRules.values() ) {
+				rules.setRegexEngine( regexEngine );
+			}
+		}
+	}
+	
+	@Override
+	protected MultipartParsingResult parseRequest( HttpServletRequest request ) throws MultipartException {
+		String encoding = determineEncoding( request );
+		FileUpload fileUpload = prepareFileUpload( encoding );
+		List<FileItem> fileItems = new ArrayList<FileItem>( 8 );
+		boolean completed = false;
+		try {
+			int fileCount = 0;
+			FileItemIterator iterator = fileUpload.getItemIterator( new ServletRequestContext( request ) );
+			while ( iterator.hasNext() ) {
+				FileItemStream stream = iterator.next();
+				long maxSize = -1;
+				if ( !stream.isFormField() ) {
+					if ( maxFiles >= 0 && ++ fileCount > maxFiles ) {
+						throw rejected( stream, "maxFiles", maxFiles );
+					}
+					FileRules rules = getRules( stream.getFieldName() );
+					String rejection = rules.check( stream.getContentType(), stream.getName(), getDeclaredSize( stream.getHeaders() ) );
+					if ( rejection != null ) {
+						throw rejected( stream, rejection, rules.getMaxSize() );
+					}
+					maxSize = rules.getMaxSize();
+				}
+				fileItems.add( storeItem( stream, maxSize ) );
+			}
+			MultipartParsingResult result = parseFileItems( fileItems, encoding );
+			completed = true;
+			return result;
+		} catch ( FileUploadBase.FileUploadIOException ex ) {
+			throw translate( fileUpload, ( FileUploadException ) ex.getCause() );
+		} catch ( FileUploadException ex ) {
+			throw translate( fileUpload, ex );
+		} catch ( IOException ex ) {
+			throw new MultipartException( "Failed to parse multipart servlet request", ex );
+		} finally {
+			// Release the parts that have already been stored
+			if ( !completed ) {
+				for ( FileItem item : fileItems ) {
+					item.delete();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the rules of a file part
+	 * 
+	 * @param fieldName the form field name
+	 * @return the field specific rules, or the default rules.
+	 */
+	private FileRules getRules( String fieldName ) {
+		FileRules rules = fieldRules.get( fieldName );
+		return rules == null ? defaultRules : rules;
+	}
+	
+	/**
+	 * Get the size declared by the {@code Content-Length} header of a part
+	 * 
+	 * @param headers the part headers
+	 * @return the declared size, {@code -1} if unknown.
+	 */
+	private long getDeclaredSize( FileItemHeaders headers ) {
+		String contentLength = headers == null ? null : headers.getHeader( "Content-Length" );
+		if ( contentLength != null ) {
+			try {
+				return Long.parseLong( contentLength.trim() );
+			} catch ( NumberFormatException e ) {
+				// Ignore invalid headers, the content is still counted
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Copy a part into a file item, the copy is aborted as soon as the limit is exceeded.
+	 * 
+	 * @param stream the part stream
+	 * @param maxSize the maximum size of the part, negative means no limit.
+	 * @return the stored file item
+	 * @throws IOException if the part cannot be copied
+	 */
+	private FileItem storeItem( FileItemStream stream, long maxSize ) throws IOException {
+		FileItem item = getFileItemFactory().createItem( stream.getFieldName(), stream.getContentType(), stream.isFormField(), stream.getName() );
+		if ( item instanceof FileItemHeadersSupport ) {
+			( ( FileItemHeadersSupport ) item ).setHeaders( stream.getHeaders() );
+		}
+		boolean stored = false;
+		try {
+			InputStream in = stream.openStream();
+			OutputStream out = item.getOutputStream();
+			try {
+				byte [] buffer = new byte[ StreamUtils.BUFFER_SIZE ];
+				long size = 0;
+				int read;
+				while ( ( read = in.read( buffer ) ) != -1 ) {
+					size += read;
+					if ( maxSize >= 0 && size > maxSize ) {
+						throw rejected( stream, "maxSize", maxSize );
+					}
+					out.write( buffer, 0, read );
+				}
+			} finally {
+				out.close();
+				in.close();
+			}
+			stored = true;
+			return item;
+		} finally {
+			if ( !stored ) {
+				item.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Create the exception of a rejected part
+	 * 
+	 * @param stream the rejected part
+	 * @param rejection the rejection code
+	 * @param limit the exceeded limit, used as message argument.
+	 * @return the validated exception
+	 */
+	private ValidatedException rejected( FileItemStream stream, String rejection, Object limit ) {
+		String field = stream.getFieldName();
+		MapBindingResult bindingResult = new MapBindingResult( new HashMap<String, Object>( 4 ), OBJECT_NAME );
+		String [] errorCodes = bindingResult.resolveMessageCodes( ERROR_CODE_PREFIX + rejection, field );
+		Object [] arguments = new Object [] { limit };
+		if ( "maxFiles".equals( rejection ) ) {
+			bindingResult.addError( new ObjectError( OBJECT_NAME, errorCodes, arguments, "Too many uploaded files" ) );
+		} else {
+			bindingResult.addError( new FieldError( OBJECT_NAME, field, stream.getName(), true, errorCodes, arguments, "Rejected uploaded file" ) );
+		}
+		return new ValidatedException( bindingResult );
+	}
+	
+	/**
+	 * Translate the exceptions of commons-fileupload in the same way as the super class
+	 * 
+	 * @param fileUpload the file upload instance
+	 * @param ex the upload exception
+	 * @return the multipart exception
+	 */
+	private MultipartException translate( FileUpload fileUpload, FileUploadException ex ) {
+		if ( ex instanceof FileUploadBase.SizeLimitExceededException ) {
+			return new MaxUploadSizeExceededException( fileUpload.getSizeMax(), ex );
+		}
+		if ( ex instanceof FileUploadBase.FileSizeLimitExceededException ) {
+			return new MaxUploadSizeExceededException( fileUpload.getFileSizeMax(), ex );
+		}
+		return new MultipartException( "Failed to parse multipart servlet request", ex );
+	}
+
+}
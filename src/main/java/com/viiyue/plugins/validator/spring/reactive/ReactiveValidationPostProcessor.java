@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.reactive;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodParameter;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerAdapter;
+
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.ValidatorLite;
+import com.viiyue.plugins.validator.spring.utils.ExecutorUtils;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux integration, decorates the request mapping argument resolvers of
+ * the reactive {@link RequestMappingHandlerAdapter} with
+ * {@link ValidationArgumentResolver}. Registered by {@code ValidatorLiteBean}
+ * when WebFlux is on the classpath.
+ * 
+ * <p>
+ * WebFlux does not expose its argument resolvers, so they are replaced by
+ * reflection after the adapter is initialized. If the internal structure of
+ * the adapter is not recognized, a warning is logged and the parameters are
+ * not validated. Only the resolvers that bind the request data are
+ * decorated, framework and custom resolvers are left untouched. Do not
+ * register {@link ValidatorLite} as the WebFlux validator at the same time,
+ * otherwise request bodies are validated twice.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ReactiveValidationPostProcessor implements BeanPostProcessor, BeanFactoryAware, DisposableBean {
+	
+	private static final Logger log = LoggerFactory.getLogger( ReactiveValidationPostProcessor.class );
+	
+	private ValidatorContext validatorContext;
+	private BeanFactory beanFactory;
+	private Scheduler scheduler;
+	private Scheduler ownedScheduler;
+	private int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+	private int queueCapacity = 1024;
+	
+	public void setValidatorContext( ValidatorContext validatorContext ) {
+		this.validatorContext = validatorContext;
+	}
+	
+	/**
+	 * The scheduler on which validations run, a bounded thread pool is created
+	 * if it is not set.
+	 * 
+	 * @param scheduler the validation scheduler
+	 */
+	public void setScheduler( Scheduler scheduler ) {
+		this.scheduler = scheduler;
+	}
+	
+	/**
+	 * The thread count of the default validation scheduler, twice the number
+	 * of processors by default.
+	 * 
+	 * @param maxThreads the maximum thread count
+	 */
+	public void setMaxThreads( int maxThreads ) {
+		this.maxThreads = maxThreads;
+	}
+	
+	/**
+	 * The queue capacity of the default validation scheduler, validations are
+	 * rejected when the queue is full.
+	 * 
+	 * @param queueCapacity the maximum number of queued validations
+	 */
+	public void setQueueCapacity( int queueCapacity ) {
+		this.queueCapacity = queueCapacity;
+	}
+	
+	@Override
+	public void setBeanFactory( BeanFactory beanFactory ) throws BeansException {
+		this.beanFactory = beanFactory;
+	}
+	
+	@Override
+	public Object postProcessBeforeInitialization( Object bean, String beanName ) throws BeansException {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization( Object bean, String beanName ) throws BeansException {
+		if ( bean instanceof RequestMappingHandlerAdapter ) {
+			decorate( ( RequestMappingHandlerAdapter ) bean, beanName );
+		}
+		return bean;
+	}
+	
+	@Override
+	public void destroy() throws Exception {
+		if ( ownedScheduler != null ) {
+			ownedScheduler.dispose();
+			ownedScheduler = null;
+		}
+	}
+	
+	/**
+	 * Replace the request mapping argument resolvers of the adapter with the
+	 * validation decorators.
+	 * 
+	 * @param adapter the reactive handler adapter
+	 * @param beanName the bean name of the adapter
+	 */
+	private void decorate( RequestMappingHandlerAdapter adapter, String beanName ) {
+		Field methodResolverField = ReflectionUtils.findField( RequestMappingHandlerAdapter.class, "methodResolver" );
+		Object methodResolver = null;
+		if ( methodResolverField != null ) {
+			ReflectionUtils.makeAccessible( methodResolverField );
+			methodResolver = ReflectionUtils.getField( methodResolverField, adapter );
+		}
+		Field resolversField = methodResolver == null ? null : ReflectionUtils.findField( methodResolver.getClass(), "requestMappingResolvers" );
+		if ( resolversField == null ) {
+			log.warn( "Unable to decorate the argument resolvers of '{}', WebFlux parameters will not be validated", beanName );
+			return;
+		}
+		ReflectionUtils.makeAccessible( resolversField );
+		List<HandlerMethodArgumentResolver> resolvers = ( List<HandlerMethodArgumentResolver> ) ReflectionUtils.getField( resolversField, methodResolver );
+		
+		ValidatorLite validatorLite = new ValidatorLite();
+		validatorLite.setValidatorContext( validatorContext );
+		validatorLite.setBeanFactory( beanFactory );
+		Scheduler validationScheduler = getScheduler();
+		Map<MethodParameter, ValidationArgumentResolver.ParameterMetadata> metadataCache = new ConcurrentHashMap<>( 256 );
+		
+		List<HandlerMethodArgumentResolver> decorated = new ArrayList<HandlerMethodArgumentResolver>( resolvers.size() );
+		for ( HandlerMethodArgumentResolver resolver : resolvers ) {
+			if ( resolver instanceof ValidationArgumentResolver || !ValidationArgumentResolver.bindsRequestData( resolver ) ) {
+				decorated.add( resolver );
+			} else {
+				decorated.add( new ValidationArgumentResolver( resolver, validatorContext, validatorLite, validationScheduler, metadataCache ) );
+			}
+		}
+		ReflectionUtils.setField( resolversField, methodResolver, Collections.unmodifiableList( decorated ) );
+	}
+	
+	/**
+	 * Get the validation scheduler, the default bounded scheduler is created on first use
+	 * 
+	 * @return the validation scheduler
+	 */
+	private Scheduler getScheduler() {
+		if ( scheduler == null ) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor( maxThreads, maxThreads, 60L, TimeUnit.SECONDS, 
+					new LinkedBlockingQueue<Runnable>( queueCapacity ), ExecutorUtils.newThreadFactory( "validator-lite-reactive-" ) );
+			executor.allowCoreThreadTimeOut( true );
+			this.ownedScheduler = Schedulers.fromExecutorService( executor );
+			this.scheduler = ownedScheduler;
+		}
+		return scheduler;
+	}
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.reactive;
+
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.AbstractMessageReaderArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.ModelAttributeMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.PathVariableMapMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.PathVariableMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.RequestParamMapMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.RequestParamMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.viiyue.plugins.validator.Validator;
+import com.viiyue.plugins.validator.common.Constants;
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.ValidatorLite;
+import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+import com.viiyue.plugins.validator.spring.bindings.ParameterBindingResult;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.utils.LocaleUtils;
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Reactive argument resolver decorator, validates the {@code @Validated}
+ * parameters and request bodies resolved by the decorated resolver. The
+ * locale is taken from the {@link ServerWebExchange}, no thread-bound request
+ * state is used, and the validation itself runs on a bounded scheduler so
+ * that blocking validation handlers never block the event-loop threads.
+ * 
+ * <p>
+ * Java beans are validated by {@link ValidatorLite}, other parameters by the
+ * parameter rules of the validator. {@code Mono} and {@code Flux} arguments
+ * are validated for each emitted value. Rejections are reported as
+ * {@link WebExchangeBindException}.
+ * 
+ * <p>
+ * Only the parameters bound from the request data are validated, that is
+ * request bodies, entities and parts, model attributes, request parameters and
+ * path variables. Framework parameters such as {@link ServerWebExchange},
+ * {@code Model} or {@code WebSession} are never validated, even if the
+ * handler method is annotated with {@code @Validated}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ReactiveValidationPostProcessor
+ */
+public class ValidationArgumentResolver implements HandlerMethodArgumentResolver {
+	
+	private final HandlerMethodArgumentResolver delegate;
+	private final ValidatorContext context;
+	private final ValidatorLite validatorLite;
+	private final Scheduler scheduler;
+	private final Map<MethodParameter, ParameterMetadata> metadataCache;
+	
+	public ValidationArgumentResolver( HandlerMethodArgumentResolver delegate, @Nullable ValidatorContext context, 
+			ValidatorLite validatorLite, Scheduler scheduler, Map<MethodParameter, ParameterMetadata> metadataCache ) {
+		this.delegate = delegate;
+		this.context = context;
+		this.validatorLite = validatorLite;
+		this.scheduler = scheduler;
+		this.metadataCache = metadataCache;
+	}
+	
+	public HandlerMethodArgumentResolver getDelegate() {
+		return delegate;
+	}
+	
+	/**
+	 * Whether the resolver binds its arguments from the request data, only
+	 * these resolvers are decorated.
+	 * 
+	 * @param resolver the argument resolver
+	 * @return {@code true} if the resolved arguments may be validated
+	 */
+	public static boolean bindsRequestData( HandlerMethodArgumentResolver resolver ) {
+		return resolver instanceof AbstractMessageReaderArgumentResolver // Bodies, entities and parts
+			|| resolver instanceof ModelAttributeMethodArgumentResolver
+			|| resolver instanceof RequestParamMethodArgumentResolver
+			|| resolver instanceof RequestParamMapMethodArgumentResolver
+			|| resolver instanceof PathVariableMethodArgumentResolver
+			|| resolver instanceof PathVariableMapMethodArgumentResolver;
+	}
+
+	@Override
+	public boolean supportsParameter( MethodParameter parameter ) {
+		return delegate.supportsParameter( parameter );
+	}
+
+	@Override
+	public Mono<Object> resolveArgument( MethodParameter parameter, BindingContext bindingContext, ServerWebExchange exchange ) {
+		Mono<Object> resolved = delegate.resolveArgument( parameter, bindingContext, exchange );
+		if ( !bindsRequestData( delegate ) ) {
+			return resolved;
+		}
+		ParameterMetadata metadata = getMetadata( parameter );
+		if ( metadata.groups == null ) {
+			return resolved;
+		}
+		Locale locale = LocaleUtils.switchLocale( context, exchange.getLocaleContext().getLocale() );
+		// Null arguments are validated as well, the empty result is restored afterwards
+		return resolved.map( Optional::of ).defaultIfEmpty( Optional.empty() ).flatMap( optional -> {
+			Object argument = optional.orElse( null );
+			if ( argument instanceof Mono ) {
+				return Mono.just( ( ( Mono<?> ) argument ).flatMap( value -> validate( parameter, metadata, value, locale ) ) );
+			}
+			if ( argument instanceof Flux ) {
+				return Mono.just( ( ( Flux<?> ) argument ).concatMap( value -> validate( parameter, metadata, value, locale ) ) );
+			}
+			return validate( parameter, metadata, argument, locale );
+		} );
+	}
+	
+	/**
+	 * Get the cached validation metadata of a method parameter
+	 * 
+	 * @param parameter the method parameter
+	 * @return the parameter metadata
+	 */
+	private ParameterMetadata getMetadata( MethodParameter parameter ) {
+		ParameterMetadata metadata = metadataCache.get( parameter );
+		if ( metadata == null ) {
+			metadata = new ParameterMetadata( parameter, GroupSequences.of( context ) );
+			MetadataCaches.put( metadataCache, parameter, metadata, MetadataCaches.getLimit( context ) );
+		}
+		return metadata;
+	}
+	
+	/**
+	 * Validate a value on the validation scheduler
+	 * 
+	 * @param parameter the method parameter
+	 * @param metadata the parameter metadata
+	 * @param value the value to validate
+	 * @param locale the message locale
+	 * @return the validated value, empty if the value is {@code null}.
+	 */
+	private Mono<Object> validate( MethodParameter parameter, ParameterMetadata metadata, @Nullable Object value, Locale locale ) {
+		return Mono.fromCallable( () -> {
+			if ( value != null && validatorLite.supports( value.getClass() ) ) {
+				validateBean( parameter, metadata, value, locale );
+			} else {
+				validateParameter( parameter, metadata, value, locale );
+			}
+			return value;
+		} ).subscribeOn( scheduler );
+	}
+	
+	/**
+	 * Validate a java bean
+	 * 
+	 * @param parameter the method parameter
+	 * @param metadata the parameter metadata
+	 * @param bean the java bean
+	 * @param locale the message locale
+	 * @throws WebExchangeBindException if the java bean is rejected
+	 */
+	private void validateBean( MethodParameter parameter, ParameterMetadata metadata, Object bean, Locale locale ) throws WebExchangeBindException {
+		BeanBindingResult errors = new BeanBindingResult( bean, metadata.parameterName, true, 256 );
+		validatorLite.validate( bean, errors, locale, null, metadata.groups );
+		if ( errors.hasErrors() ) {
+			throw new WebExchangeBindException( parameter, errors );
+		}
+	}
+	
+	/**
+	 * Validate an ordinary parameter
+	 * 
+	 * @param parameter the method parameter
+	 * @param metadata the parameter metadata
+	 * @param argument the argument value
+	 * @param locale the message locale
+	 * @throws WebExchangeBindException if the parameter is rejected
+	 */
+	private void validateParameter( MethodParameter parameter, ParameterMetadata metadata, @Nullable Object argument, Locale locale ) throws WebExchangeBindException {
+		ValidatedResult result = null;
+		// Group sequences are validated stage by stage, stop at the first failed stage
+		for ( Class<?> [] stage : metadata.plan ) {
+			result = context == null 
+				? Validator.validateParameter( argument, metadata.parameter, metadata.parameterName, metadata.defaultMessage, locale, stage ) 
+				: context.validateParameter( argument, metadata.parameter, metadata.parameterName, metadata.defaultMessage, locale, stage );
+			if ( !result.isPassed() ) {
+				break;
+			}
+		}
+		// The plan is empty if all groups are report-only
+		if ( result != null && !result.isPassed() ) {
+			String methodName = parameter.getMethod().getName();
+			ParameterBindingResult bindingResult = new ParameterBindingResult( new HashMap<String, Object>( 4 ), methodName );
+			bindingResult.setValidated( result );
+			bindingResult.putParameter( metadata.parameterName, argument, parameter.getParameterType() );
+			for ( FragmentResult fr : ( List<FragmentResult> ) result.getLastRejectedResult().getResult() ) {
+				String basicMessageCode = Constants.DEFAULT_MESSAGE_KEY_PREFIX + "." + fr.getFragment();
+				String [] errorCodes = bindingResult.resolveMessageCodes( basicMessageCode, metadata.parameterName );
+				bindingResult.addError( new FieldError( methodName, metadata.parameterName, argument, false, errorCodes, fr.getArguments(), fr.getErrorMessage() ) );
+			}
+			throw new WebExchangeBindException( parameter, bindingResult );
+		}
+	}
+	
+	/**
+	 * Request-independent validation metadata of a handler method parameter
+	 */
+	static final class ParameterMetadata {
+		
+		private final Parameter parameter;
+		private final String parameterName;
+		private final String defaultMessage;
+		private final Class<?> [] groups;
+		private final Class<?> [][] plan;
+		
+		ParameterMetadata( MethodParameter mp, GroupSequences groupSequences ) {
+			Validated validated = mp.getParameterAnnotation( Validated.class );
+			if ( validated == null && mp.getMethod() != null ) {
+				validated = mp.getMethod().getAnnotation( Validated.class );
+			}
+			this.parameter = mp.getParameter();
+			this.parameterName = mp.getParameterName();
+			this.defaultMessage = "{" + mp.getContainingClass().getName() + "." + mp.getExecutable().getName() + "." + parameterName + "}";
+			this.groups = validated == null ? null : validated.value();
+			this.plan = groups == null ? null : groupSequences.getPlan( ( Object [] ) groups );
+		}
+		
+	}
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.regex;
+
+/**
+ * Regular expression compiled by a {@link RegexEngine}, instances are
+ * thread-safe.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public interface CompiledPattern {
+
+	/**
+	 * @return the source expression
+	 */
+	String pattern();
+
+	/**
+	 * Whether the entire input matches the pattern
+	 * 
+	 * @param input the input text
+	 * @return {@code true} if matched
+	 */
+	boolean matches( CharSequence input );
+
+}
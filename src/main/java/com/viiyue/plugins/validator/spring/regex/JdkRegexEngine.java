@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.regex;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Default engine based on {@code java.util.regex}, it supports the full JDK
+ * syntax but uses backtracking, so the match time of some patterns grows
+ * exponentially with the input length.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class JdkRegexEngine implements RegexEngine {
+
+	@Override
+	public String getName() {
+		return "jdk";
+	}
+
+	@Override
+	public CompiledPattern compile( String regex ) {
+		final Pattern pattern;
+		try {
+			pattern = Pattern.compile( regex );
+		} catch ( PatternSyntaxException e ) {
+			throw new IllegalArgumentException( "Invalid regular expression: " + regex, e );
+		}
+		return new CompiledPattern() {
+			@Override
+			public String pattern() {
+				return regex;
+			}
+			@Override
+			public boolean matches( CharSequence input ) {
+				return pattern.matcher( input ).matches();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.regex;
+
+import com.google.re2j.Pattern;
+import com.google.re2j.PatternSyntaxException;
+
+/**
+ * Linear-time engine based on RE2/J ({@code com.google.re2j:re2j}), the match
+ * time is proportional to the input length for every pattern. Backreferences
+ * and lookaround assertions are not supported.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class Re2jRegexEngine implements RegexEngine {
+
+	@Override
+	public String getName() {
+		return "re2j";
+	}
+
+	@Override
+	public CompiledPattern compile( String regex ) {
+		final Pattern pattern;
+		try {
+			pattern = Pattern.compile( regex );
+		} catch ( PatternSyntaxException e ) {
+			throw new IllegalArgumentException( "Regular expression not supported by RE2/J: " + regex, e );
+		}
+		return new CompiledPattern() {
+			@Override
+			public String pattern() {
+				return regex;
+			}
+			@Override
+			public boolean matches( CharSequence input ) {
+				return pattern.matcher( input ).matches();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.regex;
+
+/**
+ * Regular expression engine of the patterns evaluated by the plugin itself,
+ * such as the allowed characters of {@code InputScreening} and the file name
+ * pattern of {@code FileRules}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see RegexEngines
+ */
+public interface RegexEngine {
+
+	/**
+	 * @return the engine name, used in logs and reports
+	 */
+	String getName();
+
+	/**
+	 * Compile a regular expression
+	 * 
+	 * @param regex the regular expression
+	 * @return the compiled pattern
+	 * @throws IllegalArgumentException if the expression is invalid or not supported by the engine
+	 */
+	CompiledPattern compile( String regex );
+
+}
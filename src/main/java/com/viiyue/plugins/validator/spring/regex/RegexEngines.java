@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.regex;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import com.viiyue.plugins.validator.spring.utils.MetadataCaches;
+import com.viiyue.plugins.validator.spring.utils.RuleInterner;
+
+/**
+ * Regular expression engine tool, selects the engine by name and detects
+ * patterns that are unsafe for backtracking engines.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class RegexEngines {
+	
+	private static final Logger log = LoggerFactory.getLogger( RegexEngines.class );
+	private static final String RE2J_ENGINE = "com.google.re2j.Pattern";
+	private static final RegexEngine jdkEngine = new JdkRegexEngine();
+	
+	// The configured patterns are only keyed by strings and by the engines of the
+	// class loader of the plugin, so they can be shared by all contexts
+	private static final RuleInterner patterns = new RuleInterner( MetadataCaches.DEFAULT_LIMIT );
+	
+	/**
+	 * @return the default {@code java.util.regex} engine
+	 */
+	public static RegexEngine jdk() {
+		return jdkEngine;
+	}
+	
+	/**
+	 * Get the engine with the specified name
+	 * 
+	 * @param name {@code jdk}, {@code re2j} or the class name of a {@link RegexEngine} implementation
+	 * @return the regular expression engine
+	 * @throws IllegalStateException if RE2/J is not on the classpath
+	 */
+	public static RegexEngine forName( String name ) {
+		if ( name == null || "jdk".equalsIgnoreCase( name ) ) {
+			return jdkEngine;
+		}
+		if ( "re2j".equalsIgnoreCase( name ) ) {
+			if ( !ClassUtils.isPresent( RE2J_ENGINE, RegexEngines.class.getClassLoader() ) ) {
+				throw new IllegalStateException( "The regex engine 're2j' requires com.google.re2j:re2j on the classpath" );
+			}
+			return new Re2jRegexEngine();
+		}
+		Class<?> engineType = ClassUtils.resolveClassName( name, RegexEngines.class.getClassLoader() );
+		return ( RegexEngine ) BeanUtils.instantiateClass( engineType );
+	}
+	
+	/**
+	 * Compile a configured pattern of the plugin, a warning is logged if the
+	 * pattern is unsafe and the engine is the backtracking JDK engine.
+	 * 
+	 * @param engine the regular expression engine
+	 * @param regex the regular expression, can be {@code null}.
+	 * @param usage the description of the pattern, used in the warning.
+	 * @return the compiled pattern shared by equal expressions, {@code null} if the expression is {@code null}.
+	 */
+	public static CompiledPattern compile( RegexEngine engine, String regex, String usage ) {
+		if ( regex == null ) {
+			return null;
+		}
+		if ( engine instanceof JdkRegexEngine && isBacktrackingUnsafe( regex ) ) {
+			log.warn( "The {} pattern '{}' is unsafe for backtracking, consider the 're2j' regex engine", usage, regex );
+		}
+		return patterns.intern( engine, regex ); // Updated in 1.0.5
+	}
+	
+	/**
+	 * Whether the pattern may cause catastrophic backtracking, that is a
+	 * repeated group whose body can itself repeat or alternate (such as
+	 * {@code (a+)+}, {@code (\w|\d)*} or {@code (.*,)*}), or a backreference.
+	 * The check is conservative, an unsafe pattern is not necessarily
+	 * exploitable.
+	 * 
+	 * @param regex the regular expression
+	 * @return {@code true} if the pattern is unsafe for backtracking engines
+	 */
+	public static boolean isBacktrackingUnsafe( String regex ) {
+		// Each open group records whether its body repeats or alternates
+		Deque<boolean []> groups = new ArrayDeque<boolean []>();
+		boolean repeatingBody = false;
+		int length = regex.length();
+		for ( int i = 0; i < length; i ++ ) {
+			char c = regex.charAt( i );
+			if ( c == '\\' ) {
+				if ( i + 1 < length && Character.isDigit( regex.charAt( i + 1 ) ) && regex.charAt( i + 1 ) != '0' ) {
+					return true; // Backreference
+				}
+				i ++;
+				if ( isUnboundedQuantifier( regex, i + 1 ) ) {
+					repeatingBody = true;
+				}
+			} else if ( c == '[' ) {
+				i = skipCharacterClass( regex, i );
+				if ( isUnboundedQuantifier( regex, i + 1 ) ) {
+					repeatingBody = true;
+				}
+			} else if ( c == '(' ) {
+				groups.push( new boolean [] { repeatingBody } );
+				repeatingBody = false;
+			} else if ( c == ')' && !groups.isEmpty() ) {
+				boolean body = repeatingBody;
+				boolean outer = groups.pop() [ 0 ];
+				if ( isUnboundedQuantifier( regex, i + 1 ) ) {
+					if ( body ) {
+						return true;
+					}
+					body = true;
+				}
+				repeatingBody = outer || body;
+			} else if ( c == '|' ) {
+				repeatingBody = true;
+			} else if ( isUnboundedQuantifier( regex, i + 1 ) ) {
+				repeatingBody = true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Whether an unbounded quantifier ({@code *}, {@code +} or {@code {n,}})
+	 * starts at the specified position
+	 * 
+	 * @param regex the regular expression
+	 * @param index the position after the quantified atom
+	 * @return {@code true} if the atom is repeated without an upper bound
+	 */
+	private static boolean isUnboundedQuantifier( String regex, int index ) {
+		if ( index >= regex.length() ) {
+			return false;
+		}
+		char c = regex.charAt( index );
+		if ( c == '*' || c == '+' ) {
+			return true;
+		}
+		if ( c == '{' ) {
+			int end = regex.indexOf( '}', index );
+			return end > 0 && regex.charAt( end - 1 ) == ',';
+		}
+		return false;
+	}
+	
+	/**
+	 * Skip a character class, including nested classes and escapes
+	 * 
+	 * @param regex the regular expression
+	 * @param start the position of the opening bracket
+	 * @return the position of the closing bracket
+	 */
+	private static int skipCharacterClass( String regex, int start ) {
+		int depth = 0;
+		for ( int i = start; i < regex.length(); i ++ ) {
+			char c = regex.charAt( i );
+			if ( c == '\\' ) {
+				i ++;
+			} else if ( c == '[' ) {
+				depth ++;
+			} else if ( c == ']' && i > start + 1 && -- depth == 0 ) {
+				return i;
+			}
+		}
+		return regex.length() - 1;
+	}
+
+}
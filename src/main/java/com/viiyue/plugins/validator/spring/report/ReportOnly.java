@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.report;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Validate rules in report-only mode, for the gradual rollout of new rules on
+ * busy endpoints. Report-only validations never reject the request and add
+ * no validation latency: a snapshot of the argument is queued, validated by a
+ * background worker, and the outcome is recorded in the validation metrics
+ * and logged. Samples are dropped when the queue is full.
+ * 
+ * <p>
+ * On a handler method or parameter, all {@code @Validated} rules of the
+ * parameters are report-only. On a validation group interface, only the rules
+ * of that group are report-only wherever the group is used, the other groups
+ * are still enforced.
+ * 
+ * <pre>
+ * &#64;ReportOnly
+ * public interface Strict {}
+ * 
+ * public String save( &#64;Validated( { Default.class, Strict.class } ) User user ) { ... }
+ * </pre>
+ * 
+ * <p>
+ * The snapshot is a shallow copy of the argument, nested objects are shared
+ * with the request, so rules on nested beans and collection elements may see
+ * changes that the handler method makes after the sample is queued. Arguments that cannot be copied (without a default
+ * constructor, such as streams and uploaded files) are not sampled.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ReportOnlyValidator
+ */
+@Documented
+@Target( { ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER } )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface ReportOnly {
+
+}
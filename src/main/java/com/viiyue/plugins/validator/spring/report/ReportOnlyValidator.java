@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.report;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.viiyue.plugins.validator.metadata.result.ElementResult;
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.utils.ExecutorUtils;
+
+/**
+ * Background validator of {@link ReportOnly} rules. The request thread copies
+ * the argument and offers the validation to a bounded queue without blocking,
+ * the validation is dropped if the queue is full. The queue is checked before
+ * the argument is copied, so dropped samples cost the request thread nothing
+ * but the check. A small pool of worker
+ * threads validates the queued snapshots, records the outcomes in the
+ * validation metrics, and logs the rejected rules.
+ * 
+ * <p>
+ * The argument is copied deeply, so that the handler method cannot change
+ * the snapshot while it is validated. Arguments that cannot be copied, or
+ * whose object graph exceeds {@value #MAX_COPIED_OBJECTS} objects, are
+ * skipped and counted as dropped samples.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ReportOnlyValidator {
+	
+	private static final Logger log = LoggerFactory.getLogger( ReportOnlyValidator.class );
+	private static final Object UNAVAILABLE = new Object();
+	private static final int MAX_COPIED_OBJECTS = 1024;
+	
+	private final ValidatorContext context;
+	private final ThreadPoolExecutor executor;
+	
+	/**
+	 * @param context the context-scoped validator instance
+	 * @param threads the number of worker threads
+	 * @param queueCapacity the maximum number of queued validations
+	 */
+	public ReportOnlyValidator( ValidatorContext context, int threads, int queueCapacity ) {
+		this.context = context;
+		this.executor = new ThreadPoolExecutor( threads, threads, 60L, TimeUnit.SECONDS, 
+				new ArrayBlockingQueue<Runnable>( queueCapacity ), ExecutorUtils.newThreadFactory( "validator-lite-report-" ) );
+		this.executor.allowCoreThreadTimeOut( true );
+	}
+	
+	/**
+	 * Queue the report-only validation of a handler method parameter
+	 * 
+	 * @param method the handler method
+	 * @param parameter the method parameter
+	 * @param parameterName the parameter name
+	 * @param defaultMessage the default error message
+	 * @param plan the validation stages of the report-only groups
+	 * @param argument the argument value
+	 * @param locale the message locale
+	 * @return {@code true} if queued, {@code false} if dropped.
+	 */
+	public boolean submitParameter( Method method, Parameter parameter, String parameterName, String defaultMessage, 
+			Class<?> [][] plan, Object argument, Locale locale ) {
+		String name = method.getDeclaringClass().getName() + "#" + method.getName() + "." + parameterName;
+		if ( isSaturated() ) {
+			return dropped( name, "the queue is full" );
+		}
+		Object snapshot = copy( argument );
+		if ( snapshot == UNAVAILABLE ) {
+			return dropped( name, "the argument cannot be copied" );
+		}
+		return submit( name, plan, stage -> context.validateParameter( snapshot, parameter, parameterName, defaultMessage, locale, stage ) );
+	}
+	
+	/**
+	 * Queue the report-only validation of a java bean
+	 * 
+	 * @param target the java bean
+	 * @param plan the validation stages of the report-only groups
+	 * @param locale the message locale
+	 * @return {@code true} if queued, {@code false} if dropped.
+	 */
+	public boolean submitBean( Object target, Class<?> [][] plan, Locale locale ) {
+		String name = target.getClass().getName();
+		if ( isSaturated() ) {
+			return dropped( name, "the queue is full" );
+		}
+		Object snapshot = copy( target );
+		if ( snapshot == UNAVAILABLE ) {
+			return dropped( name, "the bean cannot be copied" );
+		}
+		return submit( name, plan, stage -> context.validateBean( snapshot, locale, stage ) );
+	}
+	
+	/**
+	 * Stop the worker threads, the queued validations are discarded.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Check whether the queue is full, the check is racy and only spares the
+	 * copy of samples that would be dropped anyway.
+	 * 
+	 * @return {@code true} if the queue has no remaining capacity.
+	 */
+	private boolean isSaturated() {
+		return executor.getQueue().remainingCapacity() == 0;
+	}
+	
+	/**
+	 * Record a dropped validation
+	 * 
+	 * @param name the name of the validated argument, used in logs.
+	 * @param reason the reason why it is dropped, used in logs.
+	 * @return always {@code false}
+	 */
+	private boolean dropped( String name, String reason ) {
+		ValidationMetrics metrics = context.getMetrics();
+		if ( metrics != null ) {
+			metrics.recordReportOnlyDropped();
+		}
+		log.debug( "Report-only validation of '{}' dropped, {}", name, reason );
+		return false;
+	}
+	
+	/**
+	 * Offer a validation to the queue without blocking
+	 * 
+	 * @param name the name of the validated argument, used in logs.
+	 * @param plan the validation stages
+	 * @param validation the validation of a single stage
+	 * @return {@code true} if queued, {@code false} if dropped.
+	 */
+	private boolean submit( String name, Class<?> [][] plan, Function<Class<?> [], ValidatedResult> validation ) {
+		try {
+			executor.execute( () -> report( name, plan, validation ) );
+			return true;
+		} catch ( RejectedExecutionException e ) {
+			return dropped( name, "the queue is full" );
+		}
+	}
+	
+	/**
+	 * Validate a queued snapshot on a worker thread, and record the outcome
+	 * 
+	 * @param name the name of the validated argument
+	 * @param plan the validation stages
+	 * @param validation the validation of a single stage
+	 */
+	private void report( String name, Class<?> [][] plan, Function<Class<?> [], ValidatedResult> validation ) {
+		try {
+			ValidatedResult result = null;
+			for ( Class<?> [] stage : plan ) {
+				result = validation.apply( stage );
+				if ( !result.isPassed() ) {
+					break;
+				}
+			}
+			List<String> rules = Collections.emptyList();
+			if ( result != null && !result.isPassed() ) {
+				rules = new ArrayList<String>( 8 );
+				collectRules( result, rules );
+				log.info( "Report-only validation of '{}' rejected: {}", name, rules );
+			}
+			ValidationMetrics metrics = context.getMetrics();
+			if ( metrics != null ) {
+				metrics.recordReportOnly( rules );
+			}
+		} catch ( RuntimeException e ) {
+			log.warn( "Report-only validation of '" + name + "' failed", e );
+		}
+	}
+	
+	/**
+	 * Collect the error codes of all rejected rules, including nested beans
+	 * 
+	 * @param result the validation result
+	 * @param rules the collected error codes
+	 */
+	private void collectRules( ValidatedResult result, List<String> rules ) {
+		for ( ElementResult rejected : result.getRejectedResults() ) {
+			if ( rejected.isTypeOf( ValidatedResult.class ) ) {
+				collectRules( ( ValidatedResult ) rejected.getResult(), rules );
+			} else {
+				for ( FragmentResult fr : ( List<FragmentResult> ) rejected.getResult() ) {
+					rules.add( fr.getErrorCode() );
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Create a deep snapshot of an argument, nested beans, collections, arrays
+	 * and maps are copied as well. Simple values are shared, they are
+	 * immutable except dates, which are cloned.
+	 * 
+	 * @param argument the argument value
+	 * @return the snapshot, or {@link #UNAVAILABLE} if it cannot be copied.
+	 */
+	private Object copy( Object argument ) {
+		if ( argument == null || BeanUtils.isSimpleValueType( argument.getClass() ) && !( argument instanceof Date ) ) {
+			return argument;
+		}
+		try {
+			return copy( argument, new IdentityHashMap<Object, Object>() );
+		} catch ( RuntimeException e ) {
+			return UNAVAILABLE;
+		}
+	}
+	
+	/**
+	 * Copy an object of the argument graph, shared and cyclic references are
+	 * copied once.
+	 * 
+	 * @param value the value to copy
+	 * @param copies the copies of the graph, by original object
+	 * @return the copy, or {@link #UNAVAILABLE} if it cannot be copied.
+	 */
+	private Object copy( Object value, Map<Object, Object> copies ) {
+		if ( value == null ) {
+			return null;
+		}
+		Class<?> type = value.getClass();
+		if ( value instanceof Date ) {
+			return ( ( Date ) value ).clone();
+		}
+		if ( BeanUtils.isSimpleValueType( type ) ) {
+			return value;
+		}
+		Object copy = copies.get( value );
+		if ( copy != null ) {
+			return copy;
+		}
+		if ( copies.size() >= MAX_COPIED_OBJECTS ) {
+			return UNAVAILABLE;
+		}
+		if ( type.isArray() ) {
+			int length = Array.getLength( value );
+			copy = Array.newInstance( type.getComponentType(), length );
+			copies.put( value, copy );
+			if ( type.getComponentType().isPrimitive() ) {
+				System.arraycopy( value, 0, copy, 0, length );
+				return copy;
+			}
+			for ( int i = 0; i < length; i ++ ) {
+				Object element = copy( Array.get( value, i ), copies );
+				if ( element == UNAVAILABLE ) {
+					return UNAVAILABLE;
+				}
+				Array.set( copy, i, element );
+			}
+			return copy;
+		}
+		if ( value instanceof Collection ) {
+			Collection<Object> collection = ( Collection<Object> ) newContainer( type );
+			if ( collection == null ) {
+				collection = value instanceof Set 
+					? new LinkedHashSet<Object>( ( ( Set<?> ) value ).size() ) 
+					: new ArrayList<Object>( ( ( Collection<?> ) value ).size() );
+			}
+			copies.put( value, collection );
+			for ( Object element : ( Collection<?> ) value ) {
+				element = copy( element, copies );
+				if ( element == UNAVAILABLE ) {
+					return UNAVAILABLE;
+				}
+				collection.add( element );
+			}
+			return collection;
+		}
+		if ( value instanceof Map ) {
+			Map<Object, Object> map = ( Map<Object, Object> ) newContainer( type );
+			if ( map == null ) {
+				map = new LinkedHashMap<Object, Object>( ( ( Map<?, ?> ) value ).size() );
+			}
+			copies.put( value, map );
+			for ( Map.Entry<?, ?> entry : ( ( Map<?, ?> ) value ).entrySet() ) {
+				Object key = copy( entry.getKey(), copies );
+				Object element = copy( entry.getValue(), copies );
+				if ( key == UNAVAILABLE || element == UNAVAILABLE ) {
+					return UNAVAILABLE;
+				}
+				map.put( key, element );
+			}
+			return map;
+		}
+		// Other JDK types, such as streams or optionals, are not java beans
+		Constructor<?> constructor = type.getName().startsWith( "java." ) ? null : ClassUtils.getConstructorIfAvailable( type );
+		if ( constructor == null ) {
+			return UNAVAILABLE;
+		}
+		Object bean = BeanUtils.instantiateClass( constructor );
+		copies.put( value, bean );
+		for ( Class<?> current = type; current != Object.class; current = current.getSuperclass() ) {
+			for ( Field field : current.getDeclaredFields() ) {
+				if ( Modifier.isStatic( field.getModifiers() ) ) {
+					continue;
+				}
+				ReflectionUtils.makeAccessible( field );
+				Object fieldValue = copy( ReflectionUtils.getField( field, value ), copies );
+				if ( fieldValue == UNAVAILABLE ) {
+					return UNAVAILABLE;
+				}
+				ReflectionUtils.setField( field, bean, fieldValue );
+			}
+		}
+		return bean;
+	}
+	
+	/**
+	 * Create an empty collection or map of the same type, so that the copy can
+	 * be assigned to the fields declaring a concrete type.
+	 * 
+	 * @param type the collection or map type
+	 * @return the empty container, {@code null} if the type has no default constructor.
+	 */
+	private static Object newContainer( Class<?> type ) {
+		Constructor<?> constructor = ClassUtils.getConstructorIfAvailable( type );
+		return constructor == null ? null : BeanUtils.instantiateClass( constructor );
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.streaming;
+
+/**
+ * Consumer of the valid elements of a {@link StreamingBody}, the consumer is
+ * obtained from the spring container and invoked on the request thread for
+ * each element as soon as it is read and validated.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @param <T> the element type
+ */
+public interface ElementConsumer<T> {
+
+	/**
+	 * Consume a valid element
+	 * 
+	 * @param element the element read from the request body
+	 * @throws Exception if the element cannot be consumed
+	 */
+	void accept( T element ) throws Exception;
+
+}
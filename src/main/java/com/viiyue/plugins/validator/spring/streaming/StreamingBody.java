@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.streaming;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bind a JSON array request body to a collection parameter, reading and
+ * validating the elements one by one from the request stream instead of
+ * deserializing the whole body first. Reading stops as soon as the error
+ * budget is exhausted.
+ * 
+ * <p>
+ * The parameter can be a {@code List}, a {@code Set}, another collection
+ * type or an array. If a {@link #consumer()} is specified, the valid elements
+ * are handed to it and not retained, and the parameter (if it is an
+ * {@code int} or {@code long}) receives the number of consumed elements.
+ * 
+ * <pre>
+ * public String importUsers( &#64;StreamingBody( maxErrors = 20 ) List&lt;User&gt; users ) { ... }
+ * public String importUsers( &#64;StreamingBody( consumer = UserWriter.class ) long count ) { ... }
+ * </pre>
+ * 
+ * <p>
+ * Validation errors are reported on the element paths ({@code [3].name}), and
+ * a {@code ValidatedException} is thrown unless the next parameter is an
+ * {@code Errors} parameter.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see ElementConsumer
+ * @see StreamingBodyArgumentResolver
+ */
+@Documented
+@Target( ElementType.PARAMETER )
+@Retention( RetentionPolicy.RUNTIME )
+public @interface StreamingBody {
+
+	/**
+	 * @return the error budget, reading stops when this many errors are reported
+	 */
+	int maxErrors() default 100;
+	
+	/**
+	 * @return the validation groups of the elements
+	 */
+	Class<?> [] groups() default {};
+	
+	/**
+	 * @return the consumer bean type of the valid elements, the elements are
+	 *         retained in the parameter value if it is not specified.
+	 */
+	@SuppressWarnings( "rawtypes" )
+	Class<? extends ElementConsumer> consumer() default ElementConsumer.class;
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.streaming;
+
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.viiyue.plugins.validator.spring.exception.ValidatedException;
+
+/**
+ * Argument resolver of {@link StreamingBody} parameters. The JSON array is
+ * read element by element with a streaming parser, each element is validated
+ * by the validators of the data binder as soon as it is read, so the memory
+ * used by a request is bounded by the retained elements (none in consumer
+ * mode) and the error budget, not by the size of the payload.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ * @see StreamingBody
+ */
+public class StreamingBodyArgumentResolver implements HandlerMethodArgumentResolver {
+	
+	private final ObjectMapper objectMapper;
+	private final BeanFactory beanFactory;
+	
+	public StreamingBodyArgumentResolver( ObjectMapper objectMapper, @Nullable BeanFactory beanFactory ) {
+		this.objectMapper = objectMapper;
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Create the resolver with the object mapper of the first Jackson message
+	 * converter, so that the elements are deserialized exactly as a regular
+	 * {@code @RequestBody} would be.
+	 * 
+	 * @param messageConverters the message converters of the handler adapter
+	 * @param beanFactory the bean factory to obtain the element consumers
+	 * @return the resolver instance
+	 */
+	public static StreamingBodyArgumentResolver create( @Nullable List<HttpMessageConverter<?>> messageConverters, @Nullable BeanFactory beanFactory ) {
+		if ( messageConverters != null ) {
+			for ( HttpMessageConverter<?> converter : messageConverters ) {
+				if ( converter instanceof MappingJackson2HttpMessageConverter ) {
+					return new StreamingBodyArgumentResolver( ( ( MappingJackson2HttpMessageConverter ) converter ).getObjectMapper(), beanFactory );
+				}
+			}
+		}
+		return new StreamingBodyArgumentResolver( new ObjectMapper(), beanFactory );
+	}
+
+	@Override
+	public boolean supportsParameter( MethodParameter parameter ) {
+		return parameter.hasParameterAnnotation( StreamingBody.class );
+	}
+
+	@Override
+	public Object resolveArgument( MethodParameter parameter, @Nullable ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, @Nullable WebDataBinderFactory binderFactory ) throws Exception {
+		StreamingBody streamingBody = parameter.getParameterAnnotation( StreamingBody.class );
+		ElementConsumer<Object> consumer = getConsumer( streamingBody );
+		ResolvableType elementType = getElementType( parameter, streamingBody );
+		
+		// Elements are validated against the retained collection (an empty list in consumer mode), 
+		// so that the element paths of the errors can be resolved by the binding result.
+		List<Object> elements = new ArrayList<Object>();
+		String name = parameter.getParameterName();
+		WebDataBinder binder = binderFactory.createBinder( webRequest, elements, name );
+		BindingResult bindingResult = binder.getBindingResult();
+		
+		long count = 0;
+		HttpServletRequest request = webRequest.getNativeRequest( HttpServletRequest.class );
+		ObjectReader reader = objectMapper.readerFor( objectMapper.getTypeFactory().constructType( elementType.getType() ) );
+		try ( InputStream body = request.getInputStream(); JsonParser parser = objectMapper.getFactory().createParser( body ) ) {
+			JsonToken token = parser.nextToken();
+			if ( token != JsonToken.START_ARRAY ) {
+				throw new HttpMessageNotReadableException( "Streaming request body must be a JSON array" );
+			}
+			while ( parser.nextToken() != JsonToken.END_ARRAY && bindingResult.getErrorCount() < streamingBody.maxErrors() ) {
+				Object element = reader.readValue( parser );
+				int errorCount = bindingResult.getErrorCount();
+				if ( consumer == null ) {
+					elements.add( element );
+				}
+				validateElement( binder, bindingResult, "[" + count + "]", element, streamingBody.groups() );
+				if ( consumer != null && bindingResult.getErrorCount() == errorCount ) {
+					consumer.accept( element );
+				}
+				count ++;
+			}
+		} catch ( JsonProcessingException e ) {
+			throw new HttpMessageNotReadableException( "Unable to read streaming request body: " + e.getOriginalMessage(), e );
+		}
+		
+		if ( bindingResult.hasErrors() && isBindExceptionRequired( parameter ) ) {
+			throw new ValidatedException( bindingResult );
+		}
+		if ( mavContainer != null ) {
+			mavContainer.addAttribute( BindingResult.MODEL_KEY_PREFIX + name, bindingResult );
+		}
+		return consumer == null ? toArgumentValue( parameter, elements ) : toCount( parameter, count );
+	}
+	
+	/**
+	 * Validate an element with the validators of the data binder
+	 * 
+	 * @param binder the data binder
+	 * @param errors the binding result of the collection
+	 * @param path the element path
+	 * @param element the element value
+	 * @param groups the validation groups
+	 */
+	private void validateElement( WebDataBinder binder, Errors errors, String path, Object element, Class<?> [] groups ) {
+		errors.pushNestedPath( path );
+		try {
+			for ( Validator validator : binder.getValidators() ) {
+				if ( element == null || !validator.supports( element.getClass() ) ) {
+					continue;
+				}
+				if ( validator instanceof SmartValidator && groups.length > 0 ) {
+					( ( SmartValidator ) validator ).validate( element, errors, ( Object [] ) groups );
+				} else {
+					validator.validate( element, errors );
+				}
+			}
+		} finally {
+			errors.popNestedPath();
+		}
+	}
+	
+	/**
+	 * Get the consumer of the valid elements
+	 * 
+	 * @param streamingBody the streaming body annotation
+	 * @return the element consumer, {@code null} if elements are retained.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private ElementConsumer<Object> getConsumer( StreamingBody streamingBody ) {
+		Class<?> consumerType = streamingBody.consumer();
+		if ( consumerType == ElementConsumer.class ) {
+			return null;
+		}
+		if ( beanFactory == null ) {
+			throw new IllegalStateException( "No bean factory to obtain the element consumer " + consumerType.getName() );
+		}
+		return ( ElementConsumer<Object> ) beanFactory.getBean( consumerType );
+	}
+	
+	/**
+	 * Get the element type of the streaming body
+	 * 
+	 * @param parameter the method parameter
+	 * @param streamingBody the streaming body annotation
+	 * @return the element type
+	 */
+	private ResolvableType getElementType( MethodParameter parameter, StreamingBody streamingBody ) {
+		if ( streamingBody.consumer() != ElementConsumer.class ) {
+			return ResolvableType.forClass( streamingBody.consumer() ).as( ElementConsumer.class ).getGeneric( 0 );
+		}
+		ResolvableType type = ResolvableType.forMethodParameter( parameter );
+		if ( type.isArray() ) {
+			return type.getComponentType();
+		}
+		if ( Collection.class.isAssignableFrom( type.resolve( Object.class ) ) ) {
+			return type.asCollection().getGeneric( 0 );
+		}
+		throw new IllegalStateException( "@StreamingBody parameter must be a collection or an array: " + parameter );
+	}
+	
+	/**
+	 * Convert the retained elements to the parameter type
+	 * 
+	 * @param parameter the method parameter
+	 * @param elements the retained elements
+	 * @return the argument value
+	 */
+	private Object toArgumentValue( MethodParameter parameter, List<Object> elements ) {
+		Class<?> parameterType = parameter.getParameterType();
+		if ( parameterType.isArray() ) {
+			Object array = Array.newInstance( parameterType.getComponentType(), elements.size() );
+			for ( int i = 0; i < elements.size(); i ++ ) {
+				Array.set( array, i, elements.get( i ) );
+			}
+			return array;
+		}
+		if ( parameterType.isInstance( elements ) ) {
+			return elements;
+		}
+		Collection<Object> collection = CollectionFactory.createCollection( parameterType, elements.size() );
+		collection.addAll( elements );
+		return collection;
+	}
+	
+	/**
+	 * Convert the consumed element count to the parameter type
+	 * 
+	 * @param parameter the method parameter
+	 * @param count the consumed element count
+	 * @return the argument value, {@code null} if the parameter is not a number.
+	 */
+	private Object toCount( MethodParameter parameter, long count ) {
+		Class<?> parameterType = parameter.getParameterType();
+		if ( parameterType == long.class || parameterType == Long.class ) {
+			return count;
+		}
+		if ( parameterType == int.class || parameterType == Integer.class ) {
+			return ( int ) count;
+		}
+		return null;
+	}
+	
+	/**
+	 * Whether to raise a fatal bind exception on validation errors
+	 * 
+	 * @param parameter the method parameter
+	 * @return {@code true} if the next method parameter is not of type {@link Errors}
+	 */
+	private boolean isBindExceptionRequired( MethodParameter parameter ) {
+		int i = parameter.getParameterIndex();
+		Class<?> [] paramTypes = parameter.getExecutable().getParameterTypes();
+		return !( paramTypes.length > ( i + 1 ) && Errors.class.isAssignableFrom( paramTypes[ i + 1 ] ) );
+	}
+
+}
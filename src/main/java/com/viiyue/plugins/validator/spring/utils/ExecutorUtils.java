@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Validation executor tool. Virtual threads are preferred when the running JVM
+ * supports them, otherwise a bounded pool of daemon threads is used.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ExecutorUtils {
+
+	private static final String THREAD_NAME_PREFIX = "validator-lite-";
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final Method newVirtualThreadPerTaskExecutor = ReflectionUtils.findMethod( Executors.class, "newVirtualThreadPerTaskExecutor" );
+
+	/**
+	 * Create the default validation executor. Without virtual threads, the pool
+	 * has twice as many threads as processors and a bounded queue, when the
+	 * queue is full the validation runs on the calling thread.
+	 *
+	 * @return the new executor instance, the caller is responsible for shutting it down.
+	 */
+	public static ExecutorService newValidationExecutor() {
+		if ( newVirtualThreadPerTaskExecutor != null ) {
+			return ( ExecutorService ) ReflectionUtils.invokeMethod( newVirtualThreadPerTaskExecutor, null );
+		}
+		int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+		ThreadPoolExecutor executor = new ThreadPoolExecutor( maxThreads, maxThreads, 60L, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<Runnable>( QUEUE_CAPACITY ), newThreadFactory( THREAD_NAME_PREFIX ), 
+				new ThreadPoolExecutor.CallerRunsPolicy() );
+		executor.allowCoreThreadTimeOut( true );
+		return executor;
+	}
+
+	/**
+	 * Create a daemon thread factory with the specified thread name prefix
+	 *
+	 * @param prefix the thread name prefix
+	 * @return the thread factory instance
+	 */
+	public static ThreadFactory newThreadFactory( final String prefix ) {
+		final AtomicInteger counter = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, prefix + counter.incrementAndGet() );
+				thread.setDaemon( true );
+				return thread;
+			}
+		};
+	}
+
+}
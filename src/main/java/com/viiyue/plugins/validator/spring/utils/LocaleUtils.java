@@ -21,6 +21,7 @@ import org.springframework.context.i18n.LocaleContextHolder;
 
 import com.viiyue.plugins.validator.Validator;
 import com.viiyue.plugins.validator.scripting.configuration.ContextConfigurion;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
 
 /**
  * Language selection tool. If the default language is configured, the default
@@ -36,8 +37,65 @@ import com.viiyue.plugins.validator.scripting.configuration.ContextConfigurion;
 public class LocaleUtils {
 	
 	public static Locale switchLocale() {
+		return selectLocale( Validator.getFactory().getConfiguration() );
+	}
+	
+	/**
+	 * Select the locale according to the configuration of the context-scoped
+	 * validator, the global configuration is used if the context is {@code null}.
+	 * 
+	 * @param context the context-scoped validator instance
+	 * @return the selected locale
+	 * @since 1.0.5
+	 */
+	public static Locale switchLocale( ValidatorContext context ) {
+		return context == null ? switchLocale() : switchLocale( context.getSnapshot() );
+	}
+	
+	/**
+	 * Select the locale according to a published state snapshot of the
+	 * context-scoped validator.
+	 * 
+	 * @param snapshot the validator state snapshot
+	 * @return the selected locale
+	 * @since 1.0.5
+	 */
+	public static Locale switchLocale( ValidatorContext.Snapshot snapshot ) {
+		Locale defaultLocale = snapshot.getDefaultLocale();
+		return defaultLocale == null ? LocaleContextHolder.getLocale() : defaultLocale;
+	}
+	
+	/**
+	 * Select the locale of a request that is not bound to the current thread,
+	 * the configured default language is preferred over the request locale.
+	 * 
+	 * @param context the context-scoped validator instance, the global configuration is used if it is {@code null}.
+	 * @param requestLocale the locale resolved from the request
+	 * @return the selected locale
+	 * @since 1.0.5
+	 */
+	public static Locale switchLocale( ValidatorContext context, Locale requestLocale ) {
+		Locale defaultLocale = null;
+		if ( context != null ) {
+			defaultLocale = context.getSnapshot().getDefaultLocale();
+		} else {
+			ContextConfigurion configuration = Validator.getFactory().getConfiguration();
+			defaultLocale = configuration == null ? null : configuration.getDefaultLanguage();
+		}
+		if ( defaultLocale == null ) {
+			defaultLocale = requestLocale == null ? Locale.getDefault() : requestLocale;
+		}
+		return defaultLocale;
+	}
+	
+	/**
+	 * Select the locale according to the configured default language
+	 * 
+	 * @param configuration the validator configuration
+	 * @return the selected locale
+	 */
+	private static Locale selectLocale( ContextConfigurion configuration ) {
 		Locale defaultLocale = null;
-		ContextConfigurion configuration = Validator.getFactory().getConfiguration();
 		if ( configuration == null || ( defaultLocale = configuration.getDefaultLanguage() ) == null ) {
 			defaultLocale = LocaleContextHolder.getLocale();
 		}
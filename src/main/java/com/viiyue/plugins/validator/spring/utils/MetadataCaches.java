@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+
+/**
+ * Integration-level metadata caches. The caches are keyed by application
+ * classes, when the plugin is loaded by a shared class loader (such as the
+ * common loader of a servlet container) a cache must not pin the class loader
+ * of a redeployed application. The plugin keeps no such cache in static
+ * state: every cache is owned by the beans of one application context (the
+ * validation plans and the rule interning table through its
+ * {@link ValidatorContext}), holds its entries strongly for as long as the
+ * context lives, and is cleared when the context is closed.
+ * 
+ * <p>
+ * Each cache is bounded by an entry limit, the limit of the
+ * {@link ValidatorContext} of the application context.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class MetadataCaches {
+	
+	public static final int DEFAULT_LIMIT = 4096;
+	
+	/**
+	 * Get the entry limit of the metadata caches of an application context
+	 * 
+	 * @param context the context-scoped validator instance, can be {@code null}.
+	 * @return the limit of the context, or {@link #DEFAULT_LIMIT} without a context.
+	 */
+	public static int getLimit( @Nullable ValidatorContext context ) {
+		return context == null ? DEFAULT_LIMIT : context.getMetadataCacheLimit();
+	}
+	
+	/**
+	 * Create a metadata cache, the caller owns the cache and must not outlive
+	 * its application context.
+	 * 
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 * @param initialCapacity the initial capacity
+	 * @return the new cache
+	 */
+	public static <K, V> Map<K, V> newCache( int initialCapacity ) {
+		return new ConcurrentHashMap<K, V>( initialCapacity );
+	}
+	
+	/**
+	 * Put an entry into a metadata cache unless the cache is full
+	 * 
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 * @param cache the metadata cache
+	 * @param key the cache key
+	 * @param value the metadata
+	 * @param limit the maximum entry count, negative means no limit.
+	 * @return {@code true} if the entry is cached
+	 */
+	public static <K, V> boolean put( Map<K, V> cache, K key, V value, int limit ) {
+		if ( limit >= 0 && cache.size() >= limit ) {
+			return false;
+		}
+		cache.put( key, value );
+		return true;
+	}
+
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.AbstractResourceBasedMessageSource;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.viiyue.plugins.validator.spring.batch.BatchRule;
+import com.viiyue.plugins.validator.spring.groups.GroupSequence;
+import com.viiyue.plugins.validator.spring.streaming.ElementConsumer;
+import com.viiyue.plugins.validator.spring.streaming.StreamingBody;
+
+/**
+ * Generator of GraalVM native-image metadata for the application. Run the
+ * application once on the JVM with {@code nativeImageResources} configured on
+ * {@code ValidatorLiteBean}, the generator then writes the reflection and
+ * resource configuration of the validation handlers, the validated java
+ * beans and their groups, the batch handlers, and the message bundles, as well
+ * as the handler index that replaces classpath scanning in a native image.
+ * 
+ * <pre>
+ * {resources}/META-INF/native-image/validator-lite-spring/reflect-config.json
+ * {resources}/META-INF/native-image/validator-lite-spring/resource-config.json
+ * {resources}/META-INF/validator-lite-spring/handlers.index
+ * </pre>
+ * 
+ * <p>
+ * The classes of the plugin itself are described by the metadata shipped in
+ * the plugin jar.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class NativeImageConfigGenerator {
+	
+	public static final String HANDLER_INDEX = "META-INF/validator-lite-spring/handlers.index";
+	private static final String CONFIG_DIRECTORY = "META-INF/native-image/validator-lite-spring";
+	private static final Logger log = LoggerFactory.getLogger( NativeImageConfigGenerator.class );
+	
+	// Reflection access of each type: constructors, methods and fields
+	private static final int CONSTRUCTORS = 1;
+	private static final int METHODS = 2;
+	private static final int FIELDS = 4;
+	
+	private final Map<String, Integer> reflectTypes = new TreeMap<String, Integer>();
+	private final Set<String> handlerClassNames = new TreeSet<String>();
+	private final Set<String> bundles = new TreeSet<String>();
+	
+	/**
+	 * Whether the application is running in a native image
+	 * 
+	 * @return {@code true} in a native image
+	 */
+	public static boolean inNativeImage() {
+		return System.getProperty( "org.graalvm.nativeimage.imagecode" ) != null;
+	}
+	
+	/**
+	 * Read the handler index generated for the native image
+	 * 
+	 * @return the handler class names, {@code null} if there is no index.
+	 */
+	public static List<String> readHandlerIndex() {
+		ClassPathResource index = new ClassPathResource( HANDLER_INDEX, NativeImageConfigGenerator.class.getClassLoader() );
+		if ( !index.exists() ) {
+			return null;
+		}
+		try ( InputStream in = index.getInputStream() ) {
+			String content = StreamUtils.copyToString( in, StandardCharsets.UTF_8 );
+			List<String> classNames = new ArrayList<String>( 32 );
+			for ( String line : StringUtils.tokenizeToStringArray( content, "\r\n" ) ) {
+				classNames.add( line );
+			}
+			return classNames;
+		} catch ( IOException e ) {
+			throw new IllegalStateException( "Unable to read the validation handler index", e );
+		}
+	}
+	
+	/**
+	 * Add the validation handlers found by package scanning
+	 * 
+	 * @param classNames the handler class names
+	 */
+	public void addHandlers( Collection<String> classNames ) {
+		for ( String className : classNames ) {
+			handlerClassNames.add( className );
+			register( className, CONSTRUCTORS | METHODS );
+		}
+	}
+	
+	/**
+	 * Add a type instantiated by the plugin, such as the validation factory
+	 * 
+	 * @param type the instantiated type, can be {@code null}.
+	 */
+	public void addInstantiatedType( Class<?> type ) {
+		if ( type != null ) {
+			register( type.getName(), CONSTRUCTORS | METHODS );
+		}
+	}
+	
+	/**
+	 * Add the validated parameters of all handler methods, and the message
+	 * bundles of the message source.
+	 * 
+	 * @param context the spring application context
+	 */
+	public void collect( ApplicationContext context ) {
+		for ( RequestMappingHandlerMapping handlerMapping : context.getBeansOfType( RequestMappingHandlerMapping.class ).values() ) {
+			for ( HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values() ) {
+				Validated validated = handlerMethod.getMethodAnnotation( Validated.class );
+				for ( MethodParameter parameter : handlerMethod.getMethodParameters() ) {
+					Validated parameterValidated = parameter.getParameterAnnotation( Validated.class );
+					StreamingBody streamingBody = parameter.getParameterAnnotation( StreamingBody.class );
+					if ( parameterValidated != null || validated != null ) {
+						addGroups( ( parameterValidated == null ? validated : parameterValidated ).value() );
+						addBean( ResolvableType.forMethodParameter( parameter ) );
+					}
+					if ( streamingBody != null ) {
+						addGroups( streamingBody.groups() );
+						addBean( ResolvableType.forMethodParameter( parameter ) );
+						if ( streamingBody.consumer() != ElementConsumer.class ) {
+							addInstantiatedType( streamingBody.consumer() );
+						}
+					}
+				}
+			}
+		}
+		MessageSource messageSource = context.getBean( MessageSource.class );
+		if ( messageSource instanceof AbstractResourceBasedMessageSource ) {
+			for ( String basename : ( ( AbstractResourceBasedMessageSource ) messageSource ).getBasenameSet() ) {
+				String path = StringUtils.replace( basename.substring( basename.indexOf( ':' ) + 1 ), ".", "/" );
+				bundles.add( StringUtils.trimLeadingCharacter( path, '/' ) );
+			}
+		}
+	}
+	
+	/**
+	 * Write the native-image metadata
+	 * 
+	 * @param resourcesDirectory the resources root of the application, such as {@code src/main/resources}.
+	 * @throws IOException if the files cannot be written
+	 */
+	public void write( Path resourcesDirectory ) throws IOException {
+		Path configDirectory = resourcesDirectory.resolve( CONFIG_DIRECTORY );
+		Files.createDirectories( configDirectory );
+		write( configDirectory.resolve( "reflect-config.json" ), getReflectConfig() );
+		write( configDirectory.resolve( "resource-config.json" ), getResourceConfig() );
+		Path index = resourcesDirectory.resolve( HANDLER_INDEX );
+		Files.createDirectories( index.getParent() );
+		write( index, StringUtils.collectionToDelimitedString( handlerClassNames, "\n" ) + "\n" );
+		log.info( "Native image metadata written to {}: {} reflective types, {} message bundles", 
+				resourcesDirectory, reflectTypes.size(), bundles.size() );
+	}
+	
+	/**
+	 * @return the content of {@code reflect-config.json}
+	 */
+	public String getReflectConfig() {
+		StringBuilder json = new StringBuilder( "[\n" );
+		for ( Map.Entry<String, Integer> entry : reflectTypes.entrySet() ) {
+			int access = entry.getValue();
+			json.append( json.length() > 2 ? ",\n" : "" ).append( "  { \"name\": " ).append( quote( entry.getKey() ) );
+			if ( ( access & CONSTRUCTORS ) != 0 ) {
+				json.append( ", \"allDeclaredConstructors\": true" );
+			}
+			if ( ( access & METHODS ) != 0 ) {
+				json.append( ", \"allDeclaredMethods\": true, \"allPublicMethods\": true" );
+			}
+			if ( ( access & FIELDS ) != 0 ) {
+				json.append( ", \"allDeclaredFields\": true" );
+			}
+			json.append( " }" );
+		}
+		return json.append( "\n]\n" ).toString();
+	}
+	
+	/**
+	 * @return the content of {@code resource-config.json}
+	 */
+	public String getResourceConfig() {
+		StringBuilder json = new StringBuilder( "{\n  \"resources\": { \"includes\": [\n" );
+		json.append( "    { \"pattern\": " ).append( quote( "\\Q" + HANDLER_INDEX + "\\E" ) ).append( " }" );
+		for ( String bundle : bundles ) {
+			json.append( ",\n    { \"pattern\": " ).append( quote( "\\Q" + bundle + "\\E.*\\.properties" ) ).append( " }" );
+		}
+		json.append( "\n  ] },\n  \"bundles\": [" );
+		boolean first = true;
+		for ( String bundle : bundles ) {
+			json.append( first ? "\n" : ",\n" ).append( "    { \"name\": " ).append( quote( bundle.replace( '/', '.' ) ) ).append( " }" );
+			first = false;
+		}
+		return json.append( "\n  ]\n}\n" ).toString();
+	}
+	
+	/**
+	 * Add the validation groups and the groups of their sequences
+	 * 
+	 * @param groups the validation groups or hints
+	 */
+	private void addGroups( Object [] groups ) {
+		for ( Object group : groups ) {
+			if ( group instanceof Class && !reflectTypes.containsKey( ( ( Class<?> ) group ).getName() ) ) {
+				Class<?> groupType = ( Class<?> ) group;
+				register( groupType.getName(), 0 );
+				GroupSequence sequence = groupType.getAnnotation( GroupSequence.class );
+				if ( sequence != null ) {
+					addGroups( sequence.value() );
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Add a validated java bean and the java beans of its fields, including
+	 * collection and array elements.
+	 * 
+	 * @param type the validated type
+	 */
+	private void addBean( ResolvableType type ) {
+		Class<?> beanType = type.isArray() ? type.getComponentType().resolve() : type.resolve();
+		if ( beanType != null && ( Collection.class.isAssignableFrom( beanType ) || Map.class.isAssignableFrom( beanType ) ) ) {
+			ResolvableType elementType = Map.class.isAssignableFrom( beanType ) ? type.asMap().getGeneric( 1 ) : type.asCollection().getGeneric( 0 );
+			addBean( elementType );
+			return;
+		}
+		if ( beanType == null || beanType.isPrimitive() || BeanUtils.isSimpleValueType( beanType ) 
+				|| beanType.getName().startsWith( "java." ) || reflectTypes.containsKey( beanType.getName() ) ) {
+			return;
+		}
+		register( beanType.getName(), CONSTRUCTORS | METHODS | FIELDS );
+		ReflectionUtils.doWithFields( beanType, field -> addField( field ) );
+	}
+	
+	/**
+	 * Add the nested java bean and the batch handler of a field
+	 * 
+	 * @param field the bean field
+	 */
+	private void addField( Field field ) {
+		BatchRule batchRule = field.getAnnotation( BatchRule.class );
+		if ( batchRule != null ) {
+			addInstantiatedType( batchRule.value() );
+		}
+		addBean( ResolvableType.forField( field ) );
+	}
+	
+	private void register( String className, int access ) {
+		reflectTypes.merge( className, access, ( a, b ) -> a | b );
+	}
+	
+	private void write( Path file, String content ) throws IOException {
+		Files.write( file, content.getBytes( StandardCharsets.UTF_8 ) );
+	}
+	
+	private String quote( String value ) {
+		return "\"" + StringUtils.replace( StringUtils.replace( value, "\\", "\\\\" ), "\"", "\\\"" ) + "\"";
+	}
+
+}
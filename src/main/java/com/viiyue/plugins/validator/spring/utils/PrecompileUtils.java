@@ -15,18 +15,38 @@
  */
 package com.viiyue.plugins.validator.spring.utils;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import com.viiyue.plugins.validator.Validator;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.metrics.CacheStatistics;
+import com.viiyue.plugins.validator.spring.metrics.FlightRecorderSupport;
+import com.viiyue.plugins.validator.spring.metrics.PrecompileEvent;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+import com.viiyue.plugins.validator.spring.regex.JdkRegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+import com.viiyue.plugins.validator.spring.report.ReportOnly;
 import com.viiyue.plugins.validator.utils.ArrayUtil;
 
 /**
@@ -39,10 +59,58 @@ public class PrecompileUtils {
 	
 	private static final Logger log = LoggerFactory.getLogger( Validator.class );
 	private static final String beanName = "requestMappingHandlerMapping";
+	private static final String RULE_PACKAGE = "com.viiyue.plugins.validator.";
 
 	public static void compile( ApplicationContext context ) {
+		compile( context, null );
+	}
+	
+	/**
+	 * Precompile the validation rules of all handler methods, and record the
+	 * statistics to the validation diagnostics.
+	 * 
+	 * @param context the spring application context
+	 * @param metrics the validation metrics, can be {@code null}.
+	 * @since 1.0.5
+	 */
+	public static void compile( ApplicationContext context, ValidationMetrics metrics ) {
+		compile( context, metrics, RegexEngines.jdk() );
+	}
+	
+	/**
+	 * Precompile the validation rules of all handler methods, and report the
+	 * pattern rules that are unsafe for backtracking (or not supported by the
+	 * configured linear-time engine).
+	 * 
+	 * @param context the spring application context
+	 * @param metrics the validation metrics, can be {@code null}.
+	 * @param regexEngine the regex engine configured for the plugin
+	 * @since 1.0.5
+	 */
+	public static void compile( ApplicationContext context, ValidationMetrics metrics, RegexEngine regexEngine ) {
+		compile( context, metrics, regexEngine, null );
+	}
+	
+	/**
+	 * Precompile the validation rules of all handler methods, and expand their
+	 * validation plans into the caches of the validator context.
+	 * 
+	 * @param context the spring application context
+	 * @param metrics the validation metrics, can be {@code null}.
+	 * @param regexEngine the regex engine configured for the plugin
+	 * @param validatorContext the context-scoped validator instance, can be {@code null}.
+	 * @since 1.0.5
+	 */
+	public static void compile( ApplicationContext context, ValidationMetrics metrics, RegexEngine regexEngine, 
+			@Nullable ValidatorContext validatorContext ) {
 		if ( context.containsBean( beanName ) ) {
+			GroupSequences groupSequences = GroupSequences.of( validatorContext );
+			int methodCount = 0;
+			Map<String, String> patterns = new LinkedHashMap<String, String>();
+			Map<Annotation, Integer> rules = new HashMap<Annotation, Integer>( 256 );
+			Set<Class<?>> compiledTypes = new HashSet<Class<?>>();
 			long startTime = System.currentTimeMillis();
+			PrecompileEvent event = FlightRecorderSupport.AVAILABLE ? PrecompileEvent.start() : null;
 			// Precompile method parameter validation annotations in the controller
 			// to reduce time consumption during actual validation
 			RequestMappingHandlerMapping handlerMapping = context.getBean( RequestMappingHandlerMapping.class );
@@ -50,19 +118,135 @@ public class PrecompileUtils {
 			for ( HandlerMethod handlerMethod : handlerMethods.values() ) {
 				MethodParameter [] parameters = handlerMethod.getMethodParameters();
 				if ( ArrayUtil.isNotEmpty( parameters ) ) {
+					boolean compiled = false;
 					Validated validated = handlerMethod.getMethodAnnotation( Validated.class );
 					// Check every parameter of the controller, 
 					// and pre-compiled the rules if the @Validated annotation is marked.
 					for ( MethodParameter methodParameter : parameters ) {
-						if ( validated != null || methodParameter.hasParameterAnnotation( Validated.class ) ) {
+						Validated parameterValidated = methodParameter.getParameterAnnotation( Validated.class );
+						if ( validated != null || parameterValidated != null ) {
+							compiled = true;
+							collectPatterns( methodParameter.getParameter(), handlerMethod.getMethod().toGenericString(), patterns );
+							collectRules( methodParameter.getParameter(), rules );
+							// Expand the group sequences in advance
+							groupSequences.getPlan( ( Object [] ) ( parameterValidated == null ? validated : parameterValidated ).value() );
 							if ( Validator.compile( methodParameter.getParameter() ) == null ) { // Ordinary parameters
 								Validator.compile( methodParameter.getParameterType() ); // Entity bean object
+								if ( compiledTypes.add( methodParameter.getParameterType() ) ) {
+									ReflectionUtils.doWithFields( methodParameter.getParameterType(), field -> {
+										collectPatterns( field, field.toGenericString(), patterns );
+										collectRules( field, rules );
+									} );
+								}
 							}
 						}
 					}
+					if ( compiled ) {
+						methodCount ++;
+					}
 				}
 			}
-			log.info( "Pre-compilation of validation rules is completed, processing time {}ms", System.currentTimeMillis() - startTime );
+			long elapsedTime = System.currentTimeMillis() - startTime;
+			if ( metrics != null ) {
+				metrics.recordPrecompile( methodCount, compiledTypes.size(), elapsedTime );
+			}
+			if ( event != null ) {
+				event.finish( methodCount, compiledTypes.size() );
+			}
+			log.info( "Pre-compilation of validation rules is completed, processing time {}ms", elapsedTime );
+			reportPatterns( patterns, regexEngine );
+			reportRules( rules, validatorContext );
+		}
+	}
+	
+	/**
+	 * Count the rule annotations of validator-lite on an element, rules are
+	 * equal if they have the same type and arguments.
+	 * 
+	 * @param element the annotated parameter or field
+	 * @param rules the distinct rules and their declaration count
+	 */
+	private static void collectRules( AnnotatedElement element, Map<Annotation, Integer> rules ) {
+		for ( Annotation annotation : element.getAnnotations() ) {
+			Class<? extends Annotation> annotationType = annotation.annotationType();
+			if ( annotationType.getName().startsWith( RULE_PACKAGE ) && annotationType != ReportOnly.class ) {
+				rules.merge( annotation, 1, Integer::sum );
+			}
+		}
+	}
+	
+	/**
+	 * Log the duplication of the rule declarations, and the instances
+	 * deduplicated by the rule interning table.
+	 * 
+	 * @param rules the distinct rules and their declaration count
+	 * @param validatorContext the context-scoped validator instance, can be {@code null}.
+	 */
+	private static void reportRules( Map<Annotation, Integer> rules, ValidatorContext validatorContext ) {
+		int declarations = 0;
+		for ( Integer count : rules.values() ) {
+			declarations += count;
+		}
+		if ( declarations > 0 ) {
+			log.info( "{} rule declarations on validated parameters and fields, {} distinct rules", declarations, rules.size() );
+		}
+		if ( validatorContext == null ) {
+			return;
+		}
+		CacheStatistics statistics = validatorContext.getRuleInterner().getCacheStatistics();
+		log.info( "{} validation plans interned, {} deduplicated", statistics.getSize(), statistics.getHits() );
+	}
+	
+	/**
+	 * Collect the regular expressions of the rule annotations on an element,
+	 * that is the {@code regex}, {@code regexp} and {@code pattern}
+	 * attributes, and the {@code value} of pattern annotations.
+	 * 
+	 * @param element the annotated parameter or field
+	 * @param location the description of the element
+	 * @param patterns the collected patterns and their first location
+	 */
+	private static void collectPatterns( AnnotatedElement element, String location, Map<String, String> patterns ) {
+		for ( Annotation annotation : element.getAnnotations() ) {
+			String annotationName = annotation.annotationType().getSimpleName().toLowerCase();
+			boolean patternAnnotation = annotationName.contains( "pattern" ) || annotationName.contains( "regex" );
+			for ( Method attribute : annotation.annotationType().getDeclaredMethods() ) {
+				String name = attribute.getName();
+				if ( attribute.getReturnType() == String.class && attribute.getParameterCount() == 0 
+						&& ( name.equals( "regex" ) || name.equals( "regexp" ) || name.equals( "pattern" ) || ( patternAnnotation && name.equals( "value" ) ) ) ) {
+					String regex = ( String ) ReflectionUtils.invokeMethod( attribute, annotation );
+					if ( regex != null && !regex.isEmpty() && !patterns.containsKey( regex ) ) {
+						patterns.put( regex, location );
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Log the patterns that are unsafe for backtracking, or not supported by
+	 * the linear-time engine.
+	 * 
+	 * @param patterns the collected patterns and their first location
+	 * @param regexEngine the regex engine configured for the plugin
+	 */
+	private static void reportPatterns( Map<String, String> patterns, RegexEngine regexEngine ) {
+		int unsafeCount = 0;
+		for ( Entry<String, String> entry : patterns.entrySet() ) {
+			if ( RegexEngines.isBacktrackingUnsafe( entry.getKey() ) ) {
+				unsafeCount ++;
+				log.warn( "Validation pattern '{}' on {} is unsafe for backtracking", entry.getKey(), entry.getValue() );
+			}
+			if ( !( regexEngine instanceof JdkRegexEngine ) ) {
+				try {
+					regexEngine.compile( entry.getKey() );
+				} catch ( IllegalArgumentException e ) {
+					log.warn( "Validation pattern '{}' on {} is not supported by the {} engine", entry.getKey(), entry.getValue(), regexEngine.getName() );
+				}
+			}
+		}
+		if ( !patterns.isEmpty() ) {
+			log.info( "{} validation patterns checked, {} unsafe for backtracking", patterns.size(), unsafeCount );
 		}
 	}
 	
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.metrics.CacheStatistics;
+import com.viiyue.plugins.validator.spring.regex.CompiledPattern;
+import com.viiyue.plugins.validator.spring.regex.RegexEngine;
+
+/**
+ * Interning table of the rule metadata built by the integration. Identical
+ * regular expressions declared on many fields and parameters share one
+ * compiled pattern, keyed by the engine type and the expression, and equal
+ * validation plans share one instance, keyed by their stages. Rule
+ * annotations are not interned, each reflective element already caches its
+ * own annotation instances, so a canonical copy would free nothing.
+ * 
+ * <p>
+ * A hit of the statistics is a new instance that was deduplicated by an equal
+ * canonical instance and a miss is a new canonical instance, looking up an
+ * already interned pattern again is not counted. The table holds its instances strongly and is bounded
+ * by an entry limit, the rules beyond the limit are not interned. Each
+ * application context owns its own table through its {@link ValidatorContext},
+ * so the table never outlives the classes of the application, see
+ * {@link MetadataCaches}.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class RuleInterner {
+	
+	private final Map<Object, Object> rules = MetadataCaches.newCache( 256 );
+	private final CacheStatistics cacheStatistics = new CacheStatistics( rules );
+	private final int limit;
+	
+	/**
+	 * @param limit the maximum entry count, negative means no limit.
+	 */
+	public RuleInterner( int limit ) {
+		this.limit = limit;
+	}
+	
+	/**
+	 * @return the statistics of the interning table
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return cacheStatistics;
+	}
+	
+	/**
+	 * Get the canonical compiled pattern of a regular expression, the
+	 * expression is only compiled the first time.
+	 * 
+	 * @param engine the regular expression engine
+	 * @param regex the regular expression
+	 * @return the canonical compiled pattern
+	 * @throws IllegalArgumentException if the expression is invalid for the engine
+	 */
+	public CompiledPattern intern( RegexEngine engine, String regex ) {
+		List<Object> key = Arrays.asList( engine.getClass(), regex );
+		CompiledPattern pattern = ( CompiledPattern ) rules.get( key );
+		if ( pattern != null ) {
+			return pattern; // Looked up again, nothing is deduplicated
+		}
+		return intern( key, engine.compile( regex ) );
+	}
+	
+	/**
+	 * Get the canonical instance of a validation plan
+	 * 
+	 * @param plan the validation stages, can be {@code null}.
+	 * @return the canonical plan with the same stages
+	 */
+	public Class<?> [][] intern( Class<?> [][] plan ) {
+		if ( plan == null || plan.length == 0 ) {
+			return plan;
+		}
+		List<List<Class<?>>> key = new ArrayList<List<Class<?>>>( plan.length );
+		for ( Class<?> [] stage : plan ) {
+			key.add( Arrays.asList( stage ) );
+		}
+		return intern( key, plan );
+	}
+	
+	/**
+	 * Discard all canonical instances and reset the statistics, the instances
+	 * already shared remain valid.
+	 */
+	public void clear() {
+		rules.clear();
+		cacheStatistics.reset();
+	}
+	
+	/**
+	 * Put the instance into the table if there is no equal instance yet
+	 * 
+	 * @param <T> the instance type
+	 * @param key the rule key
+	 * @param instance the candidate instance
+	 * @return the canonical instance of the key
+	 */
+	@SuppressWarnings( "unchecked" )
+	private <T> T intern( Object key, T instance ) {
+		Object canonical = limit >= 0 && rules.size() >= limit ? rules.get( key ) : rules.putIfAbsent( key, instance );
+		if ( canonical == null ) {
+			cacheStatistics.miss();
+			return instance;
+		}
+		cacheStatistics.hit();
+		return ( T ) canonical;
+	}
+
+}
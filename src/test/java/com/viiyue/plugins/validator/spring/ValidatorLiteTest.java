@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+
+import com.viiyue.plugins.validator.metadata.result.ElementResult;
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.batch.BatchHandler;
+import com.viiyue.plugins.validator.spring.batch.BatchRule;
+import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+import com.viiyue.plugins.validator.spring.groups.GroupSequence;
+import com.viiyue.plugins.validator.spring.groups.PartialUpdate;
+
+/**
+ * Stage-by-stage validation of partial updates, the engine rejections of
+ * each stage are scripted by the validator context.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidatorLiteTest {
+
+	private final List<Class<?>> validatedStages = new ArrayList<Class<?>>();
+	private final ValidatorLite validator = new ValidatorLite();
+
+	@Before
+	public void scriptTheEngine() {
+		SkuStore.queries.clear();
+		validator.setValidatorContext( new ValidatorContext( Locale.ENGLISH ) {
+			@Override
+			public ValidatedResult validateBean( Object target, Locale locale, Class<?> ... groups ) {
+				validatedStages.add( groups[ 0 ] );
+				// The first stage rejects the email, the second one the name
+				return rejected( groups[ 0 ] == First.class ? "email" : "name" );
+			}
+		} );
+	}
+
+	@Test
+	public void continuesWhenOnlyUnboundPropertiesAreRejected() {
+		Account account = new Account();
+		BeanBindingResult errors = bind( account, "name", "sku" );
+
+		validator.validate( account, errors, PartialUpdate.class, Sequence.class );
+
+		assertEquals( Arrays.asList( First.class, Second.class ), validatedStages );
+		assertEquals( Collections.singletonList( Collections.singleton( "SKU-1" ) ), SkuStore.queries );
+		assertEquals( 1, errors.getErrorCount() );
+		assertEquals( "name", errors.getFieldError().getField() );
+		assertNull( errors.getFieldError( "email" ) );
+	}
+
+	@Test
+	public void stopsWhenABoundPropertyIsRejected() {
+		Account account = new Account();
+		BeanBindingResult errors = bind( account, "email", "sku" );
+
+		validator.validate( account, errors, PartialUpdate.class, Sequence.class );
+
+		assertEquals( Collections.singletonList( First.class ), validatedStages );
+		assertEquals( Collections.emptyList(), SkuStore.queries );
+		assertEquals( 1, errors.getErrorCount() );
+		assertEquals( "email", errors.getFieldError().getField() );
+	}
+
+	@Test
+	public void stopsAtTheFirstRejectedStageOfAFullUpdate() {
+		Account account = new Account();
+		BeanBindingResult errors = new BeanBindingResult( account, "account", true, 256 );
+
+		validator.validate( account, errors, Sequence.class );
+
+		assertEquals( Collections.singletonList( First.class ), validatedStages );
+		assertEquals( "email", errors.getFieldError().getField() );
+	}
+
+	private static BeanBindingResult bind( Account account, String ... paths ) {
+		MutablePropertyValues values = new MutablePropertyValues();
+		for ( String path : paths ) {
+			values.add( path, "bound" );
+		}
+		BeanBindingResult errors = new BeanBindingResult( account, "account", true, 256 );
+		errors.addBoundPaths( values );
+		return errors;
+	}
+
+	private static ValidatedResult rejected( String field ) {
+		FragmentResult fragment = new FragmentResult() {
+			@Override
+			public String getErrorCode() {
+				return "invalid";
+			}
+			@Override
+			public String getErrorMessage() {
+				return field + " is invalid";
+			}
+		};
+		ElementResult element = new ElementResult() {
+			@Override
+			public String getField() {
+				return field;
+			}
+			@Override
+			public Object getResult() {
+				return Collections.singletonList( fragment );
+			}
+		};
+		return new ValidatedResult() {
+			@Override
+			public boolean isPassed() {
+				return false;
+			}
+			@Override
+			public List<ElementResult> getRejectedResults() {
+				return Collections.singletonList( element );
+			}
+		};
+	}
+
+	interface First {
+	}
+
+	interface Second {
+	}
+
+	@GroupSequence( { First.class, Second.class } )
+	interface Sequence {
+	}
+
+	static class Account {
+
+		private String name = "name";
+		private String email = "email";
+		@BatchRule( value = SkuStore.class, groups = First.class )
+		private String sku = "SKU-1";
+
+	}
+
+	/**
+	 * In-memory SKU store that knows every SKU
+	 */
+	public static class SkuStore implements BatchHandler<String> {
+
+		private static final List<Set<String>> queries = Collections.synchronizedList( new ArrayList<Set<String>>() );
+
+		@Override
+		public Set<String> reject( Set<String> values ) {
+			queries.add( new HashSet<String>( values ) );
+			return Collections.emptySet();
+		}
+
+	}
+
+}
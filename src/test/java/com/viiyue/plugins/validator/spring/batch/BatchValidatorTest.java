@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+
+/**
+ * Batch rules of nested beans, validated against an in-memory SKU store
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class BatchValidatorTest {
+
+	private final BatchValidator validator = new BatchValidator( null );
+
+	@Before
+	public void resetStore() {
+		SkuStore.queries.clear();
+	}
+
+	@Test
+	public void collectsTheRulesOfCollectionElements() {
+		Order order = new Order( line( "SKU-1" ), line( "SKU-404" ), line( "SKU-2" ), line( "SKU-1" ) );
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( order, "order" );
+
+		assertFalse( validator.validate( order, errors, null, null, null, null ) );
+		assertEquals( Arrays.asList( "lines[1].sku" ), rejectedFields( errors ) );
+		assertEquals( "SKU-404", errors.getFieldError( "lines[1].sku" ).getRejectedValue() );
+
+		// One query with the distinct SKUs of the whole order
+		assertEquals( 1, SkuStore.queries.size() );
+		assertEquals( new HashSet<String>( Arrays.asList( "SKU-1", "SKU-404", "SKU-2" ) ), SkuStore.queries.get( 0 ) );
+	}
+
+	@Test
+	public void collectsTheRulesOfNestedBeansArraysAndMaps() {
+		Order order = new Order( line( "SKU-1" ) );
+		order.customer = new Customer();
+		order.customer.favorite = line( "SKU-405" );
+		order.bundles = new OrderLine [] { line( "SKU-2" ), line( "SKU-406" ) };
+		order.gifts = new LinkedHashMap<String, OrderLine>();
+		order.gifts.put( "birthday", line( "SKU-407" ) );
+		order.gifts.put( "wedding", line( "SKU-3" ) );
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( order, "order" );
+
+		assertFalse( validator.validate( order, errors, null, null, null, null ) );
+		assertEquals( Arrays.asList( "customer.favorite.sku", "bundles[1].sku", "gifts[birthday].sku" ), rejectedFields( errors ) );
+		assertEquals( 1, SkuStore.queries.size() );
+	}
+
+	@Test
+	public void visitsEachBeanOnce() {
+		Order order = new Order( line( "SKU-1" ), line( "SKU-404" ) );
+		for ( OrderLine line : order.lines ) {
+			line.order = order;
+		}
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( order, "order" );
+
+		assertFalse( validator.validate( order, errors, null, null, null, null ) );
+		assertEquals( Arrays.asList( "lines[1].sku" ), rejectedFields( errors ) );
+	}
+
+	@Test
+	public void honorsThePathFilter() {
+		Order order = new Order( line( "SKU-404" ), line( "SKU-405" ) );
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( order, "order" );
+
+		assertFalse( validator.validate( order, errors, path -> path.startsWith( "lines[1]" ), null, null, null ) );
+		assertEquals( Arrays.asList( "lines[1].sku" ), rejectedFields( errors ) );
+	}
+
+	@Test
+	public void passesWithoutQueryingWhenThereAreNoValues() {
+		Order order = new Order();
+		order.customer = new Customer();
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( order, "order" );
+
+		assertTrue( validator.validate( order, errors, null, null, null, null ) );
+		assertFalse( errors.hasErrors() );
+		assertTrue( SkuStore.queries.isEmpty() );
+	}
+
+	@Test
+	public void onlyReflectsOnFieldsThatMayHoldBeans() {
+		List<String> names = new ArrayList<String>();
+		for ( java.lang.reflect.Field field : validator.getNestedFields( Order.class ) ) {
+			names.add( field.getName() );
+		}
+		assertEquals( Arrays.asList( "customer", "lines", "bundles", "gifts" ), names );
+	}
+
+	@Test
+	public void onlyReachesTheTypesLeadingToBatchRules() {
+		assertTrue( validator.reachesBatchRule( Order.class ) );
+		assertTrue( validator.reachesBatchRule( Customer.class ) );
+		assertTrue( validator.reachesBatchRule( Shipment.class ) );
+		assertFalse( validator.reachesBatchRule( Note.class ) );
+		assertFalse( validator.reachesBatchRule( String.class ) );
+		assertFalse( validator.reachesBatchRule( Object.class ) );
+	}
+
+	@Test
+	public void skipsTheBeansThatCannotReachBatchRules() {
+		Note note = new Note();
+		note.reply = new Note();
+		note.reply.reply = note;
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( note, "note" );
+
+		assertTrue( validator.validate( note, errors, null, null, null, null ) );
+		assertEquals( 0, validator.getNestedFields( Note.class ).length );
+		assertTrue( SkuStore.queries.isEmpty() );
+	}
+
+	@Test
+	public void reachesBatchRulesThroughCyclicTypes() {
+		Shipment shipment = new Shipment();
+		shipment.parcel = new Parcel();
+		shipment.parcel.shipment = shipment;
+		shipment.parcel.content = line( "SKU-404" );
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult( shipment, "shipment" );
+
+		assertFalse( validator.validate( shipment, errors, null, null, null, null ) );
+		assertEquals( Arrays.asList( "parcel.content.sku" ), rejectedFields( errors ) );
+	}
+
+	private static OrderLine line( String sku ) {
+		OrderLine line = new OrderLine();
+		line.sku = sku;
+		return line;
+	}
+
+	private static List<String> rejectedFields( BeanPropertyBindingResult errors ) {
+		List<String> fields = new ArrayList<String>();
+		for ( FieldError error : errors.getFieldErrors() ) {
+			fields.add( error.getField() );
+		}
+		return fields;
+	}
+
+	/**
+	 * In-memory SKU store, the SKUs of the 4xx range do not exist
+	 */
+	public static class SkuStore implements BatchHandler<String> {
+
+		private static final List<Set<String>> queries = Collections.synchronizedList( new ArrayList<Set<String>>() );
+
+		@Override
+		public Set<String> reject( Set<String> values ) {
+			queries.add( new HashSet<String>( values ) );
+			Set<String> missing = new LinkedHashSet<String>();
+			for ( String sku : values ) {
+				if ( sku.startsWith( "SKU-4" ) ) {
+					missing.add( sku );
+				}
+			}
+			return missing;
+		}
+
+	}
+
+	static class Order {
+
+		// Static fields are never traversed
+		private static Order template;
+
+		private String id = "order";
+		private int priority;
+		private Customer customer;
+		private List<OrderLine> lines;
+		private OrderLine [] bundles;
+		private Map<String, OrderLine> gifts;
+
+		// Cannot reach a batch rule through their declared types
+		private Note note;
+		private List<Note> notes;
+		private Object attachment;
+
+		Order( OrderLine ... lines ) {
+			this.lines = lines.length == 0 ? null : Arrays.asList( lines );
+		}
+
+	}
+
+	static class Customer {
+
+		private String name = "customer";
+		private OrderLine favorite;
+
+	}
+
+	static class OrderLine {
+
+		@BatchRule( SkuStore.class )
+		private String sku;
+		private int quantity = 1;
+		private Order order;
+
+	}
+
+	static class Note {
+
+		private String text;
+		private List<String> tags;
+		private Note reply;
+
+	}
+
+	static class Shipment {
+
+		private Parcel parcel;
+
+	}
+
+	static class Parcel {
+
+		private Shipment shipment;
+		private OrderLine content;
+
+	}
+
+}
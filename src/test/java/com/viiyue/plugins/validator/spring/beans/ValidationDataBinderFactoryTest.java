@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.format.Formatter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+
+/**
+ * Cached binder configurations of the {@code @InitBinder} methods
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationDataBinderFactoryTest {
+
+	private final Binders binders = new Binders();
+	private final NativeWebRequest request = new ServletWebRequest( new MockHttpServletRequest() );
+
+	@Test
+	public void initBinderRunsOncePerHandlerAndObjectName() throws Exception {
+		MessageCodesResolver messageCodesResolver = new DefaultMessageCodesResolver();
+		ConfigurableWebBindingInitializer initializer = new ConfigurableWebBindingInitializer();
+		initializer.setMessageCodesResolver( messageCodesResolver );
+		ValidationDataBinderFactory factory = newFactory( initializer, "withFormatter", "withRequestDependent" );
+
+		for ( int i = 0; i < 3; i ++ ) {
+			WebDataBinder binder = factory.createBinder( request, new Order(), "order" );
+			// The formatter and the message codes resolver are applied to every binder
+			assertNotNull( binder.findCustomEditor( Sku.class, null ) );
+			assertSame( messageCodesResolver, ( ( ValidationServletRequestDataBinder ) binder ).getMessageCodesResolver() );
+		}
+		assertEquals( 1, binders.formatterCalls );
+
+		factory.createBinder( request, new Order(), "draft" );
+		assertEquals( 2, binders.formatterCalls );
+	}
+
+	@Test
+	public void requestDependentMethodsRunOnEveryRequest() throws Exception {
+		ValidationDataBinderFactory factory = newFactory( null, "withFormatter", "withRequestDependent" );
+
+		for ( int i = 0; i < 3; i ++ ) {
+			factory.createBinder( request, new Order(), "order" );
+		}
+		assertEquals( 1, binders.formatterCalls );
+		assertEquals( 3, binders.requestDependentCalls );
+	}
+
+	@Test
+	public void propertyEditorsAreNotCaptured() throws Exception {
+		ValidationDataBinderFactory factory = newFactory( null, "withEditor" );
+
+		for ( int i = 0; i < 3; i ++ ) {
+			factory.createBinder( request, new Order(), "order" );
+		}
+		assertEquals( 3, binders.editorCalls );
+	}
+
+	private ValidationDataBinderFactory newFactory( ConfigurableWebBindingInitializer initializer, String ... methodNames ) throws Exception {
+		List<InvocableHandlerMethod> binderMethods = new ArrayList<InvocableHandlerMethod>();
+		for ( String methodName : methodNames ) {
+			Method method = Binders.class.getDeclaredMethod( methodName, WebDataBinder.class );
+			binderMethods.add( new InvocableHandlerMethod( binders, method ) );
+		}
+		return new ValidationDataBinderFactory( binderMethods, initializer, null, new ConcurrentHashMap<>(), -1 );
+	}
+
+	static class Binders {
+
+		private int formatterCalls;
+		private int requestDependentCalls;
+		private int editorCalls;
+
+		@InitBinder
+		public void withFormatter( WebDataBinder binder ) {
+			formatterCalls ++;
+			binder.addCustomFormatter( new SkuFormatter() );
+		}
+
+		@InitBinder
+		@RequestDependent
+		public void withRequestDependent( WebDataBinder binder ) {
+			requestDependentCalls ++;
+		}
+
+		@InitBinder
+		public void withEditor( WebDataBinder binder ) {
+			editorCalls ++;
+			binder.registerCustomEditor( String.class, new StringTrimmerEditor( true ) );
+		}
+
+	}
+
+	static class Order {
+
+		private Sku sku;
+
+		public Sku getSku() {
+			return sku;
+		}
+
+		public void setSku( Sku sku ) {
+			this.sku = sku;
+		}
+
+	}
+
+	static class Sku {
+
+		private final String code;
+
+		Sku( String code ) {
+			this.code = code;
+		}
+
+	}
+
+	static class SkuFormatter implements Formatter<Sku> {
+
+		@Override
+		public String print( Sku sku, Locale locale ) {
+			return sku.code;
+		}
+
+		@Override
+		public Sku parse( String text, Locale locale ) {
+			return new Sku( text );
+		}
+
+	}
+
+}
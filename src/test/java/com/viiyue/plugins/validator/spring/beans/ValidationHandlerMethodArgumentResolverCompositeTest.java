@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.bindings.ParameterBindingResult;
+import com.viiyue.plugins.validator.spring.budget.ValidationBudget;
+import com.viiyue.plugins.validator.spring.exception.ValidatedException;
+
+/**
+ * Lazy creation of the binding result of validated handler method parameters
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationHandlerMethodArgumentResolverCompositeTest {
+
+	private static final int ITERATIONS = 20000;
+
+	private final WebDataBinderFactory binderFactory = new ValidationDataBinderFactory( 
+			Collections.<InvocableHandlerMethod> emptyList(), null );
+
+	@Test
+	public void replaysPassedParametersWhenALaterParameterIsRejected() throws Exception {
+		// The first parameter outlives the time budget, so the second one is rejected
+		ValidationBudget budget = new ValidationBudget();
+		budget.setTimeoutMillis( 50 );
+		ValidatorContext context = new ValidatorContext( Locale.ENGLISH ) {
+			@Override
+			public ValidatedResult validateParameter( Object argument, Parameter parameter, String parameterName, 
+					String defaultMessage, Locale locale, Class<?> ... groups ) {
+				try {
+					Thread.sleep( 100 );
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+				return super.validateParameter( argument, parameter, parameterName, defaultMessage, locale, groups );
+			}
+		};
+		context.setBudget( budget );
+		ValidationHandlerMethodArgumentResolverComposite composite = newComposite( context );
+		MethodParameter [] parameters = parameters( "withoutErrors" );
+
+		// The first request initializes the classes, which must not count against the budget
+		try {
+			resolve( composite, parameters, new ServletWebRequest( new MockHttpServletRequest() ), new ModelAndViewContainer(), 1 );
+		} catch ( ValidatedException e ) {
+			// Rejected by the time budget as well
+		}
+		NativeWebRequest request = new ServletWebRequest( new MockHttpServletRequest() );
+
+		assertEquals( "first", composite.resolveArgument( parameters[ 0 ], new ModelAndViewContainer(), request, binderFactory ) );
+		try {
+			composite.resolveArgument( parameters[ 1 ], new ModelAndViewContainer(), request, binderFactory );
+			fail( "The second parameter must be rejected" );
+		} catch ( ValidatedException e ) {
+			BindingResult bindingResult = e.getBindingResult();
+			assertTrue( bindingResult.hasGlobalErrors() );
+			assertEquals( "first", ( ( Map<?, ?> ) bindingResult.getTarget() ).get( "first" ) );
+			assertNotNull( ( ( ParameterBindingResult ) bindingResult ).getValidated() );
+		}
+	}
+
+	@Test
+	public void passedParametersStayWithinTheAllocationBound() throws Exception {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue( threads instanceof com.sun.management.ThreadMXBean );
+		com.sun.management.ThreadMXBean allocations = ( com.sun.management.ThreadMXBean ) threads;
+		Assume.assumeTrue( allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled() );
+
+		// The engine result is shared, only the allocations of the composite are measured
+		ValidatedResult passed = new ValidatedResult() {
+			@Override
+			public boolean isPassed() {
+				return true;
+			}
+		};
+		ValidationHandlerMethodArgumentResolverComposite composite = newComposite( new ValidatorContext( Locale.ENGLISH ) {
+			@Override
+			public ValidatedResult validateParameter( Object argument, Parameter parameter, String parameterName, 
+					String defaultMessage, Locale locale, Class<?> ... groups ) {
+				return passed;
+			}
+		} );
+		NativeWebRequest request = new ServletWebRequest( new MockHttpServletRequest() );
+		ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+
+		// Nothing is recorded if no later parameter can create the binding result
+		long bytes = allocatedBytes( allocations, composite, parameters( "singleValidated" ), request, mavContainer );
+		assertTrue( bytes + " bytes per request", bytes <= 16 );
+		// Otherwise only the passed parameter is recorded, but the binding result is not created
+		bytes = allocatedBytes( allocations, composite, parameters( "withoutErrors" ), request, mavContainer );
+		assertTrue( bytes + " bytes per request", bytes <= 160 );
+	}
+
+	private static long allocatedBytes( com.sun.management.ThreadMXBean allocations, ValidationHandlerMethodArgumentResolverComposite composite, 
+			MethodParameter [] parameters, NativeWebRequest request, ModelAndViewContainer mavContainer ) throws Exception {
+		resolve( composite, parameters, request, mavContainer, ITERATIONS ); // Warm up before measuring
+		long threadId = Thread.currentThread().getId();
+		long start = allocations.getThreadAllocatedBytes( threadId );
+		resolve( composite, parameters, request, mavContainer, ITERATIONS );
+		return ( allocations.getThreadAllocatedBytes( threadId ) - start ) / ITERATIONS;
+	}
+
+	private static void resolve( ValidationHandlerMethodArgumentResolverComposite composite, MethodParameter [] parameters, 
+			NativeWebRequest request, ModelAndViewContainer mavContainer, int iterations ) throws Exception {
+		WebDataBinderFactory binderFactory = new ValidationDataBinderFactory( Collections.<InvocableHandlerMethod> emptyList(), null );
+		for ( int i = 0; i < iterations; i ++ ) {
+			for ( MethodParameter parameter : parameters ) {
+				composite.resolveArgument( parameter, mavContainer, request, binderFactory );
+			}
+		}
+	}
+
+	private static ValidationHandlerMethodArgumentResolverComposite newComposite( ValidatorContext context ) {
+		HandlerMethodArgumentResolver resolver = new HandlerMethodArgumentResolver() {
+
+			@Override
+			public boolean supportsParameter( MethodParameter parameter ) {
+				return true;
+			}
+
+			@Override
+			public Object resolveArgument( MethodParameter parameter, ModelAndViewContainer mavContainer, 
+					NativeWebRequest webRequest, WebDataBinderFactory binderFactory ) {
+				return parameter.getParameterType() == String.class ? parameter.getParameterName() : null;
+			}
+
+		};
+		return new ValidationHandlerMethodArgumentResolverComposite( Collections.singletonList( resolver ), context );
+	}
+
+	private static MethodParameter [] parameters( String methodName ) {
+		for ( Method method : Handler.class.getDeclaredMethods() ) {
+			if ( method.getName().equals( methodName ) ) {
+				MethodParameter [] parameters = new MethodParameter[ method.getParameterCount() ];
+				for ( int i = 0; i < parameters.length; i ++ ) {
+					parameters[ i ] = new MethodParameter( method, i );
+					parameters[ i ].initParameterNameDiscovery( new DefaultParameterNameDiscoverer() );
+				}
+				return parameters;
+			}
+		}
+		throw new IllegalArgumentException( methodName );
+	}
+
+	static class Handler {
+
+		void withoutErrors( @Validated String first, @Validated String second ) {
+		}
+
+		void singleValidated( @Validated String first, String second ) {
+		}
+
+	}
+
+}
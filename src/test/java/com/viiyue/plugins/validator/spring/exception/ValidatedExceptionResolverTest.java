@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.validation.FieldError;
+
+import com.viiyue.plugins.validator.metadata.result.FragmentResult;
+import com.viiyue.plugins.validator.spring.bindings.BeanBindingResult;
+
+/**
+ * Streaming of the validation errors, only the written errors are
+ * materialized.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidatedExceptionResolverTest {
+
+	@Test
+	public void writesTheFirstErrorsAsUtf8Json() throws Exception {
+		BeanBindingResult errors = new BeanBindingResult( new Cart(), "cart", true, 256 );
+		for ( int i = 0; i < 100; i ++ ) {
+			errors.addRejectedValue( "items[" + i + "]", "ü" + i, new Rejection() );
+		}
+		ValidatedExceptionResolver resolver = new ValidatedExceptionResolver();
+		resolver.setMaxErrors( 2 );
+		resolver.setIncludeRejectedValue( true );
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		resolver.resolveException( new MockHttpServletRequest(), response, null, new ValidatedException( errors ) );
+
+		assertEquals( 400, response.getStatus() );
+		assertTrue( response.getContentType().startsWith( "application/json" ) );
+		assertEquals( "UTF-8", response.getCharacterEncoding() );
+		String content = response.getContentAsString();
+		assertTrue( content.contains( "\"errorCount\":100" ) );
+		assertTrue( content.contains( "\"field\":\"items[1]\",\"rejectedValue\":\"ü1\"" ) );
+		assertFalse( content.contains( "items[2]" ) );
+	}
+
+	@Test
+	public void boundedErrorsAreNotMaterialized() {
+		BeanBindingResult errors = new BeanBindingResult( new Cart(), "cart", true, 256 );
+		for ( int i = 0; i < 3; i ++ ) {
+			errors.addRejectedValue( "items[" + i + "]", i, new Rejection() );
+		}
+
+		assertEquals( 2, errors.getAllErrors( 2 ).size() );
+		assertEquals( "items[1]", ( ( FieldError ) errors.getAllErrors( 2 ).get( 1 ) ).getField() );
+		assertEquals( 3, errors.getErrorCount() );
+		assertEquals( 3, errors.getAllErrors().size() );
+		assertEquals( 1, errors.getAllErrors( 1 ).size() );
+	}
+
+	static class Rejection extends FragmentResult {
+
+		@Override
+		public String getErrorCode() {
+			return "invalid";
+		}
+
+		@Override
+		public String getErrorMessage() {
+			return "item is invalid";
+		}
+
+	}
+
+	static class Cart {
+
+		private String [] items;
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.harness;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Representative controller of the load harness, the response is the number
+ * of validation errors.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+@Controller
+@RequestMapping( "/harness" )
+public class HarnessController {
+
+	@ResponseBody
+	@RequestMapping( "/simple" )
+	public String simple( @Validated String name, @Validated Integer age ) {
+		return "0";
+	}
+
+	@ResponseBody
+	@RequestMapping( "/nested" )
+	public String nested( @Validated Order order, BindingResult result ) {
+		return String.valueOf( result.getErrorCount() );
+	}
+
+	@ResponseBody
+	@RequestMapping( value = "/collection", consumes = "application/json" )
+	public String collection( @Validated @RequestBody Order order, BindingResult result ) {
+		return String.valueOf( result.getErrorCount() );
+	}
+
+}
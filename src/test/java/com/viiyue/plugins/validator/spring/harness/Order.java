@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.harness;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Pattern;
+
+import com.viiyue.plugins.validator.spring.batch.BatchRule;
+
+/**
+ * Order of the load harness, with a nested bean, a collection of simple
+ * values and a collection of beans. The Bean Validation constraints are the
+ * equivalent of the batch rules, they are validated by the stock context.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class Order {
+
+	private String id;
+	private Customer customer;
+	@BatchRule( value = SkuCatalog.class, errorCode = "sku" )
+	private List<@Pattern( regexp = SkuCatalog.SKU_PATTERN ) String> featured;
+	@Valid
+	private List<OrderLine> lines;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId( String id ) {
+		this.id = id;
+	}
+
+	public Customer getCustomer() {
+		return customer;
+	}
+
+	public void setCustomer( Customer customer ) {
+		this.customer = customer;
+	}
+
+	public List<String> getFeatured() {
+		return featured;
+	}
+
+	public void setFeatured( List<String> featured ) {
+		this.featured = featured;
+	}
+
+	public List<OrderLine> getLines() {
+		return lines;
+	}
+
+	public void setLines( List<OrderLine> lines ) {
+		this.lines = lines;
+	}
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.harness;
+
+import javax.validation.constraints.Pattern;
+
+import com.viiyue.plugins.validator.spring.batch.BatchRule;
+
+/**
+ * Order line of the load harness
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class OrderLine {
+
+	@Pattern( regexp = SkuCatalog.SKU_PATTERN )
+	@BatchRule( value = SkuCatalog.class, errorCode = "sku" )
+	private String sku;
+	private int quantity;
+
+	public String getSku() {
+		return sku;
+	}
+
+	public void setSku( String sku ) {
+		this.sku = sku;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity( int quantity ) {
+		this.quantity = quantity;
+	}
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.harness;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.viiyue.plugins.validator.spring.batch.BatchHandler;
+
+/**
+ * In-memory SKU store of the load harness, the SKUs starting with
+ * {@code SKU-} exist.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class SkuCatalog implements BatchHandler<String> {
+
+	// The Bean Validation equivalent of the catalog
+	static final String SKU_PATTERN = "SKU-.*";
+
+	@Override
+	public Set<String> reject( Set<String> values ) {
+		Set<String> rejected = new LinkedHashSet<String>();
+		for ( String sku : values ) {
+			if ( !sku.startsWith( "SKU-" ) ) {
+				rejected.add( sku );
+			}
+		}
+		return rejected;
+	}
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.harness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+/**
+ * End-to-end throughput and latency regression harness. The same controllers
+ * are served by a context with the plugin and by a stock Spring MVC context
+ * validating the equivalent Bean Validation constraints, both are driven with
+ * the same concurrent mix of simple parameters, nested beans and collections,
+ * passing and failing. The test fails if the plugin is slower than the stock
+ * context by more than the regression threshold.
+ * 
+ * <p>
+ * The harness is not part of the unit tests, it runs with
+ * {@code mvn verify -P load-harness}. System properties:
+ * <ul>
+ * <li>{@code validator.harness.requests}: measured requests of each context, default {@code 4000}.</li>
+ * <li>{@code validator.harness.warmup}: warm-up requests of each context, default {@code 2000}.</li>
+ * <li>{@code validator.harness.threads}: concurrent clients, default {@code 4}.</li>
+ * <li>{@code validator.harness.maxRegression}: the maximum ratio of the plugin p99
+ * latency to the stock p99 latency, and of the stock throughput to the plugin
+ * throughput, default {@code 1.5}.</li>
+ * </ul>
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationLoadHarnessTest {
+
+	private static final String CONFIG_LOCATION = "classpath:com/viiyue/plugins/validator/spring/harness/";
+	private static final String ORDER_JSON = "{\"id\":\"%d\",\"customer\":{\"name\":\"n\",\"email\":\"e@x.io\"},"
+			+ "\"featured\":[\"SKU-1\",\"%s\"],\"lines\":[{\"sku\":\"SKU-2\",\"quantity\":1},{\"sku\":\"%s\",\"quantity\":2}]}";
+
+	private static final int requests = Integer.getInteger( "validator.harness.requests", 4000 );
+	private static final int warmup = Integer.getInteger( "validator.harness.warmup", 2000 );
+	private static final int threads = Integer.getInteger( "validator.harness.threads", 4 );
+	private static final double maxRegression = Double.parseDouble( System.getProperty( "validator.harness.maxRegression", "1.5" ) );
+
+	private static XmlWebApplicationContext pluginContext;
+	private static XmlWebApplicationContext stockContext;
+
+	@BeforeClass
+	public static void startContexts() {
+		stockContext = createContext( "stock-context.xml" );
+		pluginContext = createContext( "plugin-context.xml" );
+	}
+
+	@AfterClass
+	public static void closeContexts() {
+		if ( pluginContext != null ) {
+			pluginContext.close();
+		}
+		if ( stockContext != null ) {
+			stockContext.close();
+		}
+	}
+
+	@Test
+	public void bothContextsValidateTheRequestMix() throws Exception {
+		for ( XmlWebApplicationContext context : new XmlWebApplicationContext [] { stockContext, pluginContext } ) {
+			MockMvc mvc = MockMvcBuilders.webAppContextSetup( context ).build();
+			for ( int index : new int [] { 4, 5 } ) {
+				assertEquals( "0", mvc.perform( request( index ) ).andReturn().getResponse().getContentAsString() );
+			}
+			for ( int index : new int [] { 7, 11 } ) {
+				assertNotEquals( "0", mvc.perform( request( index ) ).andReturn().getResponse().getContentAsString() );
+			}
+		}
+	}
+
+	@Test
+	public void pluginStaysWithinRegressionThreshold() throws Exception {
+		MockMvc stock = MockMvcBuilders.webAppContextSetup( stockContext ).build();
+		MockMvc plugin = MockMvcBuilders.webAppContextSetup( pluginContext ).build();
+
+		// Interleave the warm-up so that both contexts are measured on a warm JVM
+		drive( stock, warmup );
+		drive( plugin, warmup );
+		Report stockReport = drive( stock, requests );
+		Report pluginReport = drive( plugin, requests );
+
+		assertTrue( "p99 regression exceeds " + maxRegression + "x: " + pluginReport + " vs " + stockReport, 
+				pluginReport.p99 <= stockReport.p99 * maxRegression );
+		assertTrue( "Throughput regression exceeds " + maxRegression + "x: " + pluginReport + " vs " + stockReport, 
+				pluginReport.throughput * maxRegression >= stockReport.throughput );
+	}
+
+	private static XmlWebApplicationContext createContext( String config ) {
+		XmlWebApplicationContext context = new XmlWebApplicationContext();
+		context.setServletContext( new MockServletContext() );
+		context.setConfigLocation( CONFIG_LOCATION + config );
+		context.refresh();
+		return context;
+	}
+
+	/**
+	 * Send the request mix from concurrent clients and measure the latency of
+	 * each request
+	 * 
+	 * @param mvc the mock MVC of the context
+	 * @param count the number of requests
+	 * @return the throughput and latency report
+	 */
+	private static Report drive( MockMvc mvc, int count ) throws Exception {
+		long [] latencies = new long[ count ];
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool( threads );
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>( threads );
+			long start = System.nanoTime();
+			for ( int i = 0; i < threads; i ++ ) {
+				futures.add( clients.submit( () -> {
+					for ( int index; ( index = next.getAndIncrement() ) < count; ) {
+						RequestBuilder request = request( index );
+						long begin = System.nanoTime();
+						mvc.perform( request ).andExpect( status().isOk() );
+						latencies[ index ] = System.nanoTime() - begin;
+					}
+					return null;
+				} ) );
+			}
+			for ( Future<?> future : futures ) {
+				future.get();
+			}
+			return new Report( latencies, System.nanoTime() - start );
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	/**
+	 * Build the request of the mix, one request in four carries an unknown SKU
+	 * 
+	 * @param index the request index
+	 * @return the request
+	 */
+	private static RequestBuilder request( int index ) {
+		String sku = index % 4 == 3 ? "BAD-" + index : "SKU-" + index;
+		switch ( index % 3 ) {
+			case 0:
+				return get( "/harness/simple" ).param( "name", "name" + index ).param( "age", String.valueOf( index % 90 ) );
+			case 1:
+				return post( "/harness/nested" )
+						.param( "id", String.valueOf( index ) )
+						.param( "customer.name", "n" )
+						.param( "customer.email", "e@x.io" )
+						.param( "featured", "SKU-1", sku )
+						.param( "lines[0].sku", "SKU-2" ).param( "lines[0].quantity", "1" )
+						.param( "lines[1].sku", sku ).param( "lines[1].quantity", "2" );
+			default:
+				return post( "/harness/collection" ).contentType( MediaType.APPLICATION_JSON )
+						.content( String.format( ORDER_JSON, index, sku, sku ) );
+		}
+	}
+
+	/**
+	 * Throughput and latency percentiles of a run
+	 */
+	private static final class Report {
+
+		private final double throughput;
+		private final long p50;
+		private final long p99;
+		private final long p999;
+
+		private Report( long [] latencies, long elapsedNanos ) {
+			Arrays.sort( latencies );
+			this.throughput = latencies.length * 1e9 / elapsedNanos;
+			this.p50 = percentile( latencies, 0.5 );
+			this.p99 = percentile( latencies, 0.99 );
+			this.p999 = percentile( latencies, 0.999 );
+		}
+
+		private static long percentile( long [] sorted, double quantile ) {
+			return sorted[ Math.min( sorted.length - 1, ( int ) Math.ceil( quantile * sorted.length ) - 1 ) ];
+		}
+
+		@Override
+		public String toString() {
+			return String.format( "%.0f req/s, p50 %dus, p99 %dus, p999 %dus", throughput, p50 / 1000, p99 / 1000, p999 / 1000 );
+		}
+
+	}
+
+}
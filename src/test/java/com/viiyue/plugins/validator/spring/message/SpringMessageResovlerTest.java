@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+/**
+ * Resolution of the validator messages with and without watched bundles
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class SpringMessageResovlerTest {
+
+	private static final String APPLICATION_BUNDLE = "classpath:com/viiyue/plugins/validator/spring/message/application";
+	private static final String VALIDATOR_BUNDLE = "com.viiyue.plugins.validator.spring.message.validator";
+
+	@Test
+	public void watchedBundlesDoNotReachTheApplicationMessageSource() throws Exception {
+		CountingMessageSource applicationSource = new CountingMessageSource();
+		SpringMessageResovler resolver = new SpringMessageResovler( applicationSource );
+		resolver.enableBundleWatching( "UTF-8" );
+		try {
+			resolver.addResourceBundle( VALIDATOR_BUNDLE );
+			assertEquals( Collections.singleton( APPLICATION_BUNDLE ), applicationSource.getBasenameSet() );
+
+			assertEquals( "SKU is invalid", resolver.resolve( "validator.sku", Locale.ENGLISH ) );
+			assertEquals( "default", resolver.resolve( "validator.missing", Locale.ENGLISH, "default" ) );
+			assertEquals( 0, applicationSource.lookups );
+
+			// The keys of the application are still resolved by its message source
+			assertEquals( "Order", resolver.resolve( "order.name", Locale.ENGLISH ) );
+			assertEquals( 1, applicationSource.lookups );
+		} finally {
+			resolver.disableBundleWatching();
+		}
+	}
+
+	@Test
+	public void bundlesAreAddedToTheApplicationMessageSourceWithoutWatching() {
+		CountingMessageSource applicationSource = new CountingMessageSource();
+		SpringMessageResovler resolver = new SpringMessageResovler( applicationSource );
+		resolver.addResourceBundle( VALIDATOR_BUNDLE );
+
+		assertTrue( applicationSource.getBasenameSet().contains( "classpath:com/viiyue/plugins/validator/spring/message/validator" ) );
+		assertEquals( "SKU is invalid", resolver.resolve( "validator.sku", Locale.ENGLISH ) );
+		assertEquals( 1, applicationSource.lookups );
+	}
+
+	/**
+	 * Message source of the application, counts the lookups that may check
+	 * the file system
+	 */
+	private static final class CountingMessageSource extends ReloadableResourceBundleMessageSource {
+
+		private int lookups;
+
+		private CountingMessageSource() {
+			setBasename( APPLICATION_BUNDLE );
+			setCacheSeconds( 0 );
+		}
+
+		@Override
+		protected String resolveCodeWithoutArguments( String code, Locale locale ) {
+			lookups ++;
+			return super.resolveCodeWithoutArguments( code, locale );
+		}
+
+	}
+
+}
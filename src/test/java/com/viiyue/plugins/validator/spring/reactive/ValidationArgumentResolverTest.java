@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.reactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.RequestParamMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.ServerWebExchangeArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.ValidatorLite;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Only the parameters bound from the request data are validated
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ValidationArgumentResolverTest {
+
+	private final AtomicInteger validations = new AtomicInteger();
+	private final ValidatorContext context = new ValidatorContext( Locale.ENGLISH ) {
+		@Override
+		public ValidatedResult validateParameter( Object argument, Parameter parameter, String parameterName, 
+				String defaultMessage, Locale locale, Class<?> ... groups ) {
+			validations.incrementAndGet();
+			return super.validateParameter( argument, parameter, parameterName, defaultMessage, locale, groups );
+		}
+	};
+	private final MockServerWebExchange exchange = MockServerWebExchange.from( MockServerHttpRequest.get( "/orders?name=order" ) );
+
+	@Test
+	public void frameworkParametersAreNotValidated() throws Exception {
+		ServerWebExchangeArgumentResolver delegate = new ServerWebExchangeArgumentResolver( ReactiveAdapterRegistry.getSharedInstance() );
+
+		assertSame( exchange, resolve( delegate, 0 ) );
+		assertEquals( 0, validations.get() );
+	}
+
+	@Test
+	public void requestParametersAreValidated() throws Exception {
+		RequestParamMethodArgumentResolver delegate = new RequestParamMethodArgumentResolver( null, ReactiveAdapterRegistry.getSharedInstance(), false );
+
+		assertEquals( "order", resolve( delegate, 1 ) );
+		assertEquals( 1, validations.get() );
+	}
+
+	private Object resolve( HandlerMethodArgumentResolver delegate, int parameterIndex ) throws Exception {
+		ValidatorLite validatorLite = new ValidatorLite();
+		validatorLite.setValidatorContext( context );
+		ValidationArgumentResolver resolver = new ValidationArgumentResolver( delegate, context, validatorLite, 
+				Schedulers.immediate(), new ConcurrentHashMap<MethodParameter, ValidationArgumentResolver.ParameterMetadata>() );
+		Method method = Handler.class.getDeclaredMethod( "handle", ServerWebExchange.class, String.class );
+		MethodParameter parameter = new MethodParameter( method, parameterIndex );
+		parameter.initParameterNameDiscovery( new DefaultParameterNameDiscoverer() );
+		return resolver.resolveArgument( parameter, new BindingContext(), exchange ).block();
+	}
+
+	static class Handler {
+
+		@Validated
+		void handle( ServerWebExchange exchange, @RequestParam( "name" ) String name ) {
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.viiyue.plugins.validator.metadata.result.ValidatedResult;
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.metrics.ValidationMetrics;
+
+/**
+ * Snapshots of the report-only validations
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class ReportOnlyValidatorTest {
+
+	private static final Class<?> [][] PLAN = { {} };
+
+	private final CountDownLatch changed = new CountDownLatch( 1 );
+	private final CompletableFuture<Object> validated = new CompletableFuture<Object>();
+	private final ValidatorContext context = new ValidatorContext( Locale.ENGLISH ) {
+		@Override
+		public ValidatedResult validateBean( Object target, Locale locale, Class<?> ... groups ) {
+			try {
+				changed.await( 10, TimeUnit.SECONDS );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			validated.complete( target );
+			return super.validateBean( target, locale, groups );
+		}
+	};
+	private final ReportOnlyValidator validator = new ReportOnlyValidator( context, 1, 4 );
+
+	@After
+	public void shutdown() {
+		validator.shutdown();
+	}
+
+	@Test
+	public void theHandlerCannotChangeTheSnapshot() throws Exception {
+		Order order = new Order();
+		order.lines.add( new OrderLine( "SKU-1" ) );
+		order.lines.add( order.lines.get( 0 ) );
+		order.parent = order;
+
+		assertTrue( validator.submitBean( order, PLAN, Locale.ENGLISH ) );
+		order.lines.get( 0 ).sku = "SKU-2";
+		order.lines.add( new OrderLine( "SKU-3" ) );
+		changed.countDown();
+
+		Order snapshot = ( Order ) validated.get( 10, TimeUnit.SECONDS );
+		assertNotSame( order, snapshot );
+		assertEquals( LinkedList.class, snapshot.lines.getClass() );
+		assertEquals( 2, snapshot.lines.size() );
+		assertEquals( "SKU-1", snapshot.lines.get( 0 ).sku );
+		// Shared and cyclic references are kept
+		assertSame( snapshot.lines.get( 0 ), snapshot.lines.get( 1 ) );
+		assertSame( snapshot, snapshot.parent );
+	}
+
+	@Test
+	public void beansThatCannotBeCopiedAreDropped() {
+		ValidationMetrics metrics = new ValidationMetrics();
+		context.setMetrics( metrics );
+		Order order = new Order();
+		order.lines.add( new Gift( "SKU-1" ) );
+
+		assertFalse( validator.submitBean( order, PLAN, Locale.ENGLISH ) );
+		assertEquals( Long.valueOf( 1 ), metrics.getReportOnlyCounts().get( "dropped" ) );
+	}
+
+	public static class Order {
+
+		private final LinkedList<OrderLine> lines = new LinkedList<OrderLine>();
+		private Order parent;
+
+	}
+
+	public static class OrderLine {
+
+		private String sku;
+
+		public OrderLine() {
+		}
+
+		OrderLine( String sku ) {
+			this.sku = sku;
+		}
+
+	}
+
+	// Without a default constructor
+	public static class Gift extends OrderLine {
+
+		Gift( String sku ) {
+			super( sku );
+		}
+
+	}
+
+}
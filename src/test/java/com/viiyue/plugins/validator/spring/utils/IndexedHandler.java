@@ -0,0 +1,29 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import com.viiyue.plugins.validator.handler.Handler;
+
+/**
+ * Validation handler of the native image boot path, it is outside of the
+ * scanned packages and only known through the handler index.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class IndexedHandler implements Handler {
+
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.MapBindingResult;
+
+import com.viiyue.plugins.validator.spring.ValidatorContext;
+import com.viiyue.plugins.validator.spring.ValidatorLiteBean;
+import com.viiyue.plugins.validator.spring.batch.BatchHandler;
+import com.viiyue.plugins.validator.spring.batch.BatchRule;
+import com.viiyue.plugins.validator.spring.batch.BatchValidator;
+import com.viiyue.plugins.validator.spring.groups.GroupSequences;
+import com.viiyue.plugins.validator.spring.metrics.CacheStatistics;
+import com.viiyue.plugins.validator.spring.regex.RegexEngines;
+
+/**
+ * The metadata caches must keep their entries while the application lives,
+ * and must not pin the class loader of a closed application. The application
+ * classes are defined by a separate class loader, the same way a servlet
+ * container loads a web application while the plugin lives in a shared class
+ * loader.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class MetadataCachesTest {
+
+	@Test
+	public void clearsTheCachesOnlyWhenItsOwnContextCloses() throws Exception {
+		GenericApplicationContext parent = new GenericApplicationContext();
+		GenericApplicationContext child = new GenericApplicationContext( parent );
+		ValidatorLiteBean bean = newBean( parent );
+		GroupSequences groupSequences = bean.getValidatorContext().getGroupSequences();
+		groupSequences.getPlan( AppGroup.class );
+		assertEquals( 1, groupSequences.getCacheStatistics().getSize() );
+
+		// Close events of child contexts are published to the parent as well
+		bean.onApplicationEvent( new ContextClosedEvent( child ) );
+		assertEquals( 1, groupSequences.getCacheStatistics().getSize() );
+
+		bean.onApplicationEvent( new ContextClosedEvent( parent ) );
+		assertEquals( 0, groupSequences.getCacheStatistics().getSize() );
+		bean.destroy();
+	}
+
+	@Test
+	public void entriesSurviveGarbageCollectionWhileTheClassesAreAlive() {
+		ValidatorContext context = new ValidatorContext( Locale.ENGLISH );
+		GroupSequences groupSequences = context.getGroupSequences();
+		BatchValidator batchValidator = new BatchValidator( null );
+		Class<?> [][] plan = groupSequences.getPlan( AppGroup.class );
+		BatchValidator.BatchField [] fields = batchValidator.getBatchFields( AppBean.class );
+
+		for ( int i = 0; i < 3; i ++ ) {
+			System.gc();
+		}
+		assertSame( plan, groupSequences.getPlan( AppGroup.class ) );
+		assertSame( fields, batchValidator.getBatchFields( AppBean.class ) );
+		assertEquals( 1, groupSequences.getCacheStatistics().getHits() );
+		assertEquals( 1, context.getRuleInterner().getCacheStatistics().getSize() );
+	}
+
+	@Test
+	public void onlyDeduplicatedInstancesAreCountedAsHits() {
+		RuleInterner interner = new RuleInterner( MetadataCaches.DEFAULT_LIMIT );
+		CacheStatistics statistics = interner.getCacheStatistics();
+		assertSame( interner.intern( RegexEngines.jdk(), "SKU-.*" ), interner.intern( RegexEngines.jdk(), "SKU-.*" ) );
+		assertEquals( 0, statistics.getHits() );
+
+		Class<?> [][] plan = interner.intern( new Class<?> [][] { { AppGroup.class } } );
+		assertSame( plan, interner.intern( new Class<?> [][] { { AppGroup.class } } ) );
+		assertEquals( 1, statistics.getHits() );
+		assertEquals( 2, statistics.getSize() );
+	}
+
+	@Test
+	public void classLoaderIsCollectableAfterClose() throws Exception {
+		BatchValidator batchValidator = new BatchValidator( null );
+		WeakReference<ClassLoader> loader = runApplication( batchValidator );
+
+		// The batch metadata and handlers are released by the destroyed validator
+		batchValidator.clear();
+		assertCollected( loader );
+	}
+
+	private static ValidatorLiteBean newBean( GenericApplicationContext context ) throws Exception {
+		ValidatorLiteBean bean = new ValidatorLiteBean();
+		bean.setApplicationContext( context );
+		bean.afterPropertiesSet();
+		return bean;
+	}
+
+	/**
+	 * Start an application context with a message source of the application,
+	 * expand the validation plans of the application classes, validate a bean
+	 * with a batch rule and close the context. The bean of the plugin clears
+	 * the caches of the context and releases the installed message resolver.
+	 */
+	private static WeakReference<ClassLoader> runApplication( BatchValidator batchValidator ) throws Exception {
+		ApplicationClassLoader loader = new ApplicationClassLoader();
+		Class<?> group = loader.loadClass( AppGroup.class.getName() );
+		Class<?> beanType = loader.loadClass( AppBean.class.getName() );
+		assertTrue( group.getClassLoader() == loader );
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBeanDefinition( AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME, 
+				new RootBeanDefinition( loader.loadClass( AppMessageSource.class.getName() ) ) );
+		context.registerBeanDefinition( "validatorLiteBean", new RootBeanDefinition( ValidatorLiteBean.class ) );
+		context.refresh();
+		try {
+			ValidatorContext validatorContext = context.getBean( ValidatorLiteBean.class ).getValidatorContext();
+			validatorContext.getGroupSequences().getPlan( group );
+			Object bean = BeanUtils.instantiateClass( beanType );
+			assertTrue( batchValidator.validate( bean, new MapBindingResult( new HashMap<String, Object>(), "bean" ), null, null, null, null ) );
+		} finally {
+			context.close();
+		}
+		return new WeakReference<ClassLoader>( loader );
+	}
+
+	private static void assertCollected( WeakReference<ClassLoader> loader ) throws InterruptedException {
+		// The reflection caches of spring itself are soft, they are not under test
+		ReflectionUtils.clearCache();
+		AnnotationUtils.clearCache();
+		List<byte []> pressure = new ArrayList<byte []>();
+		for ( int i = 0; i < 50 && loader.get() != null; i ++ ) {
+			pressure.add( new byte[ 1024 * 1024 ] );
+			System.gc();
+			Thread.sleep( 20 );
+		}
+		assertNull( "The application class loader is still reachable", loader.get() );
+	}
+
+	public interface AppGroup {
+	}
+
+	public static class AppBean {
+
+		@BatchRule( AppHandler.class )
+		private String sku = "SKU-1";
+		private AppBean next;
+
+	}
+
+	public static class AppMessageSource extends StaticMessageSource {
+	}
+
+	public static class AppHandler implements BatchHandler<String> {
+
+		@Override
+		public Set<String> reject( Set<String> values ) {
+			return Collections.emptySet();
+		}
+
+	}
+
+	/**
+	 * Child-first class loader of the application classes of the test
+	 */
+	private static final class ApplicationClassLoader extends ClassLoader {
+
+		private ApplicationClassLoader() {
+			super( MetadataCachesTest.class.getClassLoader() );
+		}
+
+		@Override
+		protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+			if ( !name.startsWith( MetadataCachesTest.class.getName() + "$App" ) ) {
+				return super.loadClass( name, resolve );
+			}
+			synchronized ( getClassLoadingLock( name ) ) {
+				Class<?> type = findLoadedClass( name );
+				if ( type == null ) {
+					byte [] bytes = readClass( name );
+					type = defineClass( name, bytes, 0, bytes.length );
+				}
+				return type;
+			}
+		}
+
+		private byte [] readClass( String name ) throws ClassNotFoundException {
+			try ( InputStream in = getParent().getResourceAsStream( name.replace( '.', '/' ) + ".class" ) ) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte [] buffer = new byte[ 4096 ];
+				for ( int read; ( read = in.read( buffer ) ) > 0; ) {
+					out.write( buffer, 0, read );
+				}
+				return out.toByteArray();
+			} catch ( IOException | NullPointerException e ) {
+				throw new ClassNotFoundException( name, e );
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2019-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viiyue.plugins.validator.spring.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viiyue.plugins.validator.spring.ValidatorLiteBean;
+import com.viiyue.plugins.validator.spring.harness.Customer;
+import com.viiyue.plugins.validator.spring.harness.Order;
+import com.viiyue.plugins.validator.spring.harness.OrderLine;
+import com.viiyue.plugins.validator.spring.harness.SkuCatalog;
+
+/**
+ * The boot path of a native image, checked on the JVM: the generated and the
+ * shipped metadata must be readable by the native-image builder, and the
+ * handlers must be resolved from the index instead of classpath scanning.
+ *
+ * @author tangxbai
+ * @since 1.0.5
+ */
+public class NativeImageConfigGeneratorTest {
+
+	private static final String CONFIG_LOCATION = "classpath:com/viiyue/plugins/validator/spring/harness/plugin-context.xml";
+	private static final String SHIPPED_CONFIG = "META-INF/native-image/com.viiyue.plugins/validator-lite-spring/reflect-config.json";
+	private static final String IMAGE_CODE = "org.graalvm.nativeimage.imagecode";
+
+	@Rule
+	public TemporaryFolder resources = new TemporaryFolder();
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void generatesTheMetadataOfTheValidatedBeans() throws Exception {
+		String resourcesDirectory = resources.getRoot().getAbsolutePath();
+		XmlWebApplicationContext context = new XmlWebApplicationContext() {
+			@Override
+			protected void postProcessBeanFactory( ConfigurableListableBeanFactory beanFactory ) {
+				super.postProcessBeanFactory( beanFactory );
+				// The plugin is a registry post processor, placeholders are not resolved for it yet
+				for ( String name : beanFactory.getBeanNamesForType( ValidatorLiteBean.class, false, false ) ) {
+					beanFactory.getBeanDefinition( name ).getPropertyValues().add( "nativeImageResources", resourcesDirectory );
+				}
+			}
+		};
+		try {
+			context.setServletContext( new MockServletContext() );
+			context.setConfigLocation( CONFIG_LOCATION );
+			context.refresh();
+		} finally {
+			context.close();
+		}
+
+		File configDirectory = new File( resources.getRoot(), "META-INF/native-image/validator-lite-spring" );
+		Set<String> reflectTypes = readNames( mapper.readTree( new File( configDirectory, "reflect-config.json" ) ) );
+		assertTrue( reflectTypes.toString(), reflectTypes.contains( Order.class.getName() ) );
+		assertTrue( reflectTypes.toString(), reflectTypes.contains( OrderLine.class.getName() ) );
+		assertTrue( reflectTypes.toString(), reflectTypes.contains( Customer.class.getName() ) );
+		assertTrue( reflectTypes.toString(), reflectTypes.contains( SkuCatalog.class.getName() ) );
+		assertTrue( reflectTypes.toString(), !reflectTypes.contains( String.class.getName() ) );
+
+		JsonNode resourceConfig = mapper.readTree( new File( configDirectory, "resource-config.json" ) );
+		String pattern = resourceConfig.path( "resources" ).path( "includes" ).path( 0 ).path( "pattern" ).asText();
+		assertEquals( "\\Q" + NativeImageConfigGenerator.HANDLER_INDEX + "\\E", pattern );
+		assertTrue( new File( resources.getRoot(), NativeImageConfigGenerator.HANDLER_INDEX ).isFile() );
+	}
+
+	@Test
+	public void writesTheHandlerIndexOfTheScannedHandlers() throws Exception {
+		NativeImageConfigGenerator generator = new NativeImageConfigGenerator();
+		generator.addHandlers( Collections.singletonList( "com.example.handlers.SkuHandler" ) );
+		generator.write( resources.getRoot().toPath() );
+
+		List<String> index = Files.readAllLines( new File( resources.getRoot(), NativeImageConfigGenerator.HANDLER_INDEX ).toPath() );
+		assertEquals( Collections.singletonList( "com.example.handlers.SkuHandler" ), index );
+		assertTrue( readNames( mapper.readTree( generator.getReflectConfig() ) ).contains( "com.example.handlers.SkuHandler" ) );
+	}
+
+	@Test
+	public void resolvesTheHandlersFromTheIndexInANativeImage() {
+		ValidatorLiteBean bean = new ValidatorLiteBean();
+		bean.setHandlers( "com.viiyue.plugins.validator.spring.harness" );
+		assertEquals( Collections.emptyList(), bean.getHandlerClassNames() );
+
+		System.setProperty( IMAGE_CODE, "runtime" );
+		try {
+			// The package has no handlers, the names can only come from the index
+			assertEquals( NativeImageConfigGenerator.readHandlerIndex(), bean.getHandlerClassNames() );
+			assertEquals( Collections.singletonList( IndexedHandler.class.getName() ), bean.getHandlerClassNames() );
+		} finally {
+			System.clearProperty( IMAGE_CODE );
+		}
+	}
+
+	@Test
+	public void bootsAndValidatesFromTheHandlerIndex() throws Exception {
+		XmlWebApplicationContext context = new XmlWebApplicationContext() {
+			@Override
+			protected void postProcessBeanFactory( ConfigurableListableBeanFactory beanFactory ) {
+				super.postProcessBeanFactory( beanFactory );
+				for ( String name : beanFactory.getBeanNamesForType( ValidatorLiteBean.class, false, false ) ) {
+					beanFactory.getBeanDefinition( name ).getPropertyValues().add( "handlers", "com.viiyue.plugins.validator.spring.harness" );
+				}
+			}
+		};
+		System.setProperty( IMAGE_CODE, "runtime" );
+		try {
+			context.setServletContext( new MockServletContext() );
+			context.setConfigLocation( CONFIG_LOCATION );
+			context.refresh();
+			assertEquals( Collections.singletonList( IndexedHandler.class.getName() ), 
+					context.getBean( ValidatorLiteBean.class ).getHandlerClassNames() );
+
+			MockMvc mvc = MockMvcBuilders.webAppContextSetup( context ).build();
+			assertEquals( "0", mvc.perform( post( "/harness/nested" ).param( "lines[0].sku", "SKU-1" ) )
+					.andExpect( status().isOk() ).andReturn().getResponse().getContentAsString() );
+			assertEquals( "1", mvc.perform( post( "/harness/nested" ).param( "lines[0].sku", "BAD-1" ) )
+					.andExpect( status().isOk() ).andReturn().getResponse().getContentAsString() );
+		} finally {
+			System.clearProperty( IMAGE_CODE );
+			context.close();
+		}
+	}
+
+	@Test
+	public void shipsLoadableReflectionMetadata() throws Exception {
+		JsonNode config;
+		try ( InputStream in = new ClassPathResource( SHIPPED_CONFIG ).getInputStream() ) {
+			config = mapper.readTree( in );
+		}
+		Set<String> names = readNames( config );
+		assertTrue( names.contains( ValidatorLiteBean.class.getName() ) );
+		for ( String name : names ) {
+			Class.forName( name, false, getClass().getClassLoader() );
+		}
+	}
+
+	private Set<String> readNames( JsonNode config ) {
+		assertTrue( config.isArray() );
+		Set<String> names = new HashSet<String>();
+		for ( JsonNode type : config ) {
+			names.add( type.get( "name" ).asText() );
+		}
+		return names;
+	}
+
+}